@@ -12,6 +12,15 @@ android {
         targetSdk = 35
         versionCode = 1
         versionName = "1.0"
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Экспорт схем Room для проверки миграций
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments += mapOf("room.schemaLocation" to "$projectDir/schemas")
+            }
+        }
     }
 
     buildTypes {
@@ -28,8 +37,21 @@ android {
         targetCompatibility = JavaVersion.VERSION_17
     }
 
+    // Юнит-тесты вызывают Log и SystemClock через планировщик базы; заглушки android.jar возвращают значения по умолчанию
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+
+    // Схемы Room нужны MigrationTestHelper в инструментальных тестах
+    sourceSets {
+        getByName("androidTest") {
+            assets.srcDir("$projectDir/schemas")
+        }
+    }
+
     buildFeatures {
         viewBinding = true
+        buildConfig = true
     }
 }
 
@@ -41,6 +63,11 @@ dependencies {
     implementation(libs.room.common)
     implementation(libs.room.runtime.android)
     annotationProcessor(libs.room.compiler)
+    implementation(libs.room.paging)
+
+    // Paging 3
+    implementation(libs.paging.runtime)
+    implementation(libs.lifecycle.viewmodel.ktx)
 
     // Retrofit
     implementation(libs.retrofit.core)
@@ -58,4 +85,12 @@ dependencies {
     // ZXing для сканирования QR-кодов
     implementation(libs.zxing.android.embedded)
     implementation(libs.zxing.core)
+
+    // Тесты
+    testImplementation(libs.junit)
+    testImplementation(libs.okhttp3.mockwebserver)
+    androidTestImplementation(libs.androidx.test.ext.junit)
+    androidTestImplementation(libs.androidx.test.runner)
+    androidTestImplementation(libs.room.testing)
+    androidTestImplementation(libs.okhttp3.mockwebserver)
 }
\ No newline at end of file
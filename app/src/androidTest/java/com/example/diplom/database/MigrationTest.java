@@ -0,0 +1,255 @@
+package com.example.diplom.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.database.Cursor;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.diplom.database.dao.ExpenseDao;
+import com.example.diplom.database.queries.ExpenseFilterQuery;
+import com.example.diplom.utils.Money;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Проверка цепочки миграций по экспортированным схемам (app/schemas)
+ * и планов запросов списка, итогов и поиска расходов на мигрированной базе.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+    private static final int LATEST_VERSION = 13;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    @Test
+    public void migrateEachVersionToNext() throws Exception {
+        for (int version = 1; version < LATEST_VERSION; version++) {
+            String name = TEST_DB + "-" + version;
+            helper.createDatabase(name, version).close();
+            helper.runMigrationsAndValidate(name, version + 1, true, DatabaseMigrations.ALL).close();
+        }
+    }
+
+    @Test
+    public void migrate1ToLatestKeepsData() throws Exception {
+        long date = LocalDate.of(2024, 1, 15).atTime(12, 30)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 1)) {
+            db.execSQL("INSERT INTO categories (id, name, is_expense) VALUES (1, 'Материалы', 1)");
+            db.execSQL("INSERT INTO expenses (id, title, amount, description, expense_date, category_id, " +
+                    "is_material_cost, is_labor_cost, is_capital_cost, is_energy_cost, is_other_cost) " +
+                    "VALUES (1, 'Кирпич', 0.285, 'поддон', " + date + ", 1, 1, 0, 0, 0, 0)");
+            db.execSQL("INSERT INTO expenses (id, title, amount, description, expense_date, category_id, " +
+                    "is_material_cost, is_labor_cost, is_capital_cost, is_energy_cost, is_other_cost) " +
+                    "VALUES (2, 'Электричество', 1500.1, NULL, " + date + ", NULL, 0, 0, 0, 1, 0)");
+            db.execSQL("INSERT INTO currencies (id, code, name, rate, base_currency, change, change_percentage) " +
+                    "VALUES (1, 'USD', 'Доллар США', 0.0105, 'RUB', 0.0001, 0.5)");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true,
+                DatabaseMigrations.ALL);
+
+        // 6 -> 7: суммы в копейках с округлением 0.285 -> 29
+        assertEquals(29L, queryLong(db, "SELECT amount FROM expenses WHERE id = 1"));
+        assertEquals(150010L, queryLong(db, "SELECT amount FROM expenses WHERE id = 2"));
+
+        // 6 -> 7: курсы с фиксированной точкой
+        assertEquals(Math.round(0.0105 * Money.RATE_SCALE), queryLong(db, "SELECT rate FROM currencies WHERE id = 1"));
+
+        // Дневные агрегаты пересчитаны из копеек, триггеры пересозданы вместе с таблицей expenses
+        assertEquals(150039L, queryLong(db, "SELECT SUM(total) FROM expense_daily_totals"));
+        db.execSQL("INSERT INTO expenses (title, amount, expense_date, category_id, is_material_cost, " +
+                "is_labor_cost, is_capital_cost, is_energy_cost, is_other_cost) " +
+                "VALUES ('Цемент', 100, " + date + ", 1, 1, 0, 0, 0, 0)");
+        assertEquals(129L, queryLong(db, "SELECT total FROM expense_daily_totals WHERE category_key = 1"));
+        assertEquals(3L, queryLong(db, "SELECT SUM(count) FROM expense_daily_totals"));
+
+        // Полнотекстовый индекс содержит старые строки и синхронизируется с новыми
+        assertEquals(1L, queryLong(db, "SELECT docid FROM expenses_fts WHERE expenses_fts MATCH 'поддон*'"));
+        assertEquals(3L, queryLong(db, "SELECT docid FROM expenses_fts WHERE expenses_fts MATCH 'цемент*'"));
+
+        db.close();
+    }
+
+    @Test
+    public void migrate9To10KeysReceiptsWithoutTime() throws Exception {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 9)) {
+            db.execSQL("INSERT INTO expenses (id, title, amount, is_material_cost, is_labor_cost, " +
+                    "is_capital_cost, is_energy_cost, is_other_cost) VALUES (1, 'Чек', 100, 0, 0, 0, 0, 0)");
+            // Один чек, импортированный до и после смены часового пояса, и другой чек
+            db.execSQL("INSERT INTO receipts (id, expense_id, fn, fd, fp, receipt_time, amount, operation_type) " +
+                    "VALUES (1, 1, 9287440300090728, 7, 1234567890, 1705311000000, 100, 1)");
+            db.execSQL("INSERT INTO receipts (id, expense_id, fn, fd, fp, receipt_time, amount, operation_type) " +
+                    "VALUES (2, 1, 9287440300090728, 7, 1234567890, 1705314600000, 100, 1)");
+            db.execSQL("INSERT INTO receipts (id, expense_id, fn, fd, fp, receipt_time, amount, operation_type) " +
+                    "VALUES (3, 1, 9287440300090728, 8, 1234567891, 1705311000000, 100, 1)");
+            db.execSQL("INSERT INTO receipt_items (receipt_id, name, price, quantity, sum) " +
+                    "VALUES (2, 'Хлеб', 100, 1000, 100)");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 10, true, DatabaseMigrations.ALL);
+
+        // Остается первый экземпляр дубликата, позиции удаленного удалены вместе с ним
+        assertEquals(2L, queryLong(db, "SELECT COUNT(*) FROM receipts"));
+        assertEquals(3L, queryLong(db, "SELECT MAX(id) FROM receipts WHERE id != 1"));
+        assertEquals(0L, queryLong(db, "SELECT COUNT(*) FROM receipt_items"));
+
+        // Тот же чек с другим временем больше не добавляется
+        db.execSQL("INSERT OR IGNORE INTO receipts (expense_id, fn, fd, fp, receipt_time, amount, operation_type) " +
+                "VALUES (1, 9287440300090728, 7, 1234567890, 1705318200000, 100, 1)");
+        assertEquals(2L, queryLong(db, "SELECT COUNT(*) FROM receipts"));
+
+        db.close();
+    }
+
+    @Test
+    public void migrate10To11RebasesHistoryToPivot() throws Exception {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 10)) {
+            // История относительно рубля: USD и EUR в двух точках
+            db.execSQL("INSERT INTO currency_rate_history VALUES ('USD', 'RUB', 1000, 0, 0.0105, 0.0105, 0.0105, 0.0105)");
+            db.execSQL("INSERT INTO currency_rate_history VALUES ('EUR', 'RUB', 1000, 0, 0.0097, 0.0097, 0.0097, 0.0097)");
+            db.execSQL("INSERT INTO currency_rate_history VALUES ('USD', 'RUB', 2000, 1, 0.0110, 0.0112, 0.0108, 0.0110)");
+            db.execSQL("INSERT INTO currency_rate_history VALUES ('EUR', 'RUB', 2000, 1, 0.0100, 0.0100, 0.0100, 0.0100)");
+            // Точка без курса USD пересчитана быть не может
+            db.execSQL("INSERT INTO currency_rate_history VALUES ('EUR', 'RUB', 3000, 0, 0.0100, 0.0100, 0.0100, 0.0100)");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 11, true, DatabaseMigrations.ALL);
+
+        assertEquals(0L, queryLong(db, "SELECT COUNT(*) FROM currency_rate_history WHERE base_currency != 'USD'"));
+        assertEquals(4L, queryLong(db, "SELECT COUNT(*) FROM currency_rate_history"));
+        assertEquals(0.0097 / 0.0105, queryDouble(db, "SELECT close FROM currency_rate_history " +
+                "WHERE code = 'EUR' AND timestamp = 1000"), 1e-12);
+        assertEquals(1 / 0.0105, queryDouble(db, "SELECT close FROM currency_rate_history " +
+                "WHERE code = 'RUB' AND timestamp = 1000"), 1e-9);
+        // Свеча: high рубля к USD соответствует low USD к рублю
+        assertEquals(1 / 0.0108, queryDouble(db, "SELECT high FROM currency_rate_history " +
+                "WHERE code = 'RUB' AND timestamp = 2000"), 1e-9);
+        assertEquals(1L, queryLong(db, "SELECT resolution FROM currency_rate_history " +
+                "WHERE code = 'EUR' AND timestamp = 2000"));
+
+        db.close();
+    }
+
+    @Test
+    public void queriesUseIndexes() throws Exception {
+        helper.createDatabase(TEST_DB, 1).close();
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true,
+                DatabaseMigrations.ALL);
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = LocalDate.of(2024, 1, 15);
+        Date dayStart = new Date(day.atStartOfDay(zone).toInstant().toEpochMilli());
+        Date dayEnd = new Date(day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1);
+        Date noon = new Date(dayStart.getTime() + 12 * 60 * 60 * 1000L);
+
+        // Список
+        assertUsesIndex(explain(db, new ExpenseFilterQuery(1, dayStart, dayEnd, null,
+                ExpenseFilterQuery.SORT_DATE_DESC).toSelectQuery()), "index_expenses_category_date");
+        assertUsesIndex(explain(db, new ExpenseFilterQuery(null, dayStart, dayEnd, null,
+                ExpenseFilterQuery.SORT_DATE_DESC).toSelectQuery()), "index_expenses_date_costs");
+        assertUsesIndex(explain(db, new ExpenseFilterQuery(null, null, null, null,
+                ExpenseFilterQuery.SORT_AMOUNT_DESC).toSelectQuery()), "index_expenses_amount");
+
+        // Итоги по целым дням берутся из агрегатов, по части дня - из покрывающего индекса
+        assertUsesIndex(explain(db, new ExpenseFilterQuery(null, dayStart, dayEnd, null,
+                ExpenseFilterQuery.SORT_DATE_DESC).toTotalsQuery()), "sqlite_autoindex_expense_daily_totals_1");
+        assertUsesIndex(explain(db, new ExpenseFilterQuery(null, noon, dayEnd, null,
+                ExpenseFilterQuery.SORT_DATE_DESC).toTotalsQuery()), "index_expenses_date_costs");
+
+        // Структура затрат (с фильтром доходных категорий) читает только покрывающий индекс
+        String costPlan = explain(db, new SimpleSQLiteQuery(ExpenseDao.COST_STRUCTURE_QUERY,
+                new Object[]{dayStart.getTime(), dayEnd.getTime()}));
+        assertTrue(costPlan, costPlan.contains("USING COVERING INDEX index_expenses_date_costs"));
+
+        // Поиск: совпадения из FTS, строки расходов по первичному ключу без сканирования таблицы
+        for (SupportSQLiteQuery query : new SupportSQLiteQuery[]{
+                new ExpenseFilterQuery(null, null, null, "кирпич", ExpenseFilterQuery.SORT_DATE_DESC).toSelectQuery(),
+                new ExpenseFilterQuery(null, null, null, "кирпич", ExpenseFilterQuery.SORT_DATE_DESC).toTotalsQuery()}) {
+            String plan = explain(db, query);
+            assertTrue(plan, plan.contains("expenses_fts VIRTUAL TABLE INDEX"));
+            assertTrue(plan, plan.contains("USING INTEGER PRIMARY KEY"));
+            assertFalse(plan, plan.matches("(?s).*SCAN (TABLE )?expenses(\\s.*|$)"));
+        }
+
+        db.close();
+    }
+
+    /**
+     * Проверяет, что план использует один из индексов
+     */
+    private static void assertUsesIndex(String plan, String... indexes) {
+        for (String index : indexes) {
+            if (plan.contains("USING INDEX " + index) || plan.contains("USING COVERING INDEX " + index)) {
+                return;
+            }
+        }
+        fail(plan);
+    }
+
+    /**
+     * План запроса (колонки detail EXPLAIN QUERY PLAN), по строке на шаг
+     */
+    private static String explain(SupportSQLiteDatabase db, SupportSQLiteQuery query) {
+        SupportSQLiteQuery explain = new SupportSQLiteQuery() {
+            @Override
+            public String getSql() {
+                return "EXPLAIN QUERY PLAN " + query.getSql();
+            }
+
+            @Override
+            public void bindTo(SupportSQLiteProgram statement) {
+                query.bindTo(statement);
+            }
+
+            @Override
+            public int getArgCount() {
+                return query.getArgCount();
+            }
+        };
+
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.query(explain)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static double queryDouble(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(sql, cursor.moveToFirst());
+            return cursor.getDouble(0);
+        }
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(sql, cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+}
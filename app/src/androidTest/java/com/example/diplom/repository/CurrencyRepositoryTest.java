@@ -0,0 +1,138 @@
+package com.example.diplom.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.diplom.api.ApiClient;
+import com.example.diplom.api.CurrencyApiService;
+import com.example.diplom.database.AppDatabase;
+import com.example.diplom.database.entities.Currency;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Проверка свежести снимка курсов: запрос к API уходит только для устаревшего снимка
+ * или по запросу пользователя.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CurrencyRepositoryTest {
+
+    private static final String BODY = "{\"data\": {\"USD\": 1.0, \"EUR\": 0.92, \"RUB\": 95.5}}";
+    // Время ожидания запроса, который не должен прийти
+    private static final long NO_REQUEST_WAIT_MS = 1000;
+    private static final long REQUEST_WAIT_MS = 5000;
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private AppDatabase database;
+    private SharedPreferences preferences;
+    private CurrencyRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        database.currencyDao().upsertAll(Arrays.asList(
+                currency("USD", 1.0),
+                currency("EUR", 0.91),
+                currency("RUB", 94.0)));
+
+        preferences = context.getSharedPreferences("currency_prefs_test", Context.MODE_PRIVATE);
+        preferences.edit().clear().commit();
+
+        CurrencyApiService apiService = ApiClient.createCurrencyClient(server.url("/").toString(), cacheDir.getRoot())
+                .create(CurrencyApiService.class);
+        repository = new CurrencyRepository(context, database, apiService, preferences);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+        database.close();
+    }
+
+    private static Currency currency(String code, double rate) {
+        Currency currency = new Currency();
+        currency.setCode(code);
+        currency.setName(code);
+        currency.setBaseCurrency(CurrencyRepository.PIVOT_CURRENCY);
+        currency.setRate(rate);
+        currency.setUpdatedAt(new Date());
+        return currency;
+    }
+
+    private void markSynced(long time) {
+        preferences.edit().putLong(CurrencyRepository.PREF_CURRENCY_LAST_UPDATE, time).commit();
+    }
+
+    private void onMainThread(Runnable action) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(action);
+    }
+
+    @Test
+    public void freshSnapshotDoesNotRequestApi() throws Exception {
+        markSynced(System.currentTimeMillis());
+
+        onMainThread(repository::refreshCurrencyRates);
+        onMainThread(repository::refreshCurrencyRates);
+
+        assertNull(server.takeRequest(NO_REQUEST_WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void forcedRefreshRequestsApiOnce() throws Exception {
+        markSynced(System.currentTimeMillis());
+
+        onMainThread(repository::forceRefreshCurrencyRates);
+
+        RecordedRequest request = server.takeRequest(REQUEST_WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(request);
+        assertTrue(request.getPath(), request.getPath().contains("base_currency=" + CurrencyRepository.PIVOT_CURRENCY));
+        assertNull(server.takeRequest(NO_REQUEST_WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void staleSnapshotRequestsApiOnce() throws Exception {
+        markSynced(System.currentTimeMillis() - CurrencyRepository.CURRENCY_CACHE_EXPIRATION - 1);
+
+        // Второй вызов во время запроса присоединяется к нему
+        onMainThread(() -> {
+            repository.refreshCurrencyRates();
+            repository.refreshCurrencyRates();
+        });
+
+        assertNotNull(server.takeRequest(REQUEST_WAIT_MS, TimeUnit.MILLISECONDS));
+        assertNull(server.takeRequest(NO_REQUEST_WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+}
@@ -4,6 +4,7 @@ import android.app.Application;
 import android.content.Context;
 import android.content.res.Configuration;
 
+import com.example.diplom.database.DailyTotalsZoneGuard;
 import com.example.diplom.utils.PreferenceUtils;
 import com.google.android.material.color.DynamicColors;
 
@@ -21,6 +22,9 @@ public class DiplomApplication extends Application {
 
         // Применение динамических цветов, если включено
         applyDynamicColors();
+
+        // Пересчет дневных агрегатов, если часовой пояс сменился, пока приложение не работало
+        DailyTotalsZoneGuard.check(this, null);
     }
 
     /**
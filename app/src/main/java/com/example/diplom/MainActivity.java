@@ -8,6 +8,7 @@ import android.view.MenuItem;
 import androidx.activity.OnBackPressedCallback;
 import androidx.annotation.NonNull;
 
+import com.example.diplom.analytics.AnalyticsActivity;
 import com.example.diplom.currency.CurrencyActivity;
 import com.example.diplom.databinding.ActivityMainBinding;
 import com.example.diplom.expenses.ExpensesActivity;
@@ -71,6 +72,16 @@ public class MainActivity extends BaseLocaleActivity implements ExitDialogFragme
                 }
         ));
 
+        items.add(new MenuItemData(
+                R.drawable.ic_calculate,
+                R.string.view_analytics,
+                R.string.analytics_menu_description,
+                () -> {
+                    Intent intent = new Intent(MainActivity.this, AnalyticsActivity.class);
+                    startActivity(intent);
+                }
+        ));
+
         items.add(new MenuItemData(
                 R.drawable.ic_settings,
                 R.string.settings,
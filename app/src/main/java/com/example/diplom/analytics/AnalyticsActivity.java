@@ -0,0 +1,118 @@
+package com.example.diplom.analytics;
+
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.example.diplom.BaseLocaleActivity;
+import com.example.diplom.R;
+import com.example.diplom.analytics.adapters.AnalyticsPagerAdapter;
+import com.example.diplom.databinding.ActivityAnalyticsBinding;
+import com.example.diplom.utils.CurrencyFormatter;
+import com.example.diplom.utils.DateUtils;
+import com.google.android.material.tabs.TabLayoutMediator;
+
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Активность аналитики: баланс, доходы и расходы за месяц,
+ * расходы по категориям, структура затрат и динамика расходов по дням
+ */
+public class AnalyticsActivity extends BaseLocaleActivity {
+
+    private ActivityAnalyticsBinding binding;
+    private AnalyticsViewModel viewModel;
+    private AnalyticsPagerAdapter pagerAdapter;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        binding = ActivityAnalyticsBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+        setSupportActionBar(binding.toolbar);
+
+        // Настройка кнопки "Назад" в тулбаре
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            getSupportActionBar().setTitle(R.string.analytics);
+        }
+
+        // Инициализация ViewModel
+        viewModel = new ViewModelProvider(this).get(AnalyticsViewModel.class);
+
+        // Настройка вкладок
+        setupViewPager();
+
+        // Наблюдение за данными
+        observeData();
+    }
+
+    /**
+     * Настройка ViewPager2 и вкладок
+     */
+    private void setupViewPager() {
+        pagerAdapter = new AnalyticsPagerAdapter(this);
+        binding.viewPager.setAdapter(pagerAdapter);
+        new TabLayoutMediator(binding.tabLayout, binding.viewPager,
+                (tab, position) -> tab.setText(pagerAdapter.getPageTitle(position))).attach();
+    }
+
+    /**
+     * Наблюдение за данными из ViewModel
+     */
+    private void observeData() {
+        viewModel.getPeriod().observe(this, month -> {
+            if (getSupportActionBar() != null && month != null) {
+                Date date = Date.from(month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+                getSupportActionBar().setSubtitle(DateUtils.formatMonthYear(date));
+            }
+        });
+
+        viewModel.getReport().observe(this, report -> {
+            if (report == null) return;
+
+            CurrencyFormatter formatter = CurrencyFormatter.forLedger();
+            binding.balanceValue.setText(formatter.formatMinor(report.getBalance()));
+            binding.totalIncomeValue.setText(formatter.formatMinor(report.getTotalIncome()));
+            binding.totalExpensesValue.setText(formatter.formatMinor(report.getTotalExpenses()));
+            pagerAdapter.setReport(report);
+        });
+
+        viewModel.getCostStructure().observe(this, pagerAdapter::setCostStructure);
+        viewModel.getTrend().observe(this, pagerAdapter::setTrend);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_analytics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        int id = item.getItemId();
+
+        if (id == android.R.id.home) {
+            onBackPressed();
+            return true;
+        } else if (id == R.id.action_previous_month) {
+            viewModel.showPreviousMonth();
+            return true;
+        } else if (id == R.id.action_next_month) {
+            viewModel.showNextMonth();
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        binding = null;
+    }
+}
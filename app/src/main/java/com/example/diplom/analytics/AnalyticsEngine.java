@@ -0,0 +1,190 @@
+package com.example.diplom.analytics;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
+
+import com.example.diplom.database.AppDatabase;
+import com.example.diplom.database.DatabaseScheduler;
+import com.example.diplom.database.dao.ExpenseDao;
+import com.example.diplom.database.models.CategoryCostBreakdown;
+import com.example.diplom.database.models.CostStructure;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Движок аналитики расходов.
+ * Отчет за период считается одним сгруппированным запросом и кэшируется по периоду.
+ * Кэш сбрасывается по InvalidationTracker при любой записи в таблицы расходов и категорий,
+ * в том числе при удалении категории (category_id расходов -> NULL) и смене ее типа.
+ */
+public final class AnalyticsEngine {
+
+    // Сколько периодов держать в кэше
+    private static final int MAX_CACHED_PERIODS = 12;
+    // Таблицы, из которых строятся отчеты
+    private static final String[] OBSERVED_TABLES = {"expenses", "categories"};
+
+    private static volatile AnalyticsEngine INSTANCE;
+
+    private final ExpenseDao expenseDao;
+    private final DatabaseScheduler scheduler = DatabaseScheduler.getInstance();
+
+    // Кэш отчетов по периоду, вытесняются давно не использованные
+    private final Map<String, AnalyticsReport> cache =
+            new LinkedHashMap<String, AnalyticsReport>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AnalyticsReport> eldest) {
+                    return size() > MAX_CACHED_PERIODS;
+                }
+            };
+
+    // Общие LiveData структуры затрат по периоду: все наблюдатели периода
+    // делят один запрос и одну подписку на InvalidationTracker.
+    // При переполнении вытесняется давно не использованный период без наблюдателей;
+    // наблюдаемые периоды не вытесняются, поэтому кэш может временно превышать лимит
+    // на число одновременно открытых периодов
+    private final Map<String, LiveData<CostStructure>> costStructures =
+            new LinkedHashMap<String, LiveData<CostStructure>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LiveData<CostStructure>> eldest) {
+                    if (size() <= MAX_CACHED_PERIODS) {
+                        return false;
+                    }
+                    Iterator<LiveData<CostStructure>> iterator = values().iterator();
+                    while (iterator.hasNext()) {
+                        if (!iterator.next().hasObservers()) {
+                            iterator.remove();
+                            break;
+                        }
+                    }
+                    return false;
+                }
+            };
+
+    // Растет при каждой инвалидации, чтобы не класть в кэш отчет, посчитанный до изменения
+    private long generation;
+    private final MutableLiveData<Long> invalidations = new MutableLiveData<>(0L);
+
+    private AnalyticsEngine(Context context) {
+        AppDatabase database = AppDatabase.getDatabase(context);
+        expenseDao = database.expenseDao();
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(OBSERVED_TABLES) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidateAll();
+            }
+        });
+    }
+
+    public static AnalyticsEngine getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (AnalyticsEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AnalyticsEngine(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Загружает отчет за период: из кэша или одним запросом к базе
+     * @param startDate начало периода
+     * @param endDate конец периода
+     * @param callback получатель отчета (вызывается в фоновом потоке или сразу, если отчет в кэше)
+     */
+    public void loadReport(Date startDate, Date endDate, Consumer<AnalyticsReport> callback) {
+        String key = periodKey(startDate, endDate);
+        long requestGeneration;
+        synchronized (cache) {
+            AnalyticsReport cached = cache.get(key);
+            if (cached != null) {
+                callback.accept(cached);
+                return;
+            }
+            requestGeneration = generation;
+        }
+
+        scheduler.read("analytics_report", DatabaseScheduler.PRIORITY_UI, () -> {
+            List<CategoryCostBreakdown> rows = expenseDao.getCategoryCostBreakdownSync(startDate, endDate);
+            AnalyticsReport report = new AnalyticsReport(startDate, endDate, rows);
+            synchronized (cache) {
+                if (requestGeneration == generation) {
+                    cache.put(key, report);
+                }
+            }
+            callback.accept(report);
+        });
+    }
+
+    /**
+     * Загружает временной ряд расходов за период с группировкой по дням, неделям или месяцам.
+     * Границы интервалов берутся из правил локального часового пояса, поэтому дни
+     * на переходе на летнее время (23 и 25 часов) не сдвигают соседние интервалы.
+     * @param startDate начало периода
+     * @param endDate конец периода
+     * @param bucket размер интервала (TrendSeries.BUCKET_*)
+     * @param callback получатель ряда (вызывается в фоновом потоке)
+     */
+    public void loadTrend(Date startDate, Date endDate, int bucket, Consumer<TrendSeries> callback) {
+        scheduler.read("analytics_trend", DatabaseScheduler.PRIORITY_UI, () -> {
+            Cursor cursor = expenseDao.getTrendPointsCursor(startDate, endDate);
+            callback.accept(TrendSeries.fromCursor(cursor, bucket, startDate, endDate, ZoneId.systemDefault()));
+        });
+    }
+
+    /**
+     * Структура затрат за период, обновляемая при изменении таблицы расходов.
+     * Для одного периода всегда возвращается один и тот же экземпляр LiveData.
+     * @param startDate начало периода
+     * @param endDate конец периода
+     * @return LiveData со структурой затрат
+     */
+    public LiveData<CostStructure> getCostStructure(Date startDate, Date endDate) {
+        String key = periodKey(startDate, endDate);
+        synchronized (costStructures) {
+            LiveData<CostStructure> liveData = costStructures.get(key);
+            if (liveData == null) {
+                liveData = expenseDao.getCostStructureBetweenDates(startDate, endDate);
+                costStructures.put(key, liveData);
+            }
+            return liveData;
+        }
+    }
+
+    /**
+     * Сбрасывает весь кэш. Записи в таблицы расходов и категорий отслеживаются сами;
+     * вызывать явно нужно только при изменениях, которых InvalidationTracker не видит,
+     * например при смене часового пояса
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+        invalidations.postValue(System.currentTimeMillis());
+    }
+
+    /**
+     * Событие изменения данных: наблюдатели перезапрашивают свои отчеты
+     */
+    public LiveData<Long> getInvalidations() {
+        return invalidations;
+    }
+
+    private static String periodKey(Date startDate, Date endDate) {
+        return startDate.getTime() + "-" + endDate.getTime();
+    }
+}
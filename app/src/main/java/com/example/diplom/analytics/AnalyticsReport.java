@@ -0,0 +1,93 @@
+package com.example.diplom.analytics;
+
+import com.example.diplom.database.models.CategoryCostBreakdown;
+import com.example.diplom.utils.Money;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Неизменяемый отчет аналитики за период: баланс, доходы, расходы
+ * и разбивка расходов по категориям.
+ * Структура затрат по типам считается отдельно (AnalyticsEngine.getCostStructure).
+ * Строится из строк одного сгруппированного запроса без повторных обращений к базе.
+ */
+public final class AnalyticsReport {
+
+    private final Date startDate;
+    private final Date endDate;
+    private final List<CategoryCostBreakdown> expenseCategories;
+    private final List<CategoryCostBreakdown> incomeCategories;
+    // Суммы в копейках
+    private final long totalIncome;
+    private final long totalExpenses;
+    private final int expenseCount;
+
+    public AnalyticsReport(Date startDate, Date endDate, List<CategoryCostBreakdown> rows) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+
+        List<CategoryCostBreakdown> expenses = new ArrayList<>();
+        List<CategoryCostBreakdown> income = new ArrayList<>();
+        long incomeSum = 0;
+        long expenseSum = 0;
+        int count = 0;
+
+        // Строки уже отсортированы по сумме в SQL
+        for (CategoryCostBreakdown row : rows) {
+            if (row.isExpense()) {
+                expenses.add(row);
+                expenseSum = Money.add(expenseSum, row.getTotal());
+                count += row.getCount();
+            } else {
+                income.add(row);
+                incomeSum = Money.add(incomeSum, row.getTotal());
+            }
+        }
+
+        this.expenseCategories = Collections.unmodifiableList(expenses);
+        this.incomeCategories = Collections.unmodifiableList(income);
+        this.totalIncome = incomeSum;
+        this.totalExpenses = expenseSum;
+        this.expenseCount = count;
+    }
+
+    public boolean isEmpty() {
+        return expenseCategories.isEmpty() && incomeCategories.isEmpty();
+    }
+
+    // Геттеры
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public List<CategoryCostBreakdown> getExpenseCategories() {
+        return expenseCategories;
+    }
+
+    public List<CategoryCostBreakdown> getIncomeCategories() {
+        return incomeCategories;
+    }
+
+    public long getTotalIncome() {
+        return totalIncome;
+    }
+
+    public long getTotalExpenses() {
+        return totalExpenses;
+    }
+
+    public long getBalance() {
+        return Money.subtract(totalIncome, totalExpenses);
+    }
+
+    public int getExpenseCount() {
+        return expenseCount;
+    }
+}
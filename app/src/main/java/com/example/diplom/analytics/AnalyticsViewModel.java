@@ -0,0 +1,117 @@
+package com.example.diplom.analytics;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.diplom.database.models.CostStructure;
+
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * ViewModel экрана аналитики. Показывает отчет за выбранный месяц
+ * и перезапрашивает его, когда движок аналитики сообщает об изменении расходов.
+ * Структура затрат месяца берется из общей LiveData движка и обновляется Room сама.
+ * Вместе с отчетом загружается ряд расходов месяца по дням для графика.
+ */
+public class AnalyticsViewModel extends AndroidViewModel {
+
+    private final AnalyticsEngine engine;
+    private final MutableLiveData<YearMonth> period = new MutableLiveData<>(YearMonth.now());
+    private final MediatorLiveData<AnalyticsReport> report = new MediatorLiveData<>();
+    private final MutableLiveData<TrendSeries> trend = new MutableLiveData<>();
+    private final MediatorLiveData<CostStructure> costStructure = new MediatorLiveData<>();
+    private LiveData<CostStructure> costStructureSource;
+
+    // Месяц последнего запроса: ответы для других месяцев отбрасываются
+    private volatile YearMonth requestedMonth;
+
+    public AnalyticsViewModel(@NonNull Application application) {
+        super(application);
+        engine = AnalyticsEngine.getInstance(application);
+
+        report.addSource(period, month -> loadReport());
+        report.addSource(engine.getInvalidations(), version -> loadReport());
+        costStructure.addSource(period, this::switchCostStructure);
+    }
+
+    private void loadReport() {
+        YearMonth month = period.getValue();
+        if (month == null) return;
+        requestedMonth = month;
+
+        Date start = startOf(month);
+        Date end = endOf(month);
+        engine.loadReport(start, end, result -> {
+            if (month.equals(requestedMonth)) {
+                report.postValue(result);
+            }
+        });
+        engine.loadTrend(start, end, TrendSeries.BUCKET_DAY, series -> {
+            if (month.equals(requestedMonth)) {
+                trend.postValue(series);
+            }
+        });
+    }
+
+    /**
+     * Переключает структуру затрат на LiveData движка для нового месяца
+     */
+    private void switchCostStructure(YearMonth month) {
+        if (costStructureSource != null) {
+            costStructure.removeSource(costStructureSource);
+        }
+        costStructureSource = month != null ? engine.getCostStructure(startOf(month), endOf(month)) : null;
+        if (costStructureSource != null) {
+            costStructure.addSource(costStructureSource, costStructure::setValue);
+        }
+    }
+
+    private static Date startOf(YearMonth month) {
+        return Date.from(month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Date endOf(YearMonth month) {
+        return Date.from(month.atEndOfMonth().atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Переключает отчет на предыдущий месяц
+     */
+    public void showPreviousMonth() {
+        YearMonth month = period.getValue();
+        period.setValue(month != null ? month.minusMonths(1) : YearMonth.now());
+    }
+
+    /**
+     * Переключает отчет на следующий месяц
+     */
+    public void showNextMonth() {
+        YearMonth month = period.getValue();
+        period.setValue(month != null ? month.plusMonths(1) : YearMonth.now());
+    }
+
+    // Геттеры для LiveData
+    public LiveData<AnalyticsReport> getReport() {
+        return report;
+    }
+
+    public LiveData<TrendSeries> getTrend() {
+        return trend;
+    }
+
+    public LiveData<CostStructure> getCostStructure() {
+        return costStructure;
+    }
+
+    public LiveData<YearMonth> getPeriod() {
+        return period;
+    }
+}
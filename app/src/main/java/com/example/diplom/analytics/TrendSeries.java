@@ -0,0 +1,187 @@
+package com.example.diplom.analytics;
+
+import android.database.Cursor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Временной ряд расходов по интервалам (день, ISO-неделя, месяц).
+ * Хранится в плотных примитивных массивах: по индексу i - начало интервала,
+ * сумма и количество расходов. Интервалы без расходов присутствуют с нулями,
+ * поэтому массивы можно отдавать графику напрямую, используя индекс как координату X.
+ */
+public final class TrendSeries {
+
+    public static final int BUCKET_DAY = 0;
+    public static final int BUCKET_WEEK = 1;
+    public static final int BUCKET_MONTH = 2;
+
+    private final int bucket;
+    private final long[] bucketStart;
+    private final long[] sum;
+    private final int[] count;
+
+    private TrendSeries(int bucket, long[] bucketStart, long[] sum, int[] count) {
+        this.bucket = bucket;
+        this.bucketStart = bucketStart;
+        this.sum = sum;
+        this.count = count;
+    }
+
+    /**
+     * Собирает ряд из курсора ExpenseDao.getTrendPointsCursor (столбцы expense_date, amount,
+     * по возрастанию даты). Курсор закрывается.
+     * @param cursor даты и суммы расходов за период
+     * @param bucket размер интервала (BUCKET_*)
+     * @param startDate начало периода
+     * @param endDate конец периода
+     * @param zone часовой пояс, по правилам которого считаются границы интервалов
+     * @return ряд с интервалами от начала до конца периода
+     */
+    static TrendSeries fromCursor(Cursor cursor, int bucket, Date startDate, Date endDate, ZoneId zone) {
+        try {
+            Builder builder = new Builder(bucket, startDate, endDate, zone);
+            if (cursor != null) {
+                int dateColumn = cursor.getColumnIndexOrThrow("expense_date");
+                int amountColumn = cursor.getColumnIndexOrThrow("amount");
+                while (cursor.moveToNext()) {
+                    builder.add(cursor.getLong(dateColumn), cursor.getLong(amountColumn));
+                }
+            }
+            return builder.build();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Раскладывает расходы по интервалам. Начало каждого интервала - локальная полночь
+     * по правилам часового пояса, поэтому интервал может длиться 23 или 25 часов.
+     * Расходы добавляются по возрастанию даты, каждый попадает в интервал одним проходом.
+     */
+    static final class Builder {
+        private final int bucket;
+        // Начала интервалов и конец последнего (size + 1 значений)
+        private final long[] bounds;
+        private final long[] sum;
+        private final int[] count;
+        private int index;
+
+        Builder(int bucket, Date startDate, Date endDate, ZoneId zone) {
+            this.bucket = bucket;
+            LocalDate first = alignToBucket(startDate.toInstant().atZone(zone).toLocalDate(), bucket);
+            LocalDate last = alignToBucket(endDate.toInstant().atZone(zone).toLocalDate(), bucket);
+            int size = (int) Math.max(0, unitOf(bucket).between(first, last) + 1);
+
+            bounds = new long[size + 1];
+            sum = new long[size];
+            count = new int[size];
+
+            LocalDate date = first;
+            for (int i = 0; i <= size; i++) {
+                bounds[i] = date.atStartOfDay(zone).toInstant().toEpochMilli();
+                date = date.plus(1, unitOf(bucket));
+            }
+        }
+
+        /**
+         * Добавляет расход; даты должны идти по возрастанию
+         * @param time дата расхода (epoch millis)
+         * @param amount сумма в копейках
+         */
+        void add(long time, long amount) {
+            int size = sum.length;
+            if (size == 0 || time < bounds[0] || time >= bounds[size]) {
+                return;
+            }
+            while (bounds[index + 1] <= time) {
+                index++;
+            }
+            sum[index] += amount;
+            count[index]++;
+        }
+
+        TrendSeries build() {
+            return new TrendSeries(bucket, Arrays.copyOf(bounds, sum.length), sum, count);
+        }
+    }
+
+    private static LocalDate alignToBucket(LocalDate date, int bucket) {
+        switch (bucket) {
+            case BUCKET_WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case BUCKET_MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    private static ChronoUnit unitOf(int bucket) {
+        switch (bucket) {
+            case BUCKET_WEEK:
+                return ChronoUnit.WEEKS;
+            case BUCKET_MONTH:
+                return ChronoUnit.MONTHS;
+            default:
+                return ChronoUnit.DAYS;
+        }
+    }
+
+    public int size() {
+        return bucketStart.length;
+    }
+
+    public boolean isEmpty() {
+        for (int value : count) {
+            if (value > 0) return false;
+        }
+        return true;
+    }
+
+    // Геттеры
+    public int getBucket() {
+        return bucket;
+    }
+
+    public long getBucketStart(int index) {
+        return bucketStart[index];
+    }
+
+    public long getSum(int index) {
+        return sum[index];
+    }
+
+    public int getCount(int index) {
+        return count[index];
+    }
+
+    /**
+     * Массив начал интервалов (epoch millis). Возвращается без копирования - не изменять.
+     */
+    public long[] getBucketStarts() {
+        return bucketStart;
+    }
+
+    /**
+     * Массив сумм по интервалам (в копейках). Возвращается без копирования - не изменять.
+     */
+    public long[] getSums() {
+        return sum;
+    }
+
+    /**
+     * Массив количества расходов по интервалам. Возвращается без копирования - не изменять.
+     */
+    public int[] getCounts() {
+        return count;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.diplom.analytics.adapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.diplom.R;
+import com.example.diplom.analytics.AnalyticsReport;
+import com.example.diplom.analytics.TrendSeries;
+import com.example.diplom.database.models.CategoryCostBreakdown;
+import com.example.diplom.database.models.CostStructure;
+import com.example.diplom.utils.CurrencyFormatter;
+import com.example.diplom.utils.Money;
+import com.github.mikephil.charting.charts.BarChart;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.data.BarData;
+import com.github.mikephil.charting.data.BarDataSet;
+import com.github.mikephil.charting.data.BarEntry;
+import com.github.mikephil.charting.formatter.ValueFormatter;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Адаптер страниц ViewPager2 экрана аналитики:
+ * расходы по категориям, структура затрат по типам и график расходов по дням.
+ */
+public class AnalyticsPagerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    public static final int PAGE_CATEGORIES = 0;
+    public static final int PAGE_COST_TYPES = 1;
+    public static final int PAGE_TREND = 2;
+    private static final int PAGE_COUNT = 3;
+
+    // Типы страниц: список строк или график
+    private static final int VIEW_TYPE_ROWS = 0;
+    private static final int VIEW_TYPE_CHART = 1;
+
+    private static final int[] COST_TYPE_TITLES = {
+            R.string.is_material_cost,
+            R.string.is_labor_cost,
+            R.string.is_capital_cost,
+            R.string.is_energy_cost,
+            R.string.is_other_cost
+    };
+
+    private final Context context;
+    private final CurrencyFormatter formatter = CurrencyFormatter.forLedger();
+    private AnalyticsReport report;
+    private CostStructure costStructure;
+    private TrendSeries trend;
+
+    public AnalyticsPagerAdapter(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Обновляет данные всех страниц
+     * @param report отчет за период
+     */
+    public void setReport(AnalyticsReport report) {
+        this.report = report;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Обновляет страницу структуры затрат
+     * @param costStructure структура затрат за период
+     */
+    public void setCostStructure(CostStructure costStructure) {
+        this.costStructure = costStructure;
+        notifyItemChanged(PAGE_COST_TYPES);
+    }
+
+    /**
+     * Обновляет график расходов по дням
+     * @param trend ряд расходов за период
+     */
+    public void setTrend(TrendSeries trend) {
+        this.trend = trend;
+        notifyItemChanged(PAGE_TREND);
+    }
+
+    /**
+     * Заголовок вкладки страницы
+     * @param position номер страницы
+     */
+    public String getPageTitle(int position) {
+        switch (position) {
+            case PAGE_CATEGORIES:
+                return context.getString(R.string.expenses_by_category);
+            case PAGE_COST_TYPES:
+                return context.getString(R.string.cost_structure);
+            default:
+                return context.getString(R.string.expense_trend);
+        }
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return position == PAGE_TREND ? VIEW_TYPE_CHART : VIEW_TYPE_ROWS;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        ViewGroup.LayoutParams layoutParams = new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+        if (viewType == VIEW_TYPE_CHART) {
+            BarChart chart = new BarChart(parent.getContext());
+            chart.setLayoutParams(layoutParams);
+            return new ChartViewHolder(chart);
+        }
+        RecyclerView recyclerView = new RecyclerView(parent.getContext());
+        recyclerView.setLayoutParams(layoutParams);
+        recyclerView.setLayoutManager(new LinearLayoutManager(parent.getContext()));
+        return new PageViewHolder(recyclerView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof ChartViewHolder) {
+            ((ChartViewHolder) holder).bind(trend);
+        } else {
+            ((PageViewHolder) holder).rowsAdapter.setRows(
+                    position == PAGE_CATEGORIES ? buildCategoryRows() : buildCostTypeRows());
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return PAGE_COUNT;
+    }
+
+    private List<Row> buildCategoryRows() {
+        List<Row> rows = new ArrayList<>();
+        if (report == null || report.getExpenseCategories().isEmpty()) {
+            rows.add(new Row(context.getString(R.string.no_analytics_data), ""));
+            return rows;
+        }
+        long total = report.getTotalExpenses();
+        for (CategoryCostBreakdown category : report.getExpenseCategories()) {
+            String name = category.getCategoryName() != null
+                    ? category.getCategoryName()
+                    : context.getString(R.string.no_category);
+            rows.add(new Row(name, formatShare(category.getTotal(), total)));
+        }
+        return rows;
+    }
+
+    private List<Row> buildCostTypeRows() {
+        List<Row> rows = new ArrayList<>();
+        if (costStructure == null || costStructure.getCount() == 0) {
+            rows.add(new Row(context.getString(R.string.no_analytics_data), ""));
+            return rows;
+        }
+        long total = costStructure.getTotal();
+        long[] costTotals = {
+                costStructure.getMaterial(),
+                costStructure.getLabor(),
+                costStructure.getCapital(),
+                costStructure.getEnergy(),
+                costStructure.getOther()
+        };
+        for (int i = 0; i < COST_TYPE_TITLES.length; i++) {
+            rows.add(new Row(context.getString(COST_TYPE_TITLES[i]), formatShare(costTotals[i], total)));
+        }
+        return rows;
+    }
+
+    private String formatShare(long amount, long total) {
+        return formatter.formatMinor(amount) + " (" + Money.percentOf(amount, total) + "%)";
+    }
+
+    /**
+     * Строка страницы: название и сумма
+     */
+    static final class Row {
+        final String title;
+        final String value;
+
+        Row(String title, String value) {
+            this.title = title;
+            this.value = value;
+        }
+    }
+
+    static class PageViewHolder extends RecyclerView.ViewHolder {
+        final RowsAdapter rowsAdapter = new RowsAdapter();
+
+        PageViewHolder(@NonNull RecyclerView recyclerView) {
+            super(recyclerView);
+            recyclerView.setAdapter(rowsAdapter);
+        }
+    }
+
+    /**
+     * Страница графика: столбец на каждый день периода, по оси X - индекс дня в ряду
+     */
+    static class ChartViewHolder extends RecyclerView.ViewHolder {
+        final BarChart chart;
+        private TrendSeries trend;
+
+        ChartViewHolder(@NonNull BarChart chart) {
+            super(chart);
+            this.chart = chart;
+            Context context = chart.getContext();
+            chart.getDescription().setEnabled(false);
+            chart.getLegend().setEnabled(false);
+            chart.getAxisRight().setEnabled(false);
+            chart.getAxisLeft().setAxisMinimum(0f);
+            chart.setNoDataText(context.getString(R.string.no_analytics_data));
+            XAxis xAxis = chart.getXAxis();
+            xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+            xAxis.setDrawGridLines(false);
+            xAxis.setGranularity(1f);
+            xAxis.setValueFormatter(new ValueFormatter() {
+                @Override
+                public String getFormattedValue(float value) {
+                    int index = Math.round(value);
+                    if (trend == null || index < 0 || index >= trend.size()) {
+                        return "";
+                    }
+                    // Номер дня месяца начала интервала
+                    return String.valueOf(Instant.ofEpochMilli(trend.getBucketStart(index))
+                            .atZone(ZoneId.systemDefault()).getDayOfMonth());
+                }
+            });
+        }
+
+        void bind(TrendSeries trend) {
+            this.trend = trend;
+            if (trend == null || trend.isEmpty()) {
+                chart.clear();
+                return;
+            }
+
+            long[] sums = trend.getSums();
+            List<BarEntry> entries = new ArrayList<>(sums.length);
+            for (int i = 0; i < sums.length; i++) {
+                entries.add(new BarEntry(i, (float) Money.toMajor(sums[i])));
+            }
+
+            BarDataSet dataSet = new BarDataSet(entries, "");
+            dataSet.setColor(ContextCompat.getColor(chart.getContext(), R.color.negative_amount));
+            dataSet.setDrawValues(false);
+            chart.setData(new BarData(dataSet));
+            chart.invalidate();
+        }
+    }
+
+    static class RowsAdapter extends RecyclerView.Adapter<RowsAdapter.RowViewHolder> {
+        private List<Row> rows = new ArrayList<>();
+
+        void setRows(List<Row> rows) {
+            this.rows = rows;
+            notifyDataSetChanged();
+        }
+
+        @NonNull
+        @Override
+        public RowViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(android.R.layout.simple_list_item_2, parent, false);
+            return new RowViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RowViewHolder holder, int position) {
+            Row row = rows.get(position);
+            holder.title.setText(row.title);
+            holder.value.setText(row.value);
+        }
+
+        @Override
+        public int getItemCount() {
+            return rows.size();
+        }
+
+        static class RowViewHolder extends RecyclerView.ViewHolder {
+            final TextView title;
+            final TextView value;
+
+            RowViewHolder(@NonNull View itemView) {
+                super(itemView);
+                title = itemView.findViewById(android.R.id.text1);
+                value = itemView.findViewById(android.R.id.text2);
+            }
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.example.diplom.api;
 
+import android.content.Context;
+
+import com.example.diplom.BuildConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.Cache;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -15,39 +25,95 @@ public class ApiClient {
     public static final String SUPPORTED_CURRENCIES = "EUR,USD,JPY,CNY,CZK,INR,HUF,PLN,RON,TRY,CAD,ILS,KRW,SGD,BGN,DKK,GBP,SEK,CHF,ISK,NOK,HRK,RUB,AUD,BRL,HKD,IDR,MXN,MYR,NZD,PHP,THB,ZAR";
     public static final String API_KEY = "fca_live_BPwqxb36ONW52WvZNI7bTVIEIiQTBrPcFcI8aBow";
 
+    // Дисковый HTTP-кэш ответов API
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 5L * 1024 * 1024; // 5 MB
+    // Время, в течение которого ответ без собственных заголовков кэширования считается свежим
+    private static final int DEFAULT_MAX_AGE_SECONDS = 60;
+
     private static Retrofit currencyRetrofit = null;
 
     /**
      * Получение экземпляра Retrofit клиента для валют.
      *
+     * @param context контекст для размещения дискового кэша
      * @return настроенный Retrofit клиент для валют
      */
-    public static Retrofit getCurrencyClient() {
+    public static synchronized Retrofit getCurrencyClient(Context context) {
         if (currencyRetrofit == null) {
-            OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIR);
+            currencyRetrofit = createCurrencyClient(CURRENCY_BASE_URL, cacheDir);
+        }
+        return currencyRetrofit;
+    }
+
+    /**
+     * Создание Retrofit клиента для валют с дисковым HTTP-кэшем.
+     *
+     * @param baseUrl базовый URL API
+     * @param cacheDir каталог дискового кэша
+     * @return настроенный Retrofit клиент для валют
+     */
+    public static Retrofit createCurrencyClient(String baseUrl, File cacheDir) {
+        OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
 
-            httpClient.callTimeout(10, TimeUnit.SECONDS);
+        httpClient.callTimeout(10, TimeUnit.SECONDS);
 
-            // Добавляем логирование HTTP запросов
+        // Кэш на диске: повторные запросы в пределах max-age не уходят в сеть,
+        // а при наличии ETag/Last-Modified OkHttp сам отправляет условный запрос
+        httpClient.cache(new Cache(cacheDir, HTTP_CACHE_SIZE));
+        httpClient.addNetworkInterceptor(ApiClient::applyDefaultCacheControl);
+
+        // Логирование HTTP запросов только в отладочной сборке:
+        // уровень BODY буферизует и выводит в лог каждый ответ целиком
+        if (BuildConfig.DEBUG) {
             HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
             logging.setLevel(HttpLoggingInterceptor.Level.BODY);
             httpClient.addInterceptor(logging);
-
-            currencyRetrofit = new Retrofit.Builder()
-                    .baseUrl(CURRENCY_BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(httpClient.build())
-                    .build();
         }
-        return currencyRetrofit;
+
+        return new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .addConverterFactory(CurrencyRateConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .client(httpClient.build())
+                .build();
     }
 
     /**
      * Получение экземпляра API сервиса для валют.
      *
+     * @param context контекст для размещения дискового кэша
      * @return настроенный API сервис для валют
      */
-    public static CurrencyApiService getCurrencyApiService() {
-        return getCurrencyClient().create(CurrencyApiService.class);
+    public static CurrencyApiService getCurrencyApiService(Context context) {
+        return getCurrencyClient(context).create(CurrencyApiService.class);
+    }
+
+    /**
+     * Проверяет, что данные ответа не изменились с прошлого запроса:
+     * ответ взят из HTTP-кэша без обращения к сети или сервер ответил 304 Not Modified.
+     *
+     * @param response успешный ответ Retrofit
+     * @return true, если сохранённые ранее данные актуальны
+     */
+    public static boolean isNotModified(retrofit2.Response<?> response) {
+        Response networkResponse = response.raw().networkResponse();
+        return networkResponse == null || networkResponse.code() == HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    /**
+     * Разрешает кэширование успешных ответов, для которых сервер не указал Cache-Control.
+     * Заголовки сервера, если они есть, не меняются.
+     */
+    private static Response applyDefaultCacheControl(Interceptor.Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        if (response.isSuccessful() && response.header("Cache-Control") == null) {
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", "public, max-age=" + DEFAULT_MAX_AGE_SECONDS)
+                    .build();
+        }
+        return response;
     }
 }
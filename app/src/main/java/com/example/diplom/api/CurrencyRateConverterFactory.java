@@ -0,0 +1,70 @@
+package com.example.diplom.api;
+
+import com.example.diplom.api.models.CurrencyRate;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Конвертер Retrofit для ответов с курсами валют.
+ * Читает объект "data" потоково через JsonReader и сразу складывает курсы
+ * в примитивные массивы CurrencyRate, не строя промежуточное дерево JSON.
+ * Для остальных типов возвращает null, и Retrofit использует следующий конвертер.
+ */
+public final class CurrencyRateConverterFactory extends Converter.Factory {
+
+    private static final String DATA_FIELD = "data";
+
+    public static CurrencyRateConverterFactory create() {
+        return new CurrencyRateConverterFactory();
+    }
+
+    private CurrencyRateConverterFactory() {
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type == CurrencyRate.class) {
+            return CurrencyRateConverterFactory::parse;
+        }
+        return null;
+    }
+
+    private static CurrencyRate parse(ResponseBody body) throws IOException {
+        CurrencyRate currencyRate = new CurrencyRate();
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (DATA_FIELD.equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    readRates(reader, currencyRate);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return currencyRate;
+    }
+
+    private static void readRates(JsonReader reader, CurrencyRate currencyRate) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String code = reader.nextName();
+            JsonToken token = reader.peek();
+            // Числа в кавычках JsonReader тоже читает как double
+            if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+                currencyRate.addRate(code, reader.nextDouble());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
@@ -1,27 +1,52 @@
 package com.example.diplom.api.models;
 
-import com.google.gson.annotations.SerializedName;
-
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Модель данных для курса валюты.
+ * Курсы из объекта "data" ответа API хранятся в параллельных массивах
+ * кодов и значений, без упаковки в Map&lt;String, Double&gt;.
  */
 public class CurrencyRate {
-    @SerializedName("data")
-    private Map<String, Double> rates;
+    private static final int INITIAL_CAPACITY = 40;
+
+    private String[] codes = new String[INITIAL_CAPACITY];
+    private double[] rates = new double[INITIAL_CAPACITY];
+    private int size;
 
     private String baseCurrency;
 
-    // Геттеры и сеттеры
-    public Map<String, Double> getRates() {
-        return rates;
+    /**
+     * Добавляет курс валюты
+     * @param code код валюты
+     * @param rate курс относительно базовой валюты
+     */
+    public void addRate(String code, double rate) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+            rates = Arrays.copyOf(rates, size * 2);
+        }
+        codes[size] = code;
+        rates[size] = rate;
+        size++;
+    }
+
+    /**
+     * Количество курсов в ответе
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getCode(int index) {
+        return codes[index];
     }
 
-    public void setRates(Map<String, Double> rates) {
-        this.rates = rates;
+    public double getRate(int index) {
+        return rates[index];
     }
 
+    // Геттеры и сеттеры
     public String getBaseCurrency() {
         return baseCurrency;
     }
@@ -0,0 +1,172 @@
+package com.example.diplom.currency;
+
+import com.example.diplom.database.entities.Currency;
+import com.example.diplom.utils.Money;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемая матрица кросс-курсов, построенная из одного снимка курсов
+ * относительно опорной валюты. Курс любой пары валют берется из массива
+ * по порядковым номерам валют, без обращения к базе данных и сети.
+ */
+public final class CrossRateMatrix {
+
+    // Наибольший курс, который помещается в long с фиксированной точкой
+    private static final double MAX_SCALED_RATE = Long.MAX_VALUE / (double) Money.RATE_SCALE;
+
+    private final String pivotCode;
+    private final String[] codes;
+    private final Map<String, Integer> ordinals;
+    private final int size;
+
+    // rates[from * size + to] - сколько единиц to дают за одну единицу from
+    private final double[] rates;
+    // То же для предыдущих курсов, чтобы считать изменение относительно любой базы
+    private final double[] previousRates;
+    // Курсы с фиксированной точкой (Money.RATE_SCALE) для точной конвертации сумм в копейках;
+    // считаются один раз на снимок, 0 - курс не помещается в long
+    private final long[] scaledRates;
+
+    private CrossRateMatrix(String pivotCode, String[] codes, double[] pivotRates, double[] previousPivotRates) {
+        this.pivotCode = pivotCode;
+        this.codes = codes;
+        this.size = codes.length;
+        this.ordinals = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ordinals.put(codes[i], i);
+        }
+        this.rates = buildMatrix(pivotRates, size);
+        this.previousRates = buildMatrix(previousPivotRates, size);
+        this.scaledRates = new long[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            scaledRates[i] = rates[i] < MAX_SCALED_RATE ? Money.rateOf(rates[i]) : 0;
+        }
+    }
+
+    /**
+     * Строит матрицу из курсов, сохраненных относительно одной базовой валюты
+     * @param pivotCurrencies курсы с одинаковой базовой валютой
+     * @return матрица кросс-курсов или null, если курсов нет
+     */
+    public static CrossRateMatrix fromCurrencies(List<Currency> pivotCurrencies) {
+        if (pivotCurrencies == null || pivotCurrencies.isEmpty()) {
+            return null;
+        }
+
+        String pivot = pivotCurrencies.get(0).getBaseCurrency();
+        String[] codes = new String[pivotCurrencies.size()];
+        double[] pivotRates = new double[codes.length];
+        double[] previousPivotRates = new double[codes.length];
+        int count = 0;
+
+        for (Currency currency : pivotCurrencies) {
+            // Нулевой курс не дает построить кросс-курс
+            if (currency.getCode() == null || currency.getRate() <= 0) continue;
+
+            double previous = currency.getRate() - currency.getChange();
+            codes[count] = currency.getCode();
+            pivotRates[count] = currency.getRate();
+            previousPivotRates[count] = previous > 0 ? previous : currency.getRate();
+            count++;
+        }
+
+        if (count == 0) {
+            return null;
+        }
+        if (count < codes.length) {
+            String[] trimmedCodes = new String[count];
+            double[] trimmedRates = new double[count];
+            double[] trimmedPrevious = new double[count];
+            System.arraycopy(codes, 0, trimmedCodes, 0, count);
+            System.arraycopy(pivotRates, 0, trimmedRates, 0, count);
+            System.arraycopy(previousPivotRates, 0, trimmedPrevious, 0, count);
+            codes = trimmedCodes;
+            pivotRates = trimmedRates;
+            previousPivotRates = trimmedPrevious;
+        }
+        return new CrossRateMatrix(pivot, codes, pivotRates, previousPivotRates);
+    }
+
+    private static double[] buildMatrix(double[] pivotRates, int size) {
+        double[] matrix = new double[size * size];
+        for (int from = 0; from < size; from++) {
+            double fromRate = pivotRates[from];
+            int row = from * size;
+            for (int to = 0; to < size; to++) {
+                matrix[row + to] = pivotRates[to] / fromRate;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Порядковый номер валюты в матрице
+     * @param code код валюты
+     * @return номер или -1, если валюты нет
+     */
+    public int ordinalOf(String code) {
+        Integer ordinal = code != null ? ordinals.get(code) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Курс: сколько единиц валюты to дают за одну единицу валюты from
+     */
+    public double rate(int from, int to) {
+        return rates[from * size + to];
+    }
+
+    /**
+     * Предыдущий курс пары, до последнего изменения
+     */
+    public double previousRate(int from, int to) {
+        return previousRates[from * size + to];
+    }
+
+    /**
+     * Курс пары с фиксированной точкой
+     * @return курс, умноженный на Money.RATE_SCALE, или 0, если курс не помещается в long
+     */
+    public long scaledRate(int from, int to) {
+        return scaledRates[from * size + to];
+    }
+
+    /**
+     * Конвертирует сумму между валютами по порядковым номерам
+     */
+    public double convert(double amount, int from, int to) {
+        return amount * rates[from * size + to];
+    }
+
+    /**
+     * Конвертирует сумму между валютами по кодам
+     * @return конвертированная сумма или NaN, если одной из валют нет в матрице
+     */
+    public double convert(double amount, String fromCode, String toCode) {
+        int from = ordinalOf(fromCode);
+        int to = ordinalOf(toCode);
+        if (from < 0 || to < 0) {
+            return Double.NaN;
+        }
+        return convert(amount, from, to);
+    }
+
+    public boolean contains(String code) {
+        return ordinalOf(code) >= 0;
+    }
+
+    public String codeAt(int ordinal) {
+        return codes[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getPivotCode() {
+        return pivotCode;
+    }
+}
@@ -79,7 +79,7 @@ public class CurrencyActivity extends BaseLocaleActivity implements
      */
     private void setupSwipeRefresh() {
         binding.swipeRefreshLayout.setOnRefreshListener(() -> {
-            viewModel.refreshCurrencyRates();
+            viewModel.forceRefreshCurrencyRates();
         });
 
         // Настройка цветов индикатора обновления
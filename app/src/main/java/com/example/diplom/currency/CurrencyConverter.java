@@ -0,0 +1,86 @@
+package com.example.diplom.currency;
+
+/**
+ * Конвертер валют на основе последнего снимка курсов в памяти.
+ * Снимок обновляет репозиторий при каждой загрузке курсов, конвертация
+ * выполняется синхронно, без обращения к базе данных и без выделения памяти.
+ */
+public final class CurrencyConverter {
+
+    private static final CurrencyConverter INSTANCE = new CurrencyConverter();
+
+    private volatile CrossRateMatrix matrix;
+
+    private CurrencyConverter() {
+    }
+
+    public static CurrencyConverter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Заменяет снимок курсов
+     * @param matrix новая матрица кросс-курсов
+     */
+    public void update(CrossRateMatrix matrix) {
+        if (matrix != null) {
+            this.matrix = matrix;
+        }
+    }
+
+    /**
+     * Проверяет, загружены ли курсы
+     */
+    public boolean isReady() {
+        return matrix != null;
+    }
+
+    /**
+     * Конвертирует сумму из одной валюты в другую
+     * @param amount сумма для конвертации
+     * @param fromCode код исходной валюты
+     * @param toCode код целевой валюты
+     * @return конвертированная сумма или NaN, если курсы не загружены или валюта неизвестна
+     */
+    public double convert(double amount, String fromCode, String toCode) {
+        CrossRateMatrix current = matrix;
+        if (current == null) {
+            return Double.NaN;
+        }
+        return current.convert(amount, fromCode, toCode);
+    }
+
+    /**
+     * Курс пары валют
+     * @param fromCode код исходной валюты
+     * @param toCode код целевой валюты
+     * @return сколько единиц toCode дают за единицу fromCode или NaN, если курс неизвестен
+     */
+    public double rate(String fromCode, String toCode) {
+        return convert(1.0, fromCode, toCode);
+    }
+
+    /**
+     * Курс пары валют с фиксированной точкой для Money.convert(long, long)
+     * @param fromCode код исходной валюты
+     * @param toCode код целевой валюты
+     * @return курс, умноженный на Money.RATE_SCALE, или 0, если курс неизвестен
+     */
+    public long scaledRate(String fromCode, String toCode) {
+        CrossRateMatrix current = matrix;
+        if (current == null) {
+            return 0;
+        }
+        int from = current.ordinalOf(fromCode);
+        int to = current.ordinalOf(toCode);
+        return from < 0 || to < 0 ? 0 : current.scaledRate(from, to);
+    }
+
+    /**
+     * Текущая матрица кросс-курсов
+     * @return матрица или null, если курсы еще не загружены
+     */
+    public CrossRateMatrix getMatrix() {
+        return matrix;
+    }
+}
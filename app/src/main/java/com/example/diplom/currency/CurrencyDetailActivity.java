@@ -2,7 +2,6 @@ package com.example.diplom.currency;
 
 import android.content.res.ColorStateList;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.ArrayAdapter;
@@ -14,15 +13,28 @@ import androidx.lifecycle.ViewModelProvider;
 import com.example.diplom.BaseLocaleActivity;
 import com.example.diplom.R;
 import com.example.diplom.database.entities.Currency;
+import com.example.diplom.database.entities.CurrencyRateHistory;
 import com.example.diplom.databinding.ActivityCurrencyDetailBinding;
+import com.example.diplom.utils.CurrencyFlags;
 import com.example.diplom.utils.DateUtils;
+import com.example.diplom.utils.Money;
 import com.example.diplom.utils.PreferenceUtils;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.google.android.material.snackbar.Snackbar;
 import java.text.DecimalFormatSymbols;
+import android.text.Editable;
+import android.text.InputFilter;
+import android.text.TextWatcher;
 import android.text.method.DigitsKeyListener;
-import java.text.ParseException;
+import android.widget.AdapterView;
 
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -32,10 +44,23 @@ public class CurrencyDetailActivity extends BaseLocaleActivity {
 
     public static final String EXTRA_CURRENCY_CODE = "extra_currency_code";
 
+    // Период графика истории курса
+    private static final int HISTORY_DAYS = 30;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    // Максимальная длина суммы в поле ввода: 12 знаков целой части, разделитель и копейки
+    private static final int MAX_AMOUNT_LENGTH = 15;
+
     private ActivityCurrencyDetailBinding binding;
     private CurrencyViewModel viewModel;
     private String currencyCode;
 
+    // Разделитель и формат создаются один раз и переиспользуются при каждом пересчете
+    private char decimalSeparator;
+    private NumberFormat resultFormat;
+
+    // Время первой точки графика: X хранится в минутах от нее, чтобы не терять точность float
+    private long historyOrigin;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -63,105 +88,208 @@ public class CurrencyDetailActivity extends BaseLocaleActivity {
         // Настройка конвертера
         setupCurrencyConverter();
 
+        // Настройка графика истории курса
+        setupHistoryChart();
+
         // Наблюдение за данными
         observeData();
-
-        // Обновление данных
-        viewModel.refreshCurrencyRates();
     }
 
     /**
-     * Настройка конвертера валют
-     */
-    /**
-     * Настройка конвертера валют
+     * Настройка конвертера валют.
+     * Результат пересчитывается при вводе суммы и смене валют.
      */
     private void setupCurrencyConverter() {
-        char separator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
-        binding.amountInput.setKeyListener(DigitsKeyListener.getInstance("0123456789" + separator));
+        decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+        binding.amountInput.setKeyListener(DigitsKeyListener.getInstance("0123456789" + decimalSeparator));
+        binding.amountInput.setFilters(new InputFilter[]{new InputFilter.LengthFilter(MAX_AMOUNT_LENGTH)});
+
+        resultFormat = NumberFormat.getInstance(Locale.getDefault());
+        resultFormat.setMaximumFractionDigits(Money.MINOR_DIGITS);
 
         binding.convertButton.setOnClickListener(v -> {
-            try {
-                NumberFormat format = NumberFormat.getInstance(Locale.getDefault());
-                Number number = format.parse(binding.amountInput.getText().toString());
-                double amount = number.doubleValue();
-                String fromCurrencyCode = binding.fromCurrencySpinner.getSelectedItem().toString();
-                String toCurrencyCode = binding.toCurrencySpinner.getSelectedItem().toString();
-
-                // Получение объектов валют
-                viewModel.getCurrencyByCode(fromCurrencyCode).observe(this, fromCurrency -> {
-                    viewModel.getCurrencyByCode(toCurrencyCode).observe(this, toCurrency -> {
-                        if (fromCurrency != null && toCurrency != null) {
-                            // Конвертация валюты с использованием актуальных курсов
-                            double result = viewModel.convertCurrency(amount, fromCurrency, toCurrency);
-
-                            // Отображение результата
-                            NumberFormat formatedResult = NumberFormat.getInstance(Locale.getDefault());
-                            formatedResult.setMaximumFractionDigits(4);
-                            binding.resultText.setText(formatedResult.format(result));
-                        } else {
-                            Snackbar.make(binding.getRoot(), R.string.error_currency_not_found, Snackbar.LENGTH_SHORT).show();
-                        }
-                    });
-                });
-            } catch (NumberFormatException | ParseException e) {
+            if (!updateConversion()) {
                 Snackbar.make(binding.getRoot(), R.string.error_invalid_amount, Snackbar.LENGTH_SHORT).show();
             }
+        });
+
+        binding.amountInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
 
+            @Override
+            public void afterTextChanged(Editable s) {
+                updateConversion();
+            }
         });
 
-        // Заполнение спиннеров валют
-        viewModel.getAllCurrencies().observe(this, currencies -> {
-            if (currencies != null && !currencies.isEmpty()) {
-                String[] currencyCodes = new String[currencies.size()];
-                for (int i = 0; i < currencies.size(); i++) {
-                    currencyCodes[i] = currencies.get(i).getCode();
-                }
+        AdapterView.OnItemSelectedListener currencySelectedListener = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                updateConversion();
+            }
 
-                ArrayAdapter<String> adapter = new ArrayAdapter<>(
-                        this,
-                        android.R.layout.simple_spinner_item,
-                        currencyCodes
-                );
-                adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-
-                binding.fromCurrencySpinner.setAdapter(adapter);
-                binding.toCurrencySpinner.setAdapter(adapter);
-
-                // Устанавливаем базовую валюту как "from"
-                String baseCurrencyCode = PreferenceUtils.getCurrency(this);
-                int fromPosition = 0;
-                int toPosition = 0;
-
-                // Находим индексы для базовой и текущей валюты
-                for (int i = 0; i < currencyCodes.length; i++) {
-                    if (currencyCodes[i].equals(baseCurrencyCode)) {
-                        fromPosition = i;
-                    }
-                    if (currencyCodes[i].equals(currencyCode)) {
-                        toPosition = i;
-                    }
-                }
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        };
+        binding.fromCurrencySpinner.setOnItemSelectedListener(currencySelectedListener);
+        binding.toCurrencySpinner.setOnItemSelectedListener(currencySelectedListener);
+    }
 
-                // Устанавливаем начальные значения спиннеров
-                binding.fromCurrencySpinner.setSelection(fromPosition);
-                binding.toCurrencySpinner.setSelection(toPosition);
+    /**
+     * Настройка графика истории курса: ось X - минуты от первой точки, подписи - даты
+     */
+    private void setupHistoryChart() {
+        binding.rateHistoryChart.getDescription().setEnabled(false);
+        binding.rateHistoryChart.getLegend().setEnabled(false);
+        binding.rateHistoryChart.getAxisRight().setEnabled(false);
+        binding.rateHistoryChart.setNoDataText(getString(R.string.no_rate_history));
+        binding.rateHistoryChart.getXAxis().setLabelCount(4);
+        binding.rateHistoryChart.getXAxis().setValueFormatter(new ValueFormatter() {
+            @Override
+            public String getFormattedValue(float value) {
+                return DateUtils.formatDate(new Date(historyOrigin + (long) value * MILLIS_PER_MINUTE));
             }
         });
     }
 
+    /**
+     * Отображение истории курса (цена закрытия каждой точки или свечи)
+     * @param history точки истории по возрастанию времени
+     */
+    private void showRateHistory(List<CurrencyRateHistory> history) {
+        if (history == null || history.isEmpty()) {
+            binding.rateHistoryChart.clear();
+            return;
+        }
+
+        historyOrigin = history.get(0).getTimestamp();
+        List<Entry> entries = new ArrayList<>(history.size());
+        for (CurrencyRateHistory point : history) {
+            float minutes = (float) ((point.getTimestamp() - historyOrigin) / MILLIS_PER_MINUTE);
+            entries.add(new Entry(minutes, (float) point.getClose()));
+        }
+
+        LineDataSet dataSet = new LineDataSet(entries, currencyCode);
+        dataSet.setColor(ContextCompat.getColor(this, R.color.neutral_amount));
+        dataSet.setDrawCircles(false);
+        dataSet.setDrawValues(false);
+        binding.rateHistoryChart.setData(new LineData(dataSet));
+        binding.rateHistoryChart.invalidate();
+    }
+
+    /**
+     * Заполнение спиннеров валют
+     * @param currencies валюты из текущего снимка
+     */
+    private void populateCurrencySpinners(List<Currency> currencies) {
+        if (currencies != null && !currencies.isEmpty()) {
+            String[] currencyCodes = new String[currencies.size()];
+            for (int i = 0; i < currencies.size(); i++) {
+                currencyCodes[i] = currencies.get(i).getCode();
+            }
+
+            ArrayAdapter<String> adapter = new ArrayAdapter<>(
+                    this,
+                    android.R.layout.simple_spinner_item,
+                    currencyCodes
+            );
+            adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+
+            binding.fromCurrencySpinner.setAdapter(adapter);
+            binding.toCurrencySpinner.setAdapter(adapter);
+
+            // Устанавливаем базовую валюту как "from"
+            String baseCurrencyCode = PreferenceUtils.getCurrency(this);
+            int fromPosition = 0;
+            int toPosition = 0;
+
+            // Находим индексы для базовой и текущей валюты
+            for (int i = 0; i < currencyCodes.length; i++) {
+                if (currencyCodes[i].equals(baseCurrencyCode)) {
+                    fromPosition = i;
+                }
+                if (currencyCodes[i].equals(currencyCode)) {
+                    toPosition = i;
+                }
+            }
+
+            // Устанавливаем начальные значения спиннеров
+            binding.fromCurrencySpinner.setSelection(fromPosition);
+            binding.toCurrencySpinner.setSelection(toPosition);
+        }
+    }
+
+    /**
+     * Пересчитывает результат конвертации по текущему снимку курсов.
+     * Вызывается на каждый ввод символа, поэтому сумма разбирается без создания объектов,
+     * а конвертация идет по заранее посчитанному курсу с фиксированной точкой.
+     * @return false, если сумма введена некорректно
+     */
+    private boolean updateConversion() {
+        Object fromItem = binding.fromCurrencySpinner.getSelectedItem();
+        Object toItem = binding.toCurrencySpinner.getSelectedItem();
+        CharSequence text = binding.amountInput.getText();
+        if (text == null || text.length() == 0) {
+            binding.resultText.setText("");
+            return false;
+        }
+        if (fromItem == null || toItem == null) {
+            // Список валют еще не загружен
+            return true;
+        }
+
+        String fromCode = fromItem.toString();
+        String toCode = toItem.toString();
+        try {
+            long amountMinor = Money.parseInput(text, decimalSeparator);
+            if (amountMinor < 0) {
+                binding.resultText.setText("");
+                return false;
+            }
+            if (!viewModel.canConvert(fromCode, toCode)) {
+                binding.resultText.setText("");
+                return true;
+            }
+
+            long result = viewModel.convertCurrency(amountMinor, fromCode, toCode);
+            binding.resultText.setText(resultFormat.format(Money.toMajor(result)));
+        } catch (ArithmeticException e) {
+            // Сумма или результат не помещаются в long
+            binding.resultText.setText(R.string.error_amount_too_large);
+        }
+        return true;
+    }
+
     /**
      * Наблюдение за данными валюты
      */
     private void observeData() {
-        viewModel.getCurrencyByCode(currencyCode).observe(this, currency -> {
+        // Один снимок курсов обновляет карточку валюты, спиннеры и результат конвертации
+        viewModel.getSnapshot().observe(this, snapshot -> {
+            if (snapshot == null) return;
+
+            populateCurrencySpinners(snapshot.getCurrencies());
+
+            Currency currency = snapshot.findByCode(currencyCode);
             if (currency != null) {
                 updateUI(currency);
             } else {
                 Snackbar.make(binding.getRoot(), R.string.error_currency_not_found, Snackbar.LENGTH_SHORT).show();
             }
+
+            updateConversion();
         });
 
+        // История курса за последние дни
+        viewModel.getRateHistory(currencyCode, HISTORY_DAYS).observe(this, this::showRateHistory);
+
         // Наблюдение за состоянием загрузки
         viewModel.getIsLoading().observe(this, isLoading -> {
             if (isLoading) {
@@ -241,20 +369,7 @@ public class CurrencyDetailActivity extends BaseLocaleActivity {
      * @param currencyCode
      */
     private void setCurrencyFlag(String currencyCode){
-        try{
-            String flagResourceName = "ic_currency_" + currencyCode.toLowerCase();
-            int resId = getResources().getIdentifier(flagResourceName, "drawable", getPackageName());
-            if (resId != 0){
-                binding.currencyFlagImage.setImageResource(resId);
-            }
-            else{
-                binding.currencyFlagImage.setImageResource(R.drawable.ic_currency_default);
-            }
-        } catch (Exception e){
-            Log.e("CurrencyDetail","Error loading flag for currency: " + currencyCode, e);
-
-            binding.currencyFlagImage.setImageResource(R.drawable.ic_currency_default);
-        }
+        binding.currencyFlagImage.setImageResource(CurrencyFlags.getFlagResId(this, currencyCode));
     }
 
     @Override
@@ -0,0 +1,182 @@
+package com.example.diplom.currency;
+
+import android.content.Context;
+
+import com.example.diplom.R;
+import com.example.diplom.database.entities.Currency;
+import com.example.diplom.utils.CurrencyFlags;
+import com.example.diplom.utils.DateUtils;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.function.ToIntFunction;
+
+/**
+ * Модель строки списка валют: все тексты уже отформатированы, флаг найден.
+ * Строится в фоновом потоке вместе со снимком курсов, поэтому привязка
+ * строки в адаптере только раскладывает готовые значения по View.
+ */
+public final class CurrencyItem {
+
+    // Направление изменения курса
+    public static final int TREND_DOWN = -1;
+    public static final int TREND_NEUTRAL = 0;
+    public static final int TREND_UP = 1;
+
+    private final Currency currency;
+    private final String rateText;
+    private final String changeText;
+    private final String percentText;
+    private final String updatedText;
+    private final int trend;
+    private final int flagResId;
+
+    // Ключи фильтрации и сортировки, вычисляются один раз при построении снимка
+    private final String codeKey;
+    private final String nameKey;
+    private final long codeSortKey;
+
+    private CurrencyItem(Currency currency, String rateText, String changeText, String percentText,
+                         String updatedText, int trend, int flagResId) {
+        this.currency = currency;
+        this.rateText = rateText;
+        this.changeText = changeText;
+        this.percentText = percentText;
+        this.updatedText = updatedText;
+        this.trend = trend;
+        this.flagResId = flagResId;
+
+        String code = currency.getCode() != null ? currency.getCode() : "";
+        String name = currency.getName() != null ? currency.getName() : "";
+        this.codeKey = code.toLowerCase(Locale.getDefault());
+        this.nameKey = name.toLowerCase(Locale.getDefault());
+        this.codeSortKey = packCode(code);
+    }
+
+    /**
+     * Упаковывает первые три символа кода (ISO 4217) в long так, что порядок чисел
+     * совпадает с порядком строк; более короткий код идет раньше своего продолжения
+     */
+    private static long packCode(String code) {
+        long key = 0;
+        for (int i = 0; i < 3; i++) {
+            key = (key << 16) | (i < code.length() ? code.charAt(i) : 0);
+        }
+        return key;
+    }
+
+    // Геттеры
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public String getCode() {
+        return currency.getCode();
+    }
+
+    public String getName() {
+        return currency.getName();
+    }
+
+    public double getRate() {
+        return currency.getRate();
+    }
+
+    public String getRateText() {
+        return rateText;
+    }
+
+    public String getChangeText() {
+        return changeText;
+    }
+
+    public String getPercentText() {
+        return percentText;
+    }
+
+    public String getUpdatedText() {
+        return updatedText;
+    }
+
+    public int getTrend() {
+        return trend;
+    }
+
+    public int getFlagResId() {
+        return flagResId;
+    }
+
+    /**
+     * Код валюты в нижнем регистре для поиска
+     */
+    public String getCodeKey() {
+        return codeKey;
+    }
+
+    /**
+     * Название валюты в нижнем регистре для поиска
+     */
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    /**
+     * Числовой ключ сортировки по коду
+     */
+    public long getCodeSortKey() {
+        return codeSortKey;
+    }
+
+    /**
+     * Создает модели строк. Форматы NumberFormat не потокобезопасны,
+     * поэтому фабрика используется только тем потоком, который ее создал.
+     */
+    public static final class Factory {
+        private final NumberFormat rateFormat;
+        private final NumberFormat percentFormat;
+        private final String lastUpdatedLabel;
+        private final ToIntFunction<String> flagResolver;
+
+        public Factory(Context context) {
+            this(Locale.getDefault(), context.getString(R.string.last_updated),
+                    flagResolver(context.getApplicationContext()));
+        }
+
+        /**
+         * @param locale локаль форматирования чисел
+         * @param lastUpdatedLabel подпись времени обновления
+         * @param flagResolver ресурс флага по коду валюты
+         */
+        Factory(Locale locale, String lastUpdatedLabel, ToIntFunction<String> flagResolver) {
+            rateFormat = NumberFormat.getInstance(locale);
+            rateFormat.setMaximumFractionDigits(4);
+            percentFormat = NumberFormat.getPercentInstance(locale);
+            percentFormat.setMaximumFractionDigits(2);
+            this.lastUpdatedLabel = lastUpdatedLabel + ": ";
+            this.flagResolver = flagResolver;
+        }
+
+        private static ToIntFunction<String> flagResolver(Context appContext) {
+            return code -> CurrencyFlags.getFlagResId(appContext, code);
+        }
+
+        public CurrencyItem create(Currency currency) {
+            double change = currency.getChange();
+            int trend = change > 0 ? TREND_UP : change < 0 ? TREND_DOWN : TREND_NEUTRAL;
+            String changeText = (trend == TREND_UP ? "+" : "") + rateFormat.format(change);
+            String updatedText = currency.getUpdatedAt() != null
+                    ? lastUpdatedLabel + DateUtils.formatDateTime(currency.getUpdatedAt())
+                    : "";
+
+            return new CurrencyItem(
+                    currency,
+                    rateFormat.format(currency.getRate()),
+                    changeText,
+                    percentFormat.format(currency.getChangePercentage() / 100),
+                    updatedText,
+                    trend,
+                    flagResolver.applyAsInt(currency.getCode())
+            );
+        }
+    }
+}
@@ -7,17 +7,20 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Transformations;
 
-import com.example.diplom.database.entities.Currency;
+import com.example.diplom.database.entities.CurrencyRateHistory;
 import com.example.diplom.repository.CurrencyRepository;
+import com.example.diplom.repository.CurrencySnapshot;
+import com.example.diplom.utils.IndexSort;
+import com.example.diplom.utils.Money;
 import com.example.diplom.utils.PreferenceUtils;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ViewModel для работы с валютами
@@ -31,9 +34,7 @@ public class CurrencyViewModel extends AndroidViewModel {
     public static final int SORT_RATE_DESC = 3;
 
     private final CurrencyRepository repository;
-    private final LiveData<List<Currency>> allCurrencies;
-    private final LiveData<List<Currency>> popularCurrencies;
-    private final LiveData<Currency> baseCurrency;
+    private final LiveData<CurrencySnapshot> snapshot;
     private final LiveData<Boolean> isLoading;
     private final LiveData<String> errorMessage;
 
@@ -43,23 +44,23 @@ public class CurrencyViewModel extends AndroidViewModel {
     private final MutableLiveData<Double> maxRate = new MutableLiveData<>(null);
     private final MutableLiveData<String> codeFilter = new MutableLiveData<>("");
 
-    private final MediatorLiveData<List<Currency>> filteredCurrencies = new MediatorLiveData<>();
+    private final MediatorLiveData<List<CurrencyItem>> filteredCurrencies = new MediatorLiveData<>();
+    // Фильтрация и сортировка списка вне главного потока
+    private final ExecutorService filterExecutor = Executors.newSingleThreadExecutor();
 
     public CurrencyViewModel(@NonNull Application application) {
         super(application);
 
         // Инициализация репозитория
-        repository = new CurrencyRepository(application);
+        repository = CurrencyRepository.getInstance(application);
 
         // Получение LiveData из репозитория
-        allCurrencies = repository.getAllCurrencies();
-        popularCurrencies = repository.getPopularCurrencies();
-        baseCurrency = repository.getBaseCurrency();
+        snapshot = repository.getSnapshot();
         isLoading = repository.getIsLoading();
         errorMessage = repository.getErrorMessage();
 
         // Настройка фильтрации по поисковому запросу и другим фильтрам
-        filteredCurrencies.addSource(allCurrencies, currencies -> {
+        filteredCurrencies.addSource(snapshot, currencySnapshot -> {
             applyFiltersAndSort();
         });
 
@@ -88,71 +89,88 @@ public class CurrencyViewModel extends AndroidViewModel {
     }
 
     /**
-     * Применяет фильтры и сортировку к списку валют
+     * Применяет фильтры и сортировку к списку валют.
+     * Значения фильтров снимаются в главном потоке, сам расчет выполняется в фоновом;
+     * задачи выполняются по очереди, поэтому последним публикуется результат последних фильтров.
      */
     private void applyFiltersAndSort() {
-        List<Currency> currencies = allCurrencies.getValue();
-        if (currencies == null) return;
+        CurrencySnapshot currencySnapshot = snapshot.getValue();
+        if (currencySnapshot == null) return;
 
-        List<Currency> result = new ArrayList<>(currencies);
-
-        // Применение фильтра по коду
+        List<CurrencyItem> items = currencySnapshot.getItems();
         String code = codeFilter.getValue();
-        if (code != null && !code.isEmpty()) {
-            String lowerCode = code.toLowerCase();
-            result = result.stream()
-                    .filter(currency ->
-                            currency.getCode().toLowerCase().contains(lowerCode))
-                    .collect(Collectors.toList());
-        }
-
-        // Применение фильтра по диапазону курса
         Double min = minRate.getValue();
         Double max = maxRate.getValue();
+        String query = searchQuery.getValue();
+        Integer order = sortOrder.getValue();
 
-        if (min != null) {
-            result = result.stream()
-                    .filter(currency -> currency.getRate() >= min)
-                    .collect(Collectors.toList());
-        }
+        filterExecutor.execute(() -> filteredCurrencies.postValue(
+                filterAndSort(items, code, min, max, query, order != null ? order : -1)));
+    }
 
-        if (max != null) {
-            result = result.stream()
-                    .filter(currency -> currency.getRate() <= max)
-                    .collect(Collectors.toList());
+    /**
+     * Фильтрует строки за один проход и сортирует их по числовому ключу
+     * @param items строки снимка
+     * @param code фильтр по коду или пустая строка
+     * @param min минимальный курс или null
+     * @param max максимальный курс или null
+     * @param query поисковый запрос по коду и названию или пустая строка
+     * @param order порядок сортировки (SORT_*) или -1, чтобы сохранить порядок снимка
+     * @return новый список строк
+     */
+    static List<CurrencyItem> filterAndSort(List<CurrencyItem> items, String code, Double min, Double max,
+                                            String query, int order) {
+        String codeKey = code != null && !code.isEmpty() ? code.toLowerCase(Locale.getDefault()) : null;
+        String queryKey = query != null && !query.isEmpty() ? query.toLowerCase(Locale.getDefault()) : null;
+        boolean hasMin = min != null;
+        boolean hasMax = max != null;
+        double minValue = hasMin ? min : 0;
+        double maxValue = hasMax ? max : 0;
+        boolean byRate = order == SORT_RATE_ASC || order == SORT_RATE_DESC;
+        boolean byCode = order == SORT_CODE_ASC || order == SORT_CODE_DESC;
+        boolean descending = order == SORT_CODE_DESC || order == SORT_RATE_DESC;
+
+        int size = items.size();
+        int[] indices = new int[size];
+        long[] keys = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            CurrencyItem item = items.get(i);
+            if (codeKey != null && !item.getCodeKey().contains(codeKey)) continue;
+
+            double rate = item.getRate();
+            if (hasMin && rate < minValue) continue;
+            if (hasMax && rate > maxValue) continue;
+
+            if (queryKey != null
+                    && !item.getCodeKey().contains(queryKey)
+                    && !item.getNameKey().contains(queryKey)) continue;
+
+            // Курс хранится с фиксированной точкой, поэтому порядок long совпадает с порядком курсов
+            long key = byRate ? item.getCurrency().getScaledRate() : byCode ? item.getCodeSortKey() : 0;
+            keys[count] = descending ? -key : key;
+            indices[count++] = i;
         }
 
-        // Применение поискового фильтра
-        String query = searchQuery.getValue();
-        if (query != null && !query.isEmpty()) {
-            String lowerQuery = query.toLowerCase();
-            result = result.stream()
-                    .filter(currency ->
-                            currency.getCode().toLowerCase().contains(lowerQuery) ||
-                                    currency.getName().toLowerCase().contains(lowerQuery))
-                    .collect(Collectors.toList());
-        }
+        IndexSort.sortByKey(keys, indices, count);
 
-        // Применение сортировки
-        Integer order = sortOrder.getValue();
-        if (order != null) {
-            switch (order) {
-                case SORT_CODE_ASC:
-                    Collections.sort(result, Comparator.comparing(Currency::getCode));
-                    break;
-                case SORT_CODE_DESC:
-                    Collections.sort(result, Comparator.comparing(Currency::getCode).reversed());
-                    break;
-                case SORT_RATE_ASC:
-                    Collections.sort(result, Comparator.comparing(Currency::getRate));
-                    break;
-                case SORT_RATE_DESC:
-                    Collections.sort(result, Comparator.comparing(Currency::getRate).reversed());
-                    break;
-            }
+        List<CurrencyItem> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(items.get(indices[i]));
         }
+        return result;
+    }
 
-        filteredCurrencies.setValue(result);
+    /**
+     * Получает историю курса валюты за последние дни
+     * @param code код валюты
+     * @param days количество дней до текущего момента
+     * @return LiveData с точками истории по возрастанию времени
+     */
+    public LiveData<List<CurrencyRateHistory>> getRateHistory(String code, int days) {
+        long to = System.currentTimeMillis();
+        long from = to - TimeUnit.DAYS.toMillis(days);
+        return repository.getRateHistory(code, from, to);
     }
 
     /**
@@ -162,6 +180,13 @@ public class CurrencyViewModel extends AndroidViewModel {
         repository.refreshCurrencyRates();
     }
 
+    /**
+     * Принудительное обновление курсов валют по запросу пользователя
+     */
+    public void forceRefreshCurrencyRates() {
+        repository.forceRefreshCurrencyRates();
+    }
+
     /**
      * Устанавливает поисковый запрос для фильтрации
      * @param query поисковый запрос
@@ -214,56 +239,43 @@ public class CurrencyViewModel extends AndroidViewModel {
     }
 
     /**
-     * Получает валюту по коду
-     * @param code код валюты
-     * @return LiveData с валютой
+     * Проверяет, известен ли курс пары валют в последнем снимке
+     * @param fromCode код исходной валюты
+     * @param toCode код целевой валюты
      */
-    public LiveData<Currency> getCurrencyByCode(String code) {
-        return repository.getCurrencyByCode(code);
+    public boolean canConvert(String fromCode, String toCode) {
+        return CurrencyConverter.getInstance().scaledRate(fromCode, toCode) != 0;
     }
 
     /**
-     * Конвертирует сумму из одной валюты в другую
-     * @param amount сумма для конвертации
-     * @param fromCurrency исходная валюта
-     * @param toCurrency целевая валюта
-     * @return конвертированная сумма
+     * Конвертирует сумму из одной валюты в другую по последнему снимку курсов.
+     * Не обращается к базе данных и работает для любой пары валют из снимка.
+     * @param amountMinor сумма в копейках исходной валюты
+     * @param fromCode код исходной валюты
+     * @param toCode код целевой валюты
+     * @return сумма в копейках целевой валюты или 0, если курс неизвестен (см. canConvert)
+     * @throws ArithmeticException если результат не помещается в long
      */
-    public double convertCurrency(double amount, Currency fromCurrency, Currency toCurrency) {
-        if (fromCurrency == null || toCurrency == null) {
-            return 0;
-        }
-
-        // Проверяем, что базовая валюта одинаковая
-        if (!fromCurrency.getBaseCurrency().equals(toCurrency.getBaseCurrency())) {
-            // Если базовые валюты разные, нужно использовать кросс-курс
-            // Преобразуем через соотношение их курсов к базовым валютам
-            return amount * (toCurrency.getRate() / fromCurrency.getRate());
-        }
+    public long convertCurrency(long amountMinor, String fromCode, String toCode) {
+        long scaledRate = CurrencyConverter.getInstance().scaledRate(fromCode, toCode);
+        return scaledRate == 0 ? 0 : Money.convert(amountMinor, scaledRate);
+    }
 
-        // Базовые валюты совпадают
-        // Преобразуем сначала в базовую валюту, затем в целевую
-        double amountInBaseCurrency = amount / fromCurrency.getRate();
-        return amountInBaseCurrency * toCurrency.getRate();
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        filterExecutor.shutdown();
     }
 
     // Геттеры для LiveData
-    public LiveData<List<Currency>> getAllCurrencies() {
-        return allCurrencies;
+    public LiveData<CurrencySnapshot> getSnapshot() {
+        return snapshot;
     }
 
-    public LiveData<List<Currency>> getFilteredCurrencies() {
+    public LiveData<List<CurrencyItem>> getFilteredCurrencies() {
         return filteredCurrencies;
     }
 
-    public LiveData<List<Currency>> getPopularCurrencies() {
-        return popularCurrencies;
-    }
-
-    public LiveData<Currency> getBaseCurrency() {
-        return baseCurrency;
-    }
-
     public LiveData<Boolean> getIsLoading() {
         return isLoading;
     }
@@ -1,37 +1,60 @@
 package com.example.diplom.currency.adapters;
 
+import android.content.Context;
 import android.content.res.ColorStateList;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncDifferConfig;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.diplom.R;
+import com.example.diplom.currency.CurrencyItem;
 import com.example.diplom.database.entities.Currency;
 import com.example.diplom.databinding.ItemCurrencyBinding;
-import com.example.diplom.utils.DateUtils;
 
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Адаптер для отображения списка валют в RecyclerView
  */
-public class CurrencyAdapter extends ListAdapter<Currency, CurrencyAdapter.CurrencyViewHolder> {
+public class CurrencyAdapter extends ListAdapter<CurrencyItem, CurrencyAdapter.CurrencyViewHolder> {
+
+    // Разница списков считается AsyncListDiffer в отдельном фоновом потоке, общем для всех адаптеров
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "currency-diff");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private OnCurrencyClickListener listener;
 
+    // Цвета изменения курса, определяются один раз при создании первой строки
+    private ColorStateList positiveColor;
+    private ColorStateList negativeColor;
+    private ColorStateList neutralColor;
+
     public CurrencyAdapter() {
-        super(DIFF_CALLBACK);
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                .setBackgroundThreadExecutor(DIFF_EXECUTOR)
+                .build());
     }
 
     @NonNull
     @Override
     public CurrencyViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (positiveColor == null) {
+            Context context = parent.getContext();
+            positiveColor = ColorStateList.valueOf(ContextCompat.getColor(context, R.color.positive_amount));
+            negativeColor = ColorStateList.valueOf(ContextCompat.getColor(context, R.color.negative_amount));
+            neutralColor = ColorStateList.valueOf(ContextCompat.getColor(context, R.color.neutral_amount));
+        }
         ItemCurrencyBinding binding = ItemCurrencyBinding.inflate(
                 LayoutInflater.from(parent.getContext()),
                 parent,
@@ -42,8 +65,7 @@ public class CurrencyAdapter extends ListAdapter<Currency, CurrencyAdapter.Curre
 
     @Override
     public void onBindViewHolder(@NonNull CurrencyViewHolder holder, int position) {
-        Currency currency = getItem(position);
-        holder.bind(currency);
+        holder.bind(getItem(position));
     }
 
     /**
@@ -68,75 +90,39 @@ public class CurrencyAdapter extends ListAdapter<Currency, CurrencyAdapter.Curre
             binding.getRoot().setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onCurrencyClick(getItem(position));
+                    listener.onCurrencyClick(getItem(position).getCurrency());
                 }
             });
         }
 
         /**
          * Привязка данных к View
-         * @param currency валюта для отображения
+         * @param item строка валюты с готовыми текстами
          */
-        public void bind(Currency currency) {
-            binding.currencyCodeText.setText(currency.getCode());
-            binding.currencyNameText.setText(currency.getName());
-
-            // Устанавливаем флаг валюты
-            String iconName = currency.getIconUrl();
-            int iconResourceId = binding.getRoot().getContext().getResources()
-                    .getIdentifier(iconName, "drawable",
-                            binding.getRoot().getContext().getPackageName());
-            if (iconResourceId != 0) {
-                binding.currencyFlagImage.setImageResource(iconResourceId);
-            } else {
-                // Если иконка не найдена, используем стандартную
-                binding.currencyFlagImage.setImageResource(R.drawable.ic_currency_default);
-            }
-
-            // Форматирование и отображение курса валюты
-            NumberFormat format = NumberFormat.getInstance(Locale.getDefault());
-            format.setMaximumFractionDigits(4);
-            binding.currencyRateText.setText(format.format(currency.getRate()));
+        public void bind(CurrencyItem item) {
+            binding.currencyCodeText.setText(item.getCode());
+            binding.currencyNameText.setText(item.getName());
+            binding.currencyFlagImage.setImageResource(item.getFlagResId());
+            binding.currencyRateText.setText(item.getRateText());
 
             // Отображение изменения курса
-            if (currency.getChange() > 0) {
-                binding.currencyChangeText.setText("+" + format.format(currency.getChange()));
-                binding.currencyChangeText.setTextColor(
-                        ContextCompat.getColor(binding.getRoot().getContext(), R.color.positive_amount));
+            binding.currencyChangeText.setText(item.getChangeText());
+            ColorStateList trendColor;
+            if (item.getTrend() == CurrencyItem.TREND_UP) {
+                trendColor = positiveColor;
                 binding.trendIcon.setImageResource(R.drawable.ic_trend_up);
-                binding.trendIcon.setImageTintList(
-                        ColorStateList.valueOf(
-                                ContextCompat.getColor(binding.getRoot().getContext(), R.color.positive_amount)));
-            } else if (currency.getChange() < 0) {
-                binding.currencyChangeText.setText(format.format(currency.getChange()));
-                binding.currencyChangeText.setTextColor(
-                        ContextCompat.getColor(binding.getRoot().getContext(), R.color.negative_amount));
+            } else if (item.getTrend() == CurrencyItem.TREND_DOWN) {
+                trendColor = negativeColor;
                 binding.trendIcon.setImageResource(R.drawable.ic_trend_down);
-                binding.trendIcon.setImageTintList(
-                        ColorStateList.valueOf(
-                                ContextCompat.getColor(binding.getRoot().getContext(), R.color.negative_amount)));
             } else {
-                binding.currencyChangeText.setText(format.format(currency.getChange()));
-                binding.currencyChangeText.setTextColor(
-                        ContextCompat.getColor(binding.getRoot().getContext(), R.color.neutral_amount));
+                trendColor = neutralColor;
                 binding.trendIcon.setImageResource(R.drawable.ic_trend_neutral);
-                binding.trendIcon.setImageTintList(
-                        ColorStateList.valueOf(
-                                ContextCompat.getColor(binding.getRoot().getContext(), R.color.neutral_amount)));
             }
+            binding.currencyChangeText.setTextColor(trendColor);
+            binding.trendIcon.setImageTintList(trendColor);
 
-            // Отображение процентного изменения
-            NumberFormat percentFormat = NumberFormat.getPercentInstance(Locale.getDefault());
-            percentFormat.setMaximumFractionDigits(2);
-            binding.currencyPercentText.setText(percentFormat.format(currency.getChangePercentage() / 100));
-
-            // Отображение даты обновления
-            if (currency.getUpdatedAt() != null) {
-                binding.currencyDateText.setText(
-                        binding.getRoot().getContext().getString(R.string.last_updated) +
-                                ": " +
-                                DateUtils.formatDateTime(currency.getUpdatedAt()));
-            }
+            binding.currencyPercentText.setText(item.getPercentText());
+            binding.currencyDateText.setText(item.getUpdatedText());
         }
     }
 
@@ -150,18 +136,23 @@ public class CurrencyAdapter extends ListAdapter<Currency, CurrencyAdapter.Curre
     /**
      * DiffUtil.Callback для оптимизации обновлений списка
      */
-    private static final DiffUtil.ItemCallback<Currency> DIFF_CALLBACK = new DiffUtil.ItemCallback<Currency>() {
+    private static final DiffUtil.ItemCallback<CurrencyItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<CurrencyItem>() {
         @Override
-        public boolean areItemsTheSame(@NonNull Currency oldItem, @NonNull Currency newItem) {
-            return oldItem.getId() == newItem.getId();
+        public boolean areItemsTheSame(@NonNull CurrencyItem oldItem, @NonNull CurrencyItem newItem) {
+            return oldItem.getCurrency().getId() == newItem.getCurrency().getId();
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull Currency oldItem, @NonNull Currency newItem) {
-            return oldItem.getCode().equals(newItem.getCode()) &&
-                    oldItem.getRate() == newItem.getRate() &&
-                    oldItem.getChange() == newItem.getChange() &&
-                    oldItem.getChangePercentage() == newItem.getChangePercentage();
+        public boolean areContentsTheSame(@NonNull CurrencyItem oldItem, @NonNull CurrencyItem newItem) {
+            // Сравнивается все, что показывает строка: код, название, флаг, тексты и тренд
+            return Objects.equals(oldItem.getCode(), newItem.getCode()) &&
+                    Objects.equals(oldItem.getName(), newItem.getName()) &&
+                    oldItem.getFlagResId() == newItem.getFlagResId() &&
+                    oldItem.getRateText().equals(newItem.getRateText()) &&
+                    oldItem.getChangeText().equals(newItem.getChangeText()) &&
+                    oldItem.getPercentText().equals(newItem.getPercentText()) &&
+                    oldItem.getUpdatedText().equals(newItem.getUpdatedText()) &&
+                    oldItem.getTrend() == newItem.getTrend();
         }
     };
 }
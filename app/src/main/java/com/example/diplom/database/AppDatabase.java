@@ -11,34 +11,40 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.example.diplom.database.dao.CategoryDao;
 import com.example.diplom.database.dao.CurrencyDao;
+import com.example.diplom.database.dao.CurrencyRateHistoryDao;
 import com.example.diplom.database.dao.ExpenseDao;
+import com.example.diplom.database.dao.ReceiptDao;
 import com.example.diplom.database.entities.Category;
 import com.example.diplom.database.entities.Currency;
+import com.example.diplom.database.entities.CurrencyRateHistory;
 import com.example.diplom.database.entities.Expense;
+import com.example.diplom.database.entities.ExpenseDailyTotal;
+import com.example.diplom.database.entities.ExpenseFts;
+import com.example.diplom.database.entities.Receipt;
+import com.example.diplom.database.entities.ReceiptItem;
 import com.example.diplom.utils.DateConverter;
 import com.example.diplom.utils.ExpenseCategoryUtils;
 
 import java.util.Date;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 @Database(
-        entities = {Category.class, Expense.class, Currency.class},
-        version = 1,
-        exportSchema = false
+        entities = {Category.class, Expense.class, Currency.class, ExpenseDailyTotal.class, ExpenseFts.class,
+                CurrencyRateHistory.class, Receipt.class, ReceiptItem.class},
+        version = 13,
+        exportSchema = true
 )
 @TypeConverters({DateConverter.class})
 public abstract class AppDatabase extends RoomDatabase {
 
     private static final String DATABASE_NAME = "budget_optimizer_db";
-    private static final int NUMBER_OF_THREADS = 4;
-    public static final ExecutorService databaseWriteExecutor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
 
     private static volatile AppDatabase INSTANCE;
 
     public abstract CategoryDao categoryDao();
     public abstract ExpenseDao expenseDao();
     public abstract CurrencyDao currencyDao();
+    public abstract CurrencyRateHistoryDao currencyRateHistoryDao();
+    public abstract ReceiptDao receiptDao();
 
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
@@ -48,6 +54,7 @@ public abstract class AppDatabase extends RoomDatabase {
                                     context.getApplicationContext(),
                                     AppDatabase.class,
                                     DATABASE_NAME)
+                            .addMigrations(DatabaseMigrations.ALL)
                             .addCallback(sRoomDatabaseCallback)
                             .build();
                 }
@@ -61,7 +68,10 @@ public abstract class AppDatabase extends RoomDatabase {
         public void onCreate(@NonNull SupportSQLiteDatabase db) {
             super.onCreate(db);
 
-            databaseWriteExecutor.execute(() -> {
+            // Триггеры для дневных агрегатов расходов
+            ExpenseRollupTriggers.create(db);
+
+            DatabaseScheduler.getInstance().write("populate_initial_data", DatabaseScheduler.PRIORITY_UI, () -> {
                 // Заполнение начальными данными
                 AppDatabase database = INSTANCE;
                 if (database != null) {
@@ -0,0 +1,59 @@
+package com.example.diplom.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.diplom.analytics.AnalyticsEngine;
+import com.example.diplom.utils.PreferenceUtils;
+
+import java.time.ZoneId;
+
+/**
+ * Следит, чтобы дневные агрегаты расходов (expense_daily_totals) были посчитаны в текущем
+ * часовом поясе устройства. Триггеры раскладывают расходы по локальным дням SQLite ('localtime'),
+ * а фильтры строят границы дней через ZoneId.systemDefault(), поэтому после смены пояса
+ * (или обновления базы поясов) агрегаты пересчитываются целиком.
+ */
+public final class DailyTotalsZoneGuard {
+
+    private static final String TAG = "DailyTotalsZoneGuard";
+
+    private DailyTotalsZoneGuard() {
+    }
+
+    /**
+     * Пересчитывает агрегаты, если они посчитаны в другом часовом поясе.
+     * Вызывается при запуске приложения и при смене часового пояса.
+     * @param context контекст
+     * @param onDone вызывается после проверки (в фоновом потоке), может быть null
+     */
+    public static void check(Context context, Runnable onDone) {
+        Context appContext = context.getApplicationContext();
+        AppDatabase database = AppDatabase.getDatabase(appContext);
+
+        DatabaseScheduler.getInstance().write("daily_totals_zone", DatabaseScheduler.PRIORITY_MAINTENANCE, () -> {
+            try {
+                String zone = currentZone();
+                String stored = PreferenceUtils.getDailyTotalsZone(appContext);
+                if (stored == null) {
+                    // Первая проверка: агрегаты уже посчитаны триггерами в текущем поясе
+                    PreferenceUtils.setDailyTotalsZone(appContext, zone);
+                } else if (!stored.equals(zone)) {
+                    Log.i(TAG, "Rebuilding daily totals: " + stored + " -> " + zone);
+                    database.runInTransaction(() ->
+                            ExpenseRollupTriggers.rebuild(database.getOpenHelper().getWritableDatabase()));
+                    PreferenceUtils.setDailyTotalsZone(appContext, zone);
+                    AnalyticsEngine.getInstance(appContext).invalidateAll();
+                }
+            } finally {
+                if (onDone != null) {
+                    onDone.run();
+                }
+            }
+        });
+    }
+
+    private static String currentZone() {
+        return ZoneId.systemDefault().getId() + "|" + android.icu.util.TimeZone.getTZDataVersion();
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.diplom.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.diplom.utils.Money;
+
+/**
+ * Цепочка миграций схемы базы данных.
+ * Схемы каждой версии экспортируются Room в каталог app/schemas.
+ */
+public final class DatabaseMigrations {
+
+    private DatabaseMigrations() {
+    }
+
+    /**
+     * Миграция 1 -> 2: дневные агрегаты расходов, поддерживаемые триггерами
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `expense_daily_totals` (" +
+                    "`day` INTEGER NOT NULL, `category_key` INTEGER NOT NULL, `cost_mask` INTEGER NOT NULL, " +
+                    "`total` REAL NOT NULL, `count` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`day`, `category_key`, `cost_mask`))");
+            ExpenseRollupTriggers.create(db);
+            ExpenseRollupTriggers.fill(db);
+        }
+    };
+
+    /**
+     * Миграция 2 -> 3: составные индексы таблицы expenses под фильтры и сортировки по дате
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Индекс по category_id заменяется составным (category_id, expense_date)
+            db.execSQL("DROP INDEX IF EXISTS `index_expenses_category_id`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_category_date` " +
+                    "ON `expenses` (`category_id`, `expense_date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_expense_date` " +
+                    "ON `expenses` (`expense_date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_date_costs` " +
+                    "ON `expenses` (`expense_date`, `amount`, `is_material_cost`, `is_labor_cost`, " +
+                    "`is_capital_cost`, `is_energy_cost`, `is_other_cost`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_amount` " +
+                    "ON `expenses` (`amount`)");
+        }
+    };
+
+    /**
+     * Миграция 3 -> 4: полнотекстовый индекс FTS4 по названию и описанию расходов
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `expenses_fts` USING FTS4(" +
+                    "`title` TEXT, `description` TEXT, tokenize=unicode61, content=`expenses`)");
+
+            createFtsSyncTriggers(db);
+
+            // Индексируем уже существующие расходы
+            db.execSQL("INSERT INTO `expenses_fts`(`expenses_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Миграция 4 -> 5: уникальный индекс (code, base_currency) для пакетного обновления курсов
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Удаляем дубликаты, оставляя самую свежую запись
+            db.execSQL("DELETE FROM `currencies` WHERE `id` NOT IN " +
+                    "(SELECT MAX(`id`) FROM `currencies` GROUP BY `code`, `base_currency`)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_currencies_code_base_currency` " +
+                    "ON `currencies` (`code`, `base_currency`)");
+        }
+    };
+
+    /**
+     * Миграция 5 -> 6: история курсов валют
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `currency_rate_history` (" +
+                    "`code` TEXT NOT NULL, `base_currency` TEXT NOT NULL, `timestamp` INTEGER NOT NULL, " +
+                    "`resolution` INTEGER NOT NULL, `open` REAL NOT NULL, `high` REAL NOT NULL, " +
+                    "`low` REAL NOT NULL, `close` REAL NOT NULL, " +
+                    "PRIMARY KEY(`code`, `base_currency`, `timestamp`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_currency_rate_history_resolution_timestamp` " +
+                    "ON `currency_rate_history` (`resolution`, `timestamp`)");
+        }
+    };
+
+    /**
+     * Миграция 6 -> 7: суммы расходов хранятся в копейках (INTEGER), курсы валют - с фиксированной точкой.
+     * SQLite не меняет тип колонки, поэтому таблицы пересоздаются с переносом данных,
+     * после чего заново создаются индексы и триггеры, удаленные вместе со старыми таблицами.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Расходы: REAL -> копейки. Двойное округление, чтобы 0.285 стало 29, а не 28
+            db.execSQL("CREATE TABLE IF NOT EXISTS `expenses_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `title` TEXT, `amount` INTEGER NOT NULL, " +
+                    "`description` TEXT, `expense_date` INTEGER, `category_id` INTEGER, " +
+                    "`is_material_cost` INTEGER NOT NULL, `is_labor_cost` INTEGER NOT NULL, " +
+                    "`is_capital_cost` INTEGER NOT NULL, `is_energy_cost` INTEGER NOT NULL, " +
+                    "`is_other_cost` INTEGER NOT NULL, `created_at` INTEGER, " +
+                    "FOREIGN KEY(`category_id`) REFERENCES `categories`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL )");
+            db.execSQL("INSERT INTO `expenses_new` (`id`, `title`, `amount`, `description`, `expense_date`, " +
+                    "`category_id`, `is_material_cost`, `is_labor_cost`, `is_capital_cost`, `is_energy_cost`, " +
+                    "`is_other_cost`, `created_at`) " +
+                    "SELECT `id`, `title`, CAST(ROUND(ROUND(`amount`, 2) * 100) AS INTEGER), `description`, " +
+                    "`expense_date`, `category_id`, `is_material_cost`, `is_labor_cost`, `is_capital_cost`, " +
+                    "`is_energy_cost`, `is_other_cost`, `created_at` FROM `expenses`");
+            db.execSQL("DROP TABLE `expenses`");
+            db.execSQL("ALTER TABLE `expenses_new` RENAME TO `expenses`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_category_date` " +
+                    "ON `expenses` (`category_id`, `expense_date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_expense_date` " +
+                    "ON `expenses` (`expense_date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_date_costs` " +
+                    "ON `expenses` (`expense_date`, `amount`, `is_material_cost`, `is_labor_cost`, " +
+                    "`is_capital_cost`, `is_energy_cost`, `is_other_cost`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_amount` " +
+                    "ON `expenses` (`amount`)");
+            // id сохранены, поэтому docid в expenses_fts остаются верными
+            createFtsSyncTriggers(db);
+
+            // Дневные агрегаты пересчитываются из уже переведенных сумм
+            db.execSQL("DROP TABLE IF EXISTS `expense_daily_totals`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `expense_daily_totals` (" +
+                    "`day` INTEGER NOT NULL, `category_key` INTEGER NOT NULL, `cost_mask` INTEGER NOT NULL, " +
+                    "`total` INTEGER NOT NULL, `count` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`day`, `category_key`, `cost_mask`))");
+            ExpenseRollupTriggers.create(db);
+            ExpenseRollupTriggers.fill(db);
+
+            // Курсы: REAL -> фиксированная точка (Money.RATE_SCALE)
+            db.execSQL("CREATE TABLE IF NOT EXISTS `currencies_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `code` TEXT, `name` TEXT, " +
+                    "`rate` INTEGER NOT NULL, `base_currency` TEXT, `trend` TEXT, `change` INTEGER NOT NULL, " +
+                    "`change_percentage` REAL NOT NULL, `icon_url` TEXT, `updated_at` INTEGER)");
+            db.execSQL("INSERT INTO `currencies_new` (`id`, `code`, `name`, `rate`, `base_currency`, `trend`, " +
+                    "`change`, `change_percentage`, `icon_url`, `updated_at`) " +
+                    "SELECT `id`, `code`, `name`, CAST(ROUND(`rate` * " + Money.RATE_SCALE + ") AS INTEGER), " +
+                    "`base_currency`, `trend`, CAST(ROUND(`change` * " + Money.RATE_SCALE + ") AS INTEGER), " +
+                    "`change_percentage`, `icon_url`, `updated_at` FROM `currencies`");
+            db.execSQL("DROP TABLE `currencies`");
+            db.execSQL("ALTER TABLE `currencies_new` RENAME TO `currencies`");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_currencies_code_base_currency` " +
+                    "ON `currencies` (`code`, `base_currency`)");
+        }
+    };
+
+    /**
+     * Миграция 7 -> 8: таблица импортированных фискальных чеков с уникальным индексом по реквизитам
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `receipts` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `expense_id` INTEGER, " +
+                    "`fn` INTEGER NOT NULL, `fd` INTEGER NOT NULL, `fp` INTEGER NOT NULL, " +
+                    "`receipt_time` INTEGER NOT NULL, `amount` INTEGER NOT NULL, `operation_type` INTEGER NOT NULL, " +
+                    "FOREIGN KEY(`expense_id`) REFERENCES `expenses`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_receipts_fiscal` " +
+                    "ON `receipts` (`fn`, `fd`, `fp`, `receipt_time`, `amount`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_receipts_expense_id` ON `receipts` (`expense_id`)");
+        }
+    };
+
+    /**
+     * Миграция 8 -> 9: позиции фискальных чеков
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `receipt_items` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `receipt_id` INTEGER NOT NULL, " +
+                    "`name` TEXT NOT NULL, `price` INTEGER NOT NULL, `quantity` INTEGER NOT NULL, " +
+                    "`sum` INTEGER NOT NULL, " +
+                    "FOREIGN KEY(`receipt_id`) REFERENCES `receipts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_receipt_items_receipt_id` " +
+                    "ON `receipt_items` (`receipt_id`)");
+        }
+    };
+
+    /**
+     * Миграция 9 -> 10: ключ дубликатов чеков без времени чека.
+     * receipt_time зависит от часового пояса устройства, поэтому дубликаты, импортированные
+     * после смены пояса, удаляются (остается первый чек), и индекс строится по (fn, fd, fp).
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            String duplicates = "SELECT `id` FROM `receipts` WHERE `id` NOT IN " +
+                    "(SELECT MIN(`id`) FROM `receipts` GROUP BY `fn`, `fd`, `fp`)";
+            db.execSQL("DELETE FROM `receipt_items` WHERE `receipt_id` IN (" + duplicates + ")");
+            db.execSQL("DELETE FROM `receipts` WHERE `id` IN (" + duplicates + ")");
+            db.execSQL("DROP INDEX IF EXISTS `index_receipts_fiscal`");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_receipts_fiscal` " +
+                    "ON `receipts` (`fn`, `fd`, `fp`)");
+        }
+    };
+
+    /**
+     * Миграция 10 -> 11: история курсов хранится относительно опорной валюты (USD).
+     * Точки относительно прежних баз пользователя пересчитываются через курс USD в тот же момент:
+     * rate(USD -> code) = rate(base -> code) / rate(base -> USD). Точки без курса USD
+     * в тот же момент пересчитать нельзя, они удаляются вместе с остальными старыми точками.
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Деление на нулевой курс дает NULL, такие точки пропускаются (OR IGNORE)
+            db.execSQL("INSERT OR IGNORE INTO `currency_rate_history` " +
+                    "(`code`, `base_currency`, `timestamp`, `resolution`, `open`, `high`, `low`, `close`) " +
+                    "SELECT h.`code`, 'USD', h.`timestamp`, h.`resolution`, h.`open` / p.`open`, " +
+                    "h.`high` / p.`low`, h.`low` / p.`high`, h.`close` / p.`close` " +
+                    "FROM `currency_rate_history` h JOIN `currency_rate_history` p " +
+                    "ON p.`code` = 'USD' AND p.`base_currency` = h.`base_currency` " +
+                    "AND p.`timestamp` = h.`timestamp` " +
+                    "WHERE h.`base_currency` != 'USD' AND h.`code` != 'USD'");
+            // Сама прежняя база относительно USD
+            db.execSQL("INSERT OR IGNORE INTO `currency_rate_history` " +
+                    "(`code`, `base_currency`, `timestamp`, `resolution`, `open`, `high`, `low`, `close`) " +
+                    "SELECT `base_currency`, 'USD', `timestamp`, `resolution`, 1.0 / `open`, " +
+                    "1.0 / `low`, 1.0 / `high`, 1.0 / `close` " +
+                    "FROM `currency_rate_history` WHERE `code` = 'USD' AND `base_currency` != 'USD'");
+            db.execSQL("DELETE FROM `currency_rate_history` WHERE `base_currency` != 'USD'");
+        }
+    };
+
+    /**
+     * Миграция 11 -> 12: удаление индекса по expense_date.
+     * Он дублирует префикс index_expenses_date_costs и только замедляет запись.
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_expenses_expense_date`");
+        }
+    };
+
+    /**
+     * Миграция 12 -> 13: category_id в конце индекса index_expenses_date_costs.
+     * Структура затрат исключает доходные категории, и без category_id в индексе
+     * запрос читал каждую строку периода из таблицы вместо покрывающего индекса.
+     */
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_expenses_date_costs`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_date_costs` ON `expenses` " +
+                    "(`expense_date`, `amount`, `is_material_cost`, `is_labor_cost`, `is_capital_cost`, " +
+                    "`is_energy_cost`, `is_other_cost`, `category_id`)");
+        }
+    };
+
+    /**
+     * Триггеры синхронизации, которые Room создает для content-таблицы FTS
+     */
+    private static void createFtsSyncTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_expenses_fts_BEFORE_UPDATE " +
+                "BEFORE UPDATE ON `expenses` BEGIN DELETE FROM `expenses_fts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_expenses_fts_BEFORE_DELETE " +
+                "BEFORE DELETE ON `expenses` BEGIN DELETE FROM `expenses_fts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_expenses_fts_AFTER_UPDATE " +
+                "AFTER UPDATE ON `expenses` BEGIN INSERT INTO `expenses_fts`(`docid`, `title`, `description`) " +
+                "VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_expenses_fts_AFTER_INSERT " +
+                "AFTER INSERT ON `expenses` BEGIN INSERT INTO `expenses_fts`(`docid`, `title`, `description`) " +
+                "VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END");
+    }
+
+    /**
+     * Все миграции по порядку версий
+     */
+    public static final Migration[] ALL = {
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12,
+            MIGRATION_12_13
+    };
+}
@@ -0,0 +1,209 @@
+package com.example.diplom.database;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Планировщик фоновых задач базы данных.
+ * Записи выполняются последовательно в одном потоке (SQLite все равно сериализует запись),
+ * чтения - в отдельном пуле, поэтому чтения для UI не ждут за массовыми вставками.
+ * Внутри каждой очереди задачи упорядочены по приоритету, при равном приоритете - по очереди поступления.
+ * Для каждого тега задачи собирается статистика ожидания и выполнения.
+ */
+public final class DatabaseScheduler {
+
+    private static final String TAG = "DatabaseScheduler";
+
+    // Приоритеты задач: меньше - важнее
+    public static final int PRIORITY_UI = 0;          // Чтения и записи, которых ждет пользователь
+    public static final int PRIORITY_SYNC = 1;        // Фоновая синхронизация
+    public static final int PRIORITY_MAINTENANCE = 2; // Обслуживание: сжатие, пересчеты
+
+    private static final int READ_THREADS = 3;
+    // Задачи, ожидавшие дольше, попадают в лог
+    private static final long SLOW_WAIT_MS = 100;
+
+    private static final DatabaseScheduler INSTANCE = new DatabaseScheduler();
+
+    private final ThreadPoolExecutor writeExecutor;
+    private final ThreadPoolExecutor readExecutor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, TaskMetrics> metrics = new ConcurrentHashMap<>();
+
+    private DatabaseScheduler() {
+        writeExecutor = createExecutor(1, "db-write");
+        readExecutor = createExecutor(READ_THREADS, "db-read");
+    }
+
+    public static DatabaseScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads, String name) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), factory);
+    }
+
+    /**
+     * Ставит задачу чтения в пул чтения
+     * @param tag тег задачи для статистики
+     * @param priority приоритет (PRIORITY_*)
+     * @param task задача
+     */
+    public void read(String tag, int priority, Runnable task) {
+        readExecutor.execute(new PrioritizedTask(tag, priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Ставит задачу записи в единственный поток записи
+     * @param tag тег задачи для статистики
+     * @param priority приоритет (PRIORITY_*)
+     * @param task задача
+     */
+    public void write(String tag, int priority, Runnable task) {
+        writeExecutor.execute(new PrioritizedTask(tag, priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Количество задач чтения, ожидающих выполнения
+     */
+    public int getReadQueueDepth() {
+        return readExecutor.getQueue().size();
+    }
+
+    /**
+     * Количество задач записи, ожидающих выполнения
+     */
+    public int getWriteQueueDepth() {
+        return writeExecutor.getQueue().size();
+    }
+
+    /**
+     * Статистика по тегу задачи
+     * @param tag тег задачи
+     * @return статистика или null, если задач с таким тегом не было
+     */
+    public TaskMetrics getMetrics(String tag) {
+        return metrics.get(tag);
+    }
+
+    /**
+     * Копия статистики по всем тегам
+     */
+    public Map<String, TaskMetrics> getAllMetrics() {
+        return new HashMap<>(metrics);
+    }
+
+    private void record(String tag, long waitMs, long executionMs) {
+        TaskMetrics taskMetrics = metrics.get(tag);
+        if (taskMetrics == null) {
+            metrics.putIfAbsent(tag, new TaskMetrics());
+            taskMetrics = metrics.get(tag);
+        }
+        taskMetrics.record(waitMs, executionMs);
+
+        if (waitMs > SLOW_WAIT_MS) {
+            Log.w(TAG, "Task " + tag + " waited " + waitMs + " ms, executed in " + executionMs +
+                    " ms (queued: reads=" + getReadQueueDepth() + ", writes=" + getWriteQueueDepth() + ")");
+        }
+    }
+
+    /**
+     * Задача с приоритетом и порядковым номером для PriorityBlockingQueue
+     */
+    private final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final String tag;
+        private final int priority;
+        private final long order;
+        private final Runnable task;
+        private final long enqueuedAt = SystemClock.elapsedRealtime();
+
+        PrioritizedTask(String tag, int priority, long order, Runnable task) {
+            this.tag = tag;
+            this.priority = priority;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = SystemClock.elapsedRealtime();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Task " + tag + " failed", e);
+            } finally {
+                record(tag, startedAt - enqueuedAt, SystemClock.elapsedRealtime() - startedAt);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (priority != other.priority) {
+                return Integer.compare(priority, other.priority);
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * Накопленная статистика задач одного тега
+     */
+    public static final class TaskMetrics {
+        private long count;
+        private long totalWaitMs;
+        private long maxWaitMs;
+        private long totalExecutionMs;
+        private long maxExecutionMs;
+
+        synchronized void record(long waitMs, long executionMs) {
+            count++;
+            totalWaitMs += waitMs;
+            maxWaitMs = Math.max(maxWaitMs, waitMs);
+            totalExecutionMs += executionMs;
+            maxExecutionMs = Math.max(maxExecutionMs, executionMs);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getAverageWaitMs() {
+            return count == 0 ? 0 : totalWaitMs / count;
+        }
+
+        public synchronized long getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public synchronized long getAverageExecutionMs() {
+            return count == 0 ? 0 : totalExecutionMs / count;
+        }
+
+        public synchronized long getMaxExecutionMs() {
+            return maxExecutionMs;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "count=" + count + " wait(avg/max)=" + getAverageWaitMs() + "/" + maxWaitMs +
+                    "ms exec(avg/max)=" + getAverageExecutionMs() + "/" + maxExecutionMs + "ms";
+        }
+    }
+}
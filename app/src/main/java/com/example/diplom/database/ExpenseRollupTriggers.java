@@ -0,0 +1,93 @@
+package com.example.diplom.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.diplom.database.entities.ExpenseDailyTotal;
+
+/**
+ * SQL-триггеры, поддерживающие таблицу expense_daily_totals в актуальном состоянии
+ * при вставке, изменении и удалении расходов.
+ */
+public final class ExpenseRollupTriggers {
+
+    private ExpenseRollupTriggers() {
+    }
+
+    /**
+     * Создает триггеры (если их еще нет)
+     * @param db база данных
+     */
+    public static void create(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS expenses_rollup_insert AFTER INSERT ON expenses BEGIN " +
+                addRow("NEW") +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS expenses_rollup_delete AFTER DELETE ON expenses BEGIN " +
+                removeRow("OLD") +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS expenses_rollup_update AFTER UPDATE OF " +
+                "amount, expense_date, category_id, is_material_cost, is_labor_cost, " +
+                "is_capital_cost, is_energy_cost, is_other_cost ON expenses BEGIN " +
+                removeRow("OLD") +
+                addRow("NEW") +
+                "END");
+    }
+
+    /**
+     * Удаляет триггеры
+     * @param db база данных
+     */
+    public static void drop(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS expenses_rollup_insert");
+        db.execSQL("DROP TRIGGER IF EXISTS expenses_rollup_delete");
+        db.execSQL("DROP TRIGGER IF EXISTS expenses_rollup_update");
+    }
+
+    /**
+     * Заполняет пустую таблицу агрегатов по таблице expenses
+     * @param db база данных
+     */
+    public static void fill(SupportSQLiteDatabase db) {
+        db.execSQL("INSERT INTO expense_daily_totals (day, category_key, cost_mask, total, count) " +
+                "SELECT " + keyOf("expenses") + ", SUM(expenses.amount), COUNT(*) " +
+                "FROM expenses WHERE expenses.expense_date IS NOT NULL " +
+                "GROUP BY 1, 2, 3");
+    }
+
+    /**
+     * Пересчитывает агрегаты заново, например после смены часового пояса.
+     * Вызывается внутри транзакции.
+     * @param db база данных
+     */
+    public static void rebuild(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM expense_daily_totals");
+        fill(db);
+    }
+
+    // UPSERT недоступен на SQLite старых версий Android (minSdk 26), поэтому INSERT OR IGNORE + UPDATE
+    private static String addRow(String row) {
+        return "INSERT OR IGNORE INTO expense_daily_totals (day, category_key, cost_mask, total, count) " +
+                "SELECT " + keyOf(row) + ", 0, 0 WHERE " + row + ".expense_date IS NOT NULL; " +
+                "UPDATE expense_daily_totals SET total = total + " + row + ".amount, count = count + 1 " +
+                "WHERE " + row + ".expense_date IS NOT NULL AND " + matchKey(row) + "; ";
+    }
+
+    private static String removeRow(String row) {
+        return "UPDATE expense_daily_totals SET total = total - " + row + ".amount, count = count - 1 " +
+                "WHERE " + row + ".expense_date IS NOT NULL AND " + matchKey(row) + "; " +
+                "DELETE FROM expense_daily_totals WHERE count <= 0 AND " + matchKey(row) + "; ";
+    }
+
+    private static String keyOf(String row) {
+        return ExpenseDailyTotal.dayOf(row) + ", " +
+                ExpenseDailyTotal.categoryKeyOf(row) + ", " +
+                ExpenseDailyTotal.costMaskOf(row);
+    }
+
+    private static String matchKey(String row) {
+        return "day = " + ExpenseDailyTotal.dayOf(row) +
+                " AND category_key = " + ExpenseDailyTotal.categoryKeyOf(row) +
+                " AND cost_mask = " + ExpenseDailyTotal.costMaskOf(row);
+    }
+}
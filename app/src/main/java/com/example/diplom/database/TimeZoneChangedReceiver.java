@@ -0,0 +1,20 @@
+package com.example.diplom.database;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Пересчитывает дневные агрегаты расходов при смене часового пояса устройства.
+ */
+public class TimeZoneChangedReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction())) {
+            return;
+        }
+        PendingResult pendingResult = goAsync();
+        DailyTotalsZoneGuard.check(context, pendingResult::finish);
+    }
+}
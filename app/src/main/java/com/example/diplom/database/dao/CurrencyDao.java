@@ -3,6 +3,7 @@ package com.example.diplom.database.dao;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Query;
+import androidx.room.Upsert;
 
 import com.example.diplom.database.entities.Currency;
 
@@ -11,6 +12,12 @@ import java.util.List;
 @Dao
 public interface CurrencyDao extends BaseDao<Currency> {
 
+    @Upsert
+    void upsertAll(List<Currency> currencies);
+
+    @Query("DELETE FROM currencies WHERE base_currency <> :base")
+    void deleteAllExceptBase(String base);
+
     @Query("SELECT * FROM currencies WHERE id = :id")
     LiveData<Currency> getCurrencyById(int id);
 
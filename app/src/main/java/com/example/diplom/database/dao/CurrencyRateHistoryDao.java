@@ -0,0 +1,96 @@
+package com.example.diplom.database.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.diplom.database.entities.CurrencyRateHistory;
+
+import java.util.List;
+
+@Dao
+public interface CurrencyRateHistoryDao {
+
+    long HOUR_MS = 60L * 60 * 1000;
+    long DAY_MS = 24 * HOUR_MS;
+
+    // Сколько хранить точки каждого разрешения до сжатия
+    long RAW_RETENTION_MS = 2 * DAY_MS;
+    long HOURLY_RETENTION_MS = 90 * DAY_MS;
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<CurrencyRateHistory> points);
+
+    @Query("SELECT * FROM currency_rate_history WHERE code = :code AND base_currency = :base " +
+            "AND timestamp BETWEEN :from AND :to ORDER BY timestamp ASC")
+    LiveData<List<CurrencyRateHistory>> getHistory(String code, String base, long from, long to);
+
+    /**
+     * История курса code относительно base, пересчитанная из точек относительно опорной валюты:
+     * курс в каждой точке равен rate(code) / rate(base). Для опорной валюты в роли code ее курс равен 1.
+     * open и close точные; high и low свечи - границы по экстремумам обоих рядов.
+     */
+    @Query("SELECT :code AS code, :base AS base_currency, b.timestamp AS timestamp, b.resolution AS resolution, " +
+            "IFNULL(c.open, 1.0) / b.open AS open, IFNULL(c.high, 1.0) / b.low AS high, " +
+            "IFNULL(c.low, 1.0) / b.high AS low, IFNULL(c.close, 1.0) / b.close AS close " +
+            "FROM currency_rate_history b " +
+            "LEFT JOIN currency_rate_history c ON c.code = :code AND c.base_currency = :pivot " +
+            "AND c.timestamp = b.timestamp " +
+            "WHERE b.code = :base AND b.base_currency = :pivot AND b.timestamp BETWEEN :from AND :to " +
+            "AND (c.code IS NOT NULL OR :code = :pivot) " +
+            "ORDER BY b.timestamp ASC")
+    LiveData<List<CurrencyRateHistory>> getCrossHistory(String code, String base, String pivot, long from, long to);
+
+    @Query("SELECT * FROM currency_rate_history WHERE code = :code AND base_currency = :base " +
+            "AND timestamp BETWEEN :from AND :to ORDER BY timestamp ASC")
+    List<CurrencyRateHistory> getHistorySync(String code, String base, long from, long to);
+
+    @Query("SELECT * FROM currency_rate_history WHERE code = :code AND base_currency = :base " +
+            "ORDER BY timestamp DESC LIMIT 1")
+    CurrencyRateHistory getLatestPointSync(String code, String base);
+
+    /**
+     * Сворачивает точки разрешения fromResolution старше cutoff в свечи длиной bucketMs.
+     * cutoff должен быть выровнен по границе интервала, чтобы свечи не дробились.
+     */
+    @Query("INSERT OR REPLACE INTO currency_rate_history " +
+            "(code, base_currency, timestamp, resolution, open, high, low, close) " +
+            "SELECT h.code, h.base_currency, (h.timestamp / :bucketMs) * :bucketMs AS bucket_start, :toResolution, " +
+            "(SELECT o.open FROM currency_rate_history o " +
+            "WHERE o.code = h.code AND o.base_currency = h.base_currency AND o.resolution = :fromResolution " +
+            "AND o.timestamp >= (h.timestamp / :bucketMs) * :bucketMs " +
+            "AND o.timestamp < (h.timestamp / :bucketMs) * :bucketMs + :bucketMs " +
+            "ORDER BY o.timestamp ASC LIMIT 1), " +
+            "MAX(h.high), MIN(h.low), " +
+            "(SELECT c.close FROM currency_rate_history c " +
+            "WHERE c.code = h.code AND c.base_currency = h.base_currency AND c.resolution = :fromResolution " +
+            "AND c.timestamp >= (h.timestamp / :bucketMs) * :bucketMs " +
+            "AND c.timestamp < (h.timestamp / :bucketMs) * :bucketMs + :bucketMs " +
+            "ORDER BY c.timestamp DESC LIMIT 1) " +
+            "FROM currency_rate_history h " +
+            "WHERE h.resolution = :fromResolution AND h.timestamp < :cutoff " +
+            "GROUP BY h.code, h.base_currency, bucket_start")
+    void downsample(int fromResolution, int toResolution, long bucketMs, long cutoff);
+
+    @Query("DELETE FROM currency_rate_history WHERE resolution = :resolution AND timestamp < :cutoff")
+    void deleteOlderThan(int resolution, long cutoff);
+
+    /**
+     * Сжимает историю: сырые точки старше двух суток - в часовые свечи,
+     * часовые свечи старше 90 дней - в дневные (по UTC)
+     * @param now текущее время (мс)
+     */
+    @Transaction
+    default void compact(long now) {
+        long hourlyCutoff = ((now - RAW_RETENTION_MS) / HOUR_MS) * HOUR_MS;
+        downsample(CurrencyRateHistory.RESOLUTION_RAW, CurrencyRateHistory.RESOLUTION_HOURLY, HOUR_MS, hourlyCutoff);
+        deleteOlderThan(CurrencyRateHistory.RESOLUTION_RAW, hourlyCutoff);
+
+        long dailyCutoff = ((now - HOURLY_RETENTION_MS) / DAY_MS) * DAY_MS;
+        downsample(CurrencyRateHistory.RESOLUTION_HOURLY, CurrencyRateHistory.RESOLUTION_DAILY, DAY_MS, dailyCutoff);
+        deleteOlderThan(CurrencyRateHistory.RESOLUTION_HOURLY, dailyCutoff);
+    }
+}
@@ -1,16 +1,38 @@
 package com.example.diplom.database.dao;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import com.example.diplom.database.entities.Expense;
+import com.example.diplom.database.entities.ExpenseDailyTotal;
+import com.example.diplom.database.entities.ExpenseFts;
+import com.example.diplom.database.models.CategoryCostBreakdown;
+import com.example.diplom.database.models.CostStructure;
+import com.example.diplom.database.models.ExpenseTotals;
+import com.example.diplom.database.queries.ExpenseFilterQuery;
 
 import java.util.Date;
 import java.util.List;
 
 @Dao
 public interface ExpenseDao extends BaseDao<Expense> {
+
+    String COST_STRUCTURE_QUERY = "SELECT " +
+            "COALESCE(SUM(CASE WHEN is_material_cost = 1 THEN amount END), 0) AS material, " +
+            "COALESCE(SUM(CASE WHEN is_labor_cost = 1 THEN amount END), 0) AS labor, " +
+            "COALESCE(SUM(CASE WHEN is_capital_cost = 1 THEN amount END), 0) AS capital, " +
+            "COALESCE(SUM(CASE WHEN is_energy_cost = 1 THEN amount END), 0) AS energy, " +
+            "COALESCE(SUM(CASE WHEN is_other_cost = 1 THEN amount END), 0) AS other, " +
+            "COALESCE(SUM(amount), 0) AS total, COUNT(*) AS count " +
+            "FROM expenses WHERE expense_date BETWEEN :startDate AND :endDate " +
+            "AND (category_id IS NULL OR category_id NOT IN (SELECT id FROM categories WHERE is_expense = 0))";
+
     @Query("SELECT * FROM expenses WHERE id = :id")
     LiveData<Expense> getExpenseById(int id);
 
@@ -24,26 +46,77 @@ public interface ExpenseDao extends BaseDao<Expense> {
     LiveData<List<Expense>> getExpensesBetweenDates(Date startDate, Date endDate);
 
     @Query("SELECT SUM(amount) FROM expenses WHERE expense_date BETWEEN :startDate AND :endDate")
-    LiveData<Double> getTotalExpensesBetweenDates(Date startDate, Date endDate);
+    LiveData<Long> getTotalExpensesBetweenDates(Date startDate, Date endDate);
+
+    /**
+     * Структура затрат за период: суммы по пяти типам затрат, общая сумма и количество.
+     * Все значения считаются одним проходом по диапазону дат (условная агрегация),
+     * записи в доходных категориях не учитываются.
+     * @param startDate начало периода
+     * @param endDate конец периода
+     * @return LiveData со структурой затрат
+     */
+    @Query(COST_STRUCTURE_QUERY)
+    LiveData<CostStructure> getCostStructureBetweenDates(Date startDate, Date endDate);
+
+    /**
+     * Даты и суммы расходов за период по возрастанию даты для построения временного ряда.
+     * Границы дней, недель и месяцев считает TrendSeries по правилам часового пояса
+     * (с переходами на летнее время), поэтому в SQL группировки нет; запрос читает
+     * только покрывающий индекс index_expenses_date_costs без сортировки.
+     * Курсор возвращается напрямую, чтобы собрать ряд в примитивные массивы без объектов на строку.
+     * @param startDate начало периода
+     * @param endDate конец периода
+     * @return курсор со столбцами expense_date, amount
+     */
+    @Query("SELECT expense_date, amount FROM expenses " +
+            "WHERE expense_date BETWEEN :startDate AND :endDate ORDER BY expense_date")
+    Cursor getTrendPointsCursor(Date startDate, Date endDate);
 
-    @Query("SELECT SUM(amount) FROM expenses WHERE is_material_cost = 1 AND expense_date BETWEEN :startDate AND :endDate")
-    LiveData<Double> getTotalMaterialCostsBetweenDates(Date startDate, Date endDate);
+    /**
+     * Итоги расходов за период по категориям одним проходом по диапазону дат.
+     * @param startDate начало периода
+     * @param endDate конец периода
+     * @return строки по категориям, расходы без категории - в строке с category_id = null
+     */
+    @Query("SELECT e.category_id AS category_id, c.name AS category_name, c.color AS category_color, " +
+            "COALESCE(c.is_expense, 1) AS is_expense, COUNT(*) AS count, SUM(e.amount) AS total " +
+            "FROM expenses e LEFT JOIN categories c ON c.id = e.category_id " +
+            "WHERE e.expense_date BETWEEN :startDate AND :endDate " +
+            "GROUP BY e.category_id ORDER BY total DESC")
+    List<CategoryCostBreakdown> getCategoryCostBreakdownSync(Date startDate, Date endDate);
 
-    @Query("SELECT SUM(amount) FROM expenses WHERE is_labor_cost = 1 AND expense_date BETWEEN :startDate AND :endDate")
-    LiveData<Double> getTotalLaborCostsBetweenDates(Date startDate, Date endDate);
+    /**
+     * Полнотекстовый поиск расходов, наиболее релевантные - первыми
+     * @param match выражение MATCH (см. ExpenseFts.toMatchExpression)
+     * @return LiveData со списком найденных расходов
+     */
+    @Query("SELECT expenses.* FROM expenses JOIN expenses_fts ON expenses_fts.docid = expenses.id " +
+            "WHERE expenses_fts MATCH :match " +
+            "ORDER BY " + ExpenseFts.RANK_EXPRESSION + " DESC, expenses.expense_date DESC")
+    LiveData<List<Expense>> searchExpenses(String match);
 
-    @Query("SELECT SUM(amount) FROM expenses WHERE is_capital_cost = 1 AND expense_date BETWEEN :startDate AND :endDate")
-    LiveData<Double> getTotalCapitalCostsBetweenDates(Date startDate, Date endDate);
+    @RawQuery(observedEntities = {Expense.class, ExpenseFts.class})
+    PagingSource<Integer, Expense> getExpensesPaged(SupportSQLiteQuery query);
 
-    @Query("SELECT SUM(amount) FROM expenses WHERE is_energy_cost = 1 AND expense_date BETWEEN :startDate AND :endDate")
-    LiveData<Double> getTotalEnergyCostsBetweenDates(Date startDate, Date endDate);
+    @RawQuery(observedEntities = {Expense.class, ExpenseFts.class, ExpenseDailyTotal.class})
+    LiveData<ExpenseTotals> getExpenseTotals(SupportSQLiteQuery query);
 
-    @Query("SELECT SUM(amount) FROM expenses WHERE is_other_cost = 1 AND expense_date BETWEEN :startDate AND :endDate")
-    LiveData<Double> getTotalOtherCostsBetweenDates(Date startDate, Date endDate);
+    /**
+     * Постраничная выборка расходов с фильтрами и сортировкой на стороне SQLite
+     * @param filter параметры фильтрации и сортировки
+     * @return источник страниц для Paging 3
+     */
+    default PagingSource<Integer, Expense> getFilteredExpensesPaged(ExpenseFilterQuery filter) {
+        return getExpensesPaged(filter.toSelectQuery());
+    }
 
-    @Query("SELECT * FROM expenses WHERE " +
-            "(title LIKE '%' || :search || '%' OR " +
-            "description LIKE '%' || :search || '%') " +
-            "ORDER BY expense_date DESC")
-    LiveData<List<Expense>> searchExpenses(String search);
+    /**
+     * Количество и сумма расходов, удовлетворяющих фильтру
+     * @param filter параметры фильтрации
+     * @return LiveData с итогами
+     */
+    default LiveData<ExpenseTotals> getFilteredExpenseTotals(ExpenseFilterQuery filter) {
+        return getExpenseTotals(filter.toTotalsQuery());
+    }
 }
\ No newline at end of file
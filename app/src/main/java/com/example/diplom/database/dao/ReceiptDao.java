@@ -0,0 +1,34 @@
+package com.example.diplom.database.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.diplom.database.entities.Receipt;
+import com.example.diplom.database.entities.ReceiptItem;
+
+import java.util.List;
+
+@Dao
+public interface ReceiptDao extends BaseDao<Receipt> {
+
+    /**
+     * Добавляет чек, если чека с такими реквизитами еще нет (уникальный индекс index_receipts_fiscal по fn, fd, fp)
+     * @return rowid добавленного чека или -1, если чек уже импортирован
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertIfAbsent(Receipt receipt);
+
+    @Query("UPDATE receipts SET expense_id = :expenseId WHERE id = :receiptId")
+    void setExpenseId(long receiptId, long expenseId);
+
+    @Query("SELECT * FROM receipts WHERE expense_id = :expenseId LIMIT 1")
+    Receipt getByExpenseIdSync(int expenseId);
+
+    @Query("SELECT * FROM receipt_items WHERE receipt_id = :receiptId ORDER BY id")
+    List<ReceiptItem> getItemsSync(int receiptId);
+
+    @Insert
+    void insertItems(List<ReceiptItem> items);
+}
@@ -3,13 +3,19 @@ package com.example.diplom.database.entities;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
+
+import com.example.diplom.utils.Money;
 
 import java.util.Date;
 
 /**
  * Сущность валюты для хранения в базе данных
  */
-@Entity(tableName = "currencies")
+@Entity(
+        tableName = "currencies",
+        indices = @Index(value = {"code", "base_currency"}, unique = true)
+)
 public class Currency {
     @PrimaryKey(autoGenerate = true)
     private int id;
@@ -20,8 +26,9 @@ public class Currency {
     @ColumnInfo(name = "name")
     private String name;
 
+    // Курс с фиксированной точкой (Money.RATE_SCALE)
     @ColumnInfo(name = "rate")
-    private double rate;
+    private long scaledRate;
 
     @ColumnInfo(name = "base_currency")
     private String baseCurrency;
@@ -29,8 +36,9 @@ public class Currency {
     @ColumnInfo(name = "trend")
     private String trend;
 
+    // Изменение курса с фиксированной точкой (Money.RATE_SCALE)
     @ColumnInfo(name = "change")
-    private double change;
+    private long scaledChange;
 
     @ColumnInfo(name = "change_percentage")
     private double changePercentage;
@@ -66,12 +74,20 @@ public class Currency {
         this.name = name;
     }
 
+    public long getScaledRate() {
+        return scaledRate;
+    }
+
+    public void setScaledRate(long scaledRate) {
+        this.scaledRate = scaledRate;
+    }
+
     public double getRate() {
-        return rate;
+        return Money.rateToDouble(scaledRate);
     }
 
     public void setRate(double rate) {
-        this.rate = rate;
+        this.scaledRate = Money.rateOf(rate);
     }
 
     public String getBaseCurrency() {
@@ -90,12 +106,20 @@ public class Currency {
         this.trend = trend;
     }
 
+    public long getScaledChange() {
+        return scaledChange;
+    }
+
+    public void setScaledChange(long scaledChange) {
+        this.scaledChange = scaledChange;
+    }
+
     public double getChange() {
-        return change;
+        return Money.rateToDouble(scaledChange);
     }
 
     public void setChange(double change) {
-        this.change = change;
+        this.scaledChange = Money.rateOf(change);
     }
 
     public double getChangePercentage() {
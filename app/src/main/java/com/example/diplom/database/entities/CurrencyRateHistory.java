@@ -0,0 +1,140 @@
+package com.example.diplom.database.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Точка истории курса валюты (OHLC).
+ * Сырые точки пишутся при каждом обновлении курсов, старые точки
+ * сжимаются в часовые, а затем в дневные свечи.
+ */
+@Entity(
+        tableName = "currency_rate_history",
+        primaryKeys = {"code", "base_currency", "timestamp"},
+        indices = @Index(value = {"resolution", "timestamp"})
+)
+public class CurrencyRateHistory {
+
+    // Разрешение точки
+    public static final int RESOLUTION_RAW = 0;
+    public static final int RESOLUTION_HOURLY = 1;
+    public static final int RESOLUTION_DAILY = 2;
+
+    @NonNull
+    @ColumnInfo(name = "code")
+    private String code = "";
+
+    @NonNull
+    @ColumnInfo(name = "base_currency")
+    private String baseCurrency = "";
+
+    // Время точки или начало интервала свечи (мс)
+    @ColumnInfo(name = "timestamp")
+    private long timestamp;
+
+    @ColumnInfo(name = "resolution")
+    private int resolution;
+
+    @ColumnInfo(name = "open")
+    private double open;
+
+    @ColumnInfo(name = "high")
+    private double high;
+
+    @ColumnInfo(name = "low")
+    private double low;
+
+    @ColumnInfo(name = "close")
+    private double close;
+
+    /**
+     * Создает сырую точку истории для курса
+     * @param code код валюты
+     * @param baseCurrency базовая валюта
+     * @param timestamp время обновления (мс)
+     * @param rate курс
+     * @return точка истории
+     */
+    public static CurrencyRateHistory rawPoint(@NonNull String code, @NonNull String baseCurrency,
+                                               long timestamp, double rate) {
+        CurrencyRateHistory point = new CurrencyRateHistory();
+        point.setCode(code);
+        point.setBaseCurrency(baseCurrency);
+        point.setTimestamp(timestamp);
+        point.setResolution(RESOLUTION_RAW);
+        point.setOpen(rate);
+        point.setHigh(rate);
+        point.setLow(rate);
+        point.setClose(rate);
+        return point;
+    }
+
+    // Геттеры и сеттеры
+    @NonNull
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(@NonNull String code) {
+        this.code = code;
+    }
+
+    @NonNull
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public void setBaseCurrency(@NonNull String baseCurrency) {
+        this.baseCurrency = baseCurrency;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public int getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(int resolution) {
+        this.resolution = resolution;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public void setOpen(double open) {
+        this.open = open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public void setHigh(double high) {
+        this.high = high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public void setLow(double low) {
+        this.low = low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public void setClose(double close) {
+        this.close = close;
+    }
+}
@@ -18,7 +18,14 @@ import java.util.Date;
                 childColumns = "category_id",
                 onDelete = ForeignKey.SET_NULL
         ),
-        indices = @Index("category_id")
+        indices = {
+                @Index(name = "index_expenses_category_date", value = {"category_id", "expense_date"}),
+                // Запросы по одной дате обслуживает index_expenses_date_costs (expense_date - первая колонка)
+                @Index(name = "index_expenses_date_costs", value = {"expense_date", "amount",
+                        "is_material_cost", "is_labor_cost", "is_capital_cost", "is_energy_cost", "is_other_cost",
+                        "category_id"}),
+                @Index(name = "index_expenses_amount", value = "amount")
+        }
 )
 public class Expense {
     @PrimaryKey(autoGenerate = true)
@@ -26,7 +33,8 @@ public class Expense {
 
     private String title;
 
-    private double amount;
+    // Сумма в копейках (см. Money)
+    private long amount;
 
     private String description;
 
@@ -71,11 +79,11 @@ public class Expense {
         this.title = title;
     }
 
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
@@ -0,0 +1,111 @@
+package com.example.diplom.database.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Дневной агрегат расходов: сумма и количество за день в разрезе категории и типов затрат.
+ * Таблица поддерживается триггерами на таблице expenses (см. ExpenseRollupTriggers).
+ */
+@Entity(
+        tableName = "expense_daily_totals",
+        primaryKeys = {"day", "category_key", "cost_mask"}
+)
+public class ExpenseDailyTotal {
+
+    // Биты маски типов затрат
+    public static final int COST_MATERIAL = 1;
+    public static final int COST_LABOR = 2;
+    public static final int COST_CAPITAL = 4;
+    public static final int COST_ENERGY = 8;
+    public static final int COST_OTHER = 16;
+
+    // Ключ категории для расходов без категории
+    public static final int NO_CATEGORY = 0;
+
+    /**
+     * Номер локального дня (количество дней с 1970-01-01) для строки таблицы expenses.
+     * День зависит от часового пояса устройства, поэтому при его смене агрегаты пересчитываются
+     * (см. DailyTotalsZoneGuard).
+     * @param row строка в SQL: expenses, NEW или OLD
+     */
+    public static String dayOf(String row) {
+        return "CAST(julianday(" + row + ".expense_date / 1000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER)";
+    }
+
+    /**
+     * Маска типов затрат для строки таблицы expenses
+     * @param row строка в SQL: expenses, NEW или OLD
+     */
+    public static String costMaskOf(String row) {
+        return "(" + row + ".is_material_cost * " + COST_MATERIAL +
+                " + " + row + ".is_labor_cost * " + COST_LABOR +
+                " + " + row + ".is_capital_cost * " + COST_CAPITAL +
+                " + " + row + ".is_energy_cost * " + COST_ENERGY +
+                " + " + row + ".is_other_cost * " + COST_OTHER + ")";
+    }
+
+    /**
+     * Ключ категории для строки таблицы expenses
+     * @param row строка в SQL: expenses, NEW или OLD
+     */
+    public static String categoryKeyOf(String row) {
+        return "COALESCE(" + row + ".category_id, " + NO_CATEGORY + ")";
+    }
+
+    @ColumnInfo(name = "day")
+    private long day;
+
+    @ColumnInfo(name = "category_key")
+    private int categoryKey;
+
+    @ColumnInfo(name = "cost_mask")
+    private int costMask;
+
+    @ColumnInfo(name = "total")
+    private long total;
+
+    @ColumnInfo(name = "count")
+    private int count;
+
+    // Геттеры и сеттеры
+    public long getDay() {
+        return day;
+    }
+
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    public int getCategoryKey() {
+        return categoryKey;
+    }
+
+    public void setCategoryKey(int categoryKey) {
+        this.categoryKey = categoryKey;
+    }
+
+    public int getCostMask() {
+        return costMask;
+    }
+
+    public void setCostMask(int costMask) {
+        this.costMask = costMask;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
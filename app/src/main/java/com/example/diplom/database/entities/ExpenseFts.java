@@ -0,0 +1,76 @@
+package com.example.diplom.database.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Полнотекстовый индекс FTS4 по названию и описанию расходов.
+ * Содержимое хранится в таблице expenses, Room синхронизирует индекс триггерами.
+ */
+@Fts4(contentEntity = Expense.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "expenses_fts")
+public class ExpenseFts {
+
+    /**
+     * Количество совпадений в строке (по функции offsets: 4 числа на каждое совпадение)
+     */
+    public static final String RANK_EXPRESSION =
+            "((length(offsets(expenses_fts)) - length(replace(offsets(expenses_fts), ' ', '')) + 1) / 4)";
+
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "description")
+    private String description;
+
+    /**
+     * Преобразует пользовательский ввод в выражение MATCH с поиском по префиксу.
+     * Каждое слово становится термом вида "слово*", термы объединяются по И.
+     * @param input строка поиска
+     * @return выражение для MATCH или null, если слов для поиска нет
+     */
+    public static String toMatchExpression(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            // Пропускаем разделители и символы синтаксиса FTS
+            while (i < length && !Character.isLetterOrDigit(input.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(input.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(input, start, i).append('*');
+            }
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    // Геттеры и сеттеры
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.diplom.database.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.example.diplom.receipts.FiscalReceipt;
+
+/**
+ * Фискальный чек, из которого создан расход.
+ * Реквизиты хранятся целыми числами; уникальный индекс по (fn, fd, fp) не дает импортировать
+ * один и тот же чек дважды. Время чека в ключ не входит: оно переводится в мс по часовому поясу
+ * устройства, и после смены пояса или правил перехода на летнее время тот же чек получил бы другой ключ.
+ */
+@Entity(
+        tableName = "receipts",
+        foreignKeys = @ForeignKey(
+                entity = Expense.class,
+                parentColumns = "id",
+                childColumns = "expense_id",
+                onDelete = ForeignKey.CASCADE
+        ),
+        indices = {
+                @Index(name = "index_receipts_fiscal", value = {"fn", "fd", "fp"},
+                        unique = true),
+                @Index(name = "index_receipts_expense_id", value = "expense_id")
+        }
+)
+public class Receipt {
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    @ColumnInfo(name = "expense_id")
+    private Integer expenseId;
+
+    // Номер фискального накопителя (fn)
+    @ColumnInfo(name = "fn")
+    private long fiscalDriveNumber;
+
+    // Номер фискального документа (i)
+    @ColumnInfo(name = "fd")
+    private long documentNumber;
+
+    // Фискальный признак документа (fp)
+    @ColumnInfo(name = "fp")
+    private long fiscalSign;
+
+    // Время чека (t), мс в часовом поясе устройства на момент импорта; только для отображения
+    @ColumnInfo(name = "receipt_time")
+    private long receiptTime;
+
+    // Сумма чека (s) в копейках
+    @ColumnInfo(name = "amount")
+    private long amount;
+
+    // Тип операции (n)
+    @ColumnInfo(name = "operation_type")
+    private int operationType;
+
+    /**
+     * Создает запись чека по реквизитам из QR-кода
+     * @param fiscalReceipt реквизиты чека
+     * @param expenseId ID созданного расхода
+     * @return запись чека
+     */
+    public static Receipt from(FiscalReceipt fiscalReceipt, Integer expenseId) {
+        Receipt receipt = new Receipt();
+        receipt.setExpenseId(expenseId);
+        receipt.setFiscalDriveNumber(fiscalReceipt.getFiscalDriveNumber());
+        receipt.setDocumentNumber(fiscalReceipt.getDocumentNumber());
+        receipt.setFiscalSign(fiscalReceipt.getFiscalSign());
+        receipt.setReceiptTime(fiscalReceipt.getTimestamp());
+        receipt.setAmount(fiscalReceipt.getAmount());
+        receipt.setOperationType(fiscalReceipt.getOperationType());
+        return receipt;
+    }
+
+    /**
+     * Реквизиты чека для запроса позиций
+     */
+    public FiscalReceipt toFiscalReceipt() {
+        return new FiscalReceipt(fiscalDriveNumber, documentNumber, fiscalSign, receiptTime, amount,
+                operationType);
+    }
+
+    // Геттеры и сеттеры
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public Integer getExpenseId() {
+        return expenseId;
+    }
+
+    public void setExpenseId(Integer expenseId) {
+        this.expenseId = expenseId;
+    }
+
+    public long getFiscalDriveNumber() {
+        return fiscalDriveNumber;
+    }
+
+    public void setFiscalDriveNumber(long fiscalDriveNumber) {
+        this.fiscalDriveNumber = fiscalDriveNumber;
+    }
+
+    public long getDocumentNumber() {
+        return documentNumber;
+    }
+
+    public void setDocumentNumber(long documentNumber) {
+        this.documentNumber = documentNumber;
+    }
+
+    public long getFiscalSign() {
+        return fiscalSign;
+    }
+
+    public void setFiscalSign(long fiscalSign) {
+        this.fiscalSign = fiscalSign;
+    }
+
+    public long getReceiptTime() {
+        return receiptTime;
+    }
+
+    public void setReceiptTime(long receiptTime) {
+        this.receiptTime = receiptTime;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    public int getOperationType() {
+        return operationType;
+    }
+
+    public void setOperationType(int operationType) {
+        this.operationType = operationType;
+    }
+}
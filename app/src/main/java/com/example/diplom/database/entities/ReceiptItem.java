@@ -0,0 +1,101 @@
+package com.example.diplom.database.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Позиция фискального чека.
+ * Цена и сумма хранятся в копейках, количество - в тысячных долях единицы,
+ * поэтому строка занимает несколько целых чисел и название.
+ */
+@Entity(
+        tableName = "receipt_items",
+        foreignKeys = @ForeignKey(
+                entity = Receipt.class,
+                parentColumns = "id",
+                childColumns = "receipt_id",
+                onDelete = ForeignKey.CASCADE
+        ),
+        indices = {@Index(name = "index_receipt_items_receipt_id", value = "receipt_id")}
+)
+public class ReceiptItem {
+
+    // Количество хранится с точностью до 0.001 (граммы, миллилитры)
+    public static final long QUANTITY_SCALE = 1000L;
+
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    @ColumnInfo(name = "receipt_id")
+    private int receiptId;
+
+    @NonNull
+    @ColumnInfo(name = "name")
+    private String name = "";
+
+    // Цена за единицу в копейках
+    @ColumnInfo(name = "price")
+    private long price;
+
+    // Количество в тысячных (1 шт. = 1000)
+    @ColumnInfo(name = "quantity")
+    private long quantity;
+
+    // Стоимость позиции в копейках
+    @ColumnInfo(name = "sum")
+    private long sum;
+
+    // Геттеры и сеттеры
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getReceiptId() {
+        return receiptId;
+    }
+
+    public void setReceiptId(int receiptId) {
+        this.receiptId = receiptId;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public void setPrice(long price) {
+        this.price = price;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.diplom.database.models;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Итоги расходов одной категории за период.
+ * Строки считаются одним сгруппированным запросом (ExpenseDao.getCategoryCostBreakdownSync).
+ * Суммы в копейках.
+ */
+public class CategoryCostBreakdown {
+    @ColumnInfo(name = "category_id")
+    private Integer categoryId;
+
+    @ColumnInfo(name = "category_name")
+    private String categoryName;
+
+    @ColumnInfo(name = "category_color")
+    private String categoryColor;
+
+    @ColumnInfo(name = "is_expense")
+    private boolean isExpense;
+
+    @ColumnInfo(name = "count")
+    private int count;
+
+    @ColumnInfo(name = "total")
+    private long total;
+
+    // Геттеры и сеттеры
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public String getCategoryColor() {
+        return categoryColor;
+    }
+
+    public void setCategoryColor(String categoryColor) {
+        this.categoryColor = categoryColor;
+    }
+
+    public boolean isExpense() {
+        return isExpense;
+    }
+
+    public void setExpense(boolean expense) {
+        isExpense = expense;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.diplom.database.models;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Структура затрат за период: суммы по типам затрат, общая сумма (в копейках) и количество расходов
+ * без учета доходных категорий.
+ * Считается одним проходом по диапазону дат (ExpenseDao.getCostStructureBetweenDates).
+ */
+public class CostStructure {
+    @ColumnInfo(name = "material")
+    private long material;
+
+    @ColumnInfo(name = "labor")
+    private long labor;
+
+    @ColumnInfo(name = "capital")
+    private long capital;
+
+    @ColumnInfo(name = "energy")
+    private long energy;
+
+    @ColumnInfo(name = "other")
+    private long other;
+
+    @ColumnInfo(name = "total")
+    private long total;
+
+    @ColumnInfo(name = "count")
+    private int count;
+
+    // Геттеры и сеттеры
+    public long getMaterial() {
+        return material;
+    }
+
+    public void setMaterial(long material) {
+        this.material = material;
+    }
+
+    public long getLabor() {
+        return labor;
+    }
+
+    public void setLabor(long labor) {
+        this.labor = labor;
+    }
+
+    public long getCapital() {
+        return capital;
+    }
+
+    public void setCapital(long capital) {
+        this.capital = capital;
+    }
+
+    public long getEnergy() {
+        return energy;
+    }
+
+    public void setEnergy(long energy) {
+        this.energy = energy;
+    }
+
+    public long getOther() {
+        return other;
+    }
+
+    public void setOther(long other) {
+        this.other = other;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.diplom.database.models;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Количество и сумма расходов (в копейках), посчитанные в SQL
+ */
+public class ExpenseTotals {
+    @ColumnInfo(name = "count")
+    private int count;
+
+    @ColumnInfo(name = "total")
+    private long total;
+
+    // Геттеры и сеттеры
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
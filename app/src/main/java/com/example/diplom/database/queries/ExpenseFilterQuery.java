@@ -0,0 +1,186 @@
+package com.example.diplom.database.queries;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.example.diplom.database.entities.ExpenseFts;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Неизменяемое описание фильтра и сортировки списка расходов.
+ * Строит SQL-запросы, чтобы фильтрация и сортировка выполнялись на стороне SQLite.
+ */
+public final class ExpenseFilterQuery {
+
+    // Константы для типов сортировки
+    public static final int SORT_DATE_DESC = 0; // По дате (по убыванию)
+    public static final int SORT_DATE_ASC = 1;  // По дате (по возрастанию)
+    public static final int SORT_AMOUNT_DESC = 2; // По сумме (по убыванию)
+    public static final int SORT_AMOUNT_ASC = 3;  // По сумме (по возрастанию)
+    public static final int SORT_TITLE_ASC = 4;  // По названию (A-Z)
+    public static final int SORT_TITLE_DESC = 5;  // По названию (Z-A)
+
+    private final Integer categoryId;
+    private final Date startDate;
+    private final Date endDate;
+    private final String search;
+    private final int sortOrder;
+    private final String matchExpression;
+
+    public ExpenseFilterQuery(Integer categoryId, Date startDate, Date endDate, String search, int sortOrder) {
+        this.categoryId = categoryId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.search = search;
+        this.sortOrder = sortOrder;
+        this.matchExpression = ExpenseFts.toMatchExpression(search);
+    }
+
+    /**
+     * Запрос на выборку расходов с учетом фильтров и сортировки
+     * @return запрос для ExpenseDao
+     */
+    public SupportSQLiteQuery toSelectQuery() {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT expenses.* FROM " + buildFrom() + buildWhere(args) + " ORDER BY " + buildOrderBy();
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Запрос на подсчет количества и суммы отфильтрованных расходов.
+     * Если фильтр покрывает целые дни и не содержит поиска, итоги берутся
+     * из дневных агрегатов expense_daily_totals вместо сканирования expenses.
+     * @return запрос для ExpenseDao
+     */
+    public SupportSQLiteQuery toTotalsQuery() {
+        if (canUseDailyTotals()) {
+            return toDailyTotalsQuery();
+        }
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT COUNT(*) AS count, COALESCE(SUM(amount), 0) AS total FROM " + buildFrom() + buildWhere(args);
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    private boolean canUseDailyTotals() {
+        if (matchExpression != null) {
+            return false;
+        }
+        if (startDate == null || endDate == null) {
+            return true;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate startDay = toLocalDate(startDate, zone);
+        LocalDate endDay = toLocalDate(endDate, zone);
+        // Начало - ровно полночь, конец - последняя миллисекунда дня
+        return startDate.getTime() == startDay.atStartOfDay(zone).toInstant().toEpochMilli()
+                && endDate.getTime() == endDay.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+    }
+
+    private SupportSQLiteQuery toDailyTotalsQuery() {
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder();
+
+        if (categoryId != null) {
+            appendCondition(where, "category_key = ?");
+            args.add(categoryId);
+        }
+
+        if (startDate != null && endDate != null) {
+            ZoneId zone = ZoneId.systemDefault();
+            appendCondition(where, "day BETWEEN ? AND ?");
+            args.add(toLocalDate(startDate, zone).toEpochDay());
+            args.add(toLocalDate(endDate, zone).toEpochDay());
+        }
+
+        String sql = "SELECT COALESCE(SUM(count), 0) AS count, COALESCE(SUM(total), 0) AS total " +
+                "FROM expense_daily_totals" + where;
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    private static LocalDate toLocalDate(Date date, ZoneId zone) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(zone).toLocalDate();
+    }
+
+    private String buildFrom() {
+        // Поиск идет по полнотекстовому индексу, строки расходов берутся по docid
+        return matchExpression != null
+                ? "expenses JOIN expenses_fts ON expenses_fts.docid = expenses.id"
+                : "expenses";
+    }
+
+    private String buildWhere(List<Object> args) {
+        StringBuilder where = new StringBuilder();
+
+        // Фильтр по категории
+        if (categoryId != null) {
+            appendCondition(where, "category_id = ?");
+            args.add(categoryId);
+        }
+
+        // Фильтр по диапазону дат
+        if (startDate != null && endDate != null) {
+            appendCondition(where, "expense_date BETWEEN ? AND ?");
+            args.add(startDate.getTime());
+            args.add(endDate.getTime());
+        }
+
+        // Фильтр по поисковому запросу
+        if (matchExpression != null) {
+            appendCondition(where, "expenses_fts MATCH ?");
+            args.add(matchExpression);
+        }
+
+        return where.toString();
+    }
+
+    private static void appendCondition(StringBuilder where, String condition) {
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+    }
+
+    private String buildOrderBy() {
+        // id добавлен в конец, чтобы порядок был стабильным между страницами
+        switch (sortOrder) {
+            case SORT_DATE_ASC:
+                return "expense_date ASC, expenses.id ASC";
+            case SORT_AMOUNT_DESC:
+                return "amount DESC, expenses.id DESC";
+            case SORT_AMOUNT_ASC:
+                return "amount ASC, expenses.id ASC";
+            case SORT_TITLE_ASC:
+                return "expenses.title COLLATE LOCALIZED ASC, expenses.id ASC";
+            case SORT_TITLE_DESC:
+                return "expenses.title COLLATE LOCALIZED DESC, expenses.id DESC";
+            case SORT_DATE_DESC:
+            default:
+                // При поиске с сортировкой по умолчанию сначала идут наиболее релевантные расходы
+                String relevance = matchExpression != null ? ExpenseFts.RANK_EXPRESSION + " DESC, " : "";
+                return relevance + "expense_date DESC, expenses.id DESC";
+        }
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public String getSearch() {
+        return search;
+    }
+
+    public int getSortOrder() {
+        return sortOrder;
+    }
+}
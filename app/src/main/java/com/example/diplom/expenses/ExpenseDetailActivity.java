@@ -19,15 +19,23 @@ import com.example.diplom.BaseLocaleActivity;
 import com.example.diplom.R;
 import com.example.diplom.database.entities.Category;
 import com.example.diplom.database.entities.Expense;
+import com.example.diplom.database.entities.Receipt;
+import com.example.diplom.database.entities.ReceiptItem;
 import com.example.diplom.databinding.ActivityExpenseDetailBinding;
+import com.example.diplom.receipts.ReceiptDetails;
+import com.example.diplom.receipts.ReceiptStore;
+import com.example.diplom.utils.CurrencyFormatter;
 import com.example.diplom.utils.DateUtils;
 import com.example.diplom.utils.ExpenseCategoryUtils;
+import com.example.diplom.utils.Money;
 import com.google.android.material.datepicker.MaterialDatePicker;
 import com.google.android.material.snackbar.Snackbar;
 
+import java.text.NumberFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Активность для создания и редактирования расходов
@@ -76,6 +84,7 @@ public class ExpenseDetailActivity extends BaseLocaleActivity {
         // Если режим редактирования, загружаем данные расхода
         if (isEditMode) {
             loadExpenseData();
+            loadReceiptDetails();
         }
 
         // Настройка кнопки сохранения
@@ -214,7 +223,7 @@ public class ExpenseDetailActivity extends BaseLocaleActivity {
                     currentExpense = expense;
 
                     binding.expenseTitleEditText.setText(expense.getTitle());
-                    binding.expenseAmountEditText.setText(String.valueOf(expense.getAmount()));
+                    binding.expenseAmountEditText.setText(Money.toPlainString(expense.getAmount()));
                     binding.expenseDescriptionEditText.setText(expense.getDescription());
 
                     // Установка даты
@@ -252,6 +261,49 @@ public class ExpenseDetailActivity extends BaseLocaleActivity {
         });
     }
 
+    /**
+     * Загрузка реквизитов и позиций чека, если расход создан из QR-кода
+     */
+    private void loadReceiptDetails() {
+        ReceiptStore.getInstance(this).loadDetails(expenseId,
+                details -> runOnUiThread(() -> showReceiptDetails(details)));
+    }
+
+    /**
+     * Отображение сведений о чеке
+     * @param details сведения о чеке или null, если расход создан вручную
+     */
+    private void showReceiptDetails(ReceiptDetails details) {
+        if (binding == null) return;
+
+        if (details == null) {
+            binding.receiptDetailsText.setVisibility(View.GONE);
+            return;
+        }
+
+        Receipt receipt = details.getReceipt();
+        StringBuilder text = new StringBuilder(getString(R.string.receipt_fiscal_info,
+                String.valueOf(receipt.getFiscalDriveNumber()),
+                String.valueOf(receipt.getDocumentNumber()),
+                String.valueOf(receipt.getFiscalSign())));
+
+        if (details.hasItems()) {
+            CurrencyFormatter formatter = CurrencyFormatter.forLedger();
+            NumberFormat quantityFormat = NumberFormat.getInstance(Locale.getDefault());
+            quantityFormat.setMaximumFractionDigits(3);
+            for (ReceiptItem item : details.getItems()) {
+                text.append('\n').append(getString(R.string.receipt_line_format,
+                        item.getName(),
+                        quantityFormat.format((double) item.getQuantity() / ReceiptItem.QUANTITY_SCALE),
+                        formatter.formatMinor(item.getPrice()),
+                        formatter.formatMinor(item.getSum())));
+            }
+        }
+
+        binding.receiptDetailsText.setText(text);
+        binding.receiptDetailsText.setVisibility(View.VISIBLE);
+    }
+
     /**
      * Сохранение расхода
      */
@@ -267,9 +319,9 @@ public class ExpenseDetailActivity extends BaseLocaleActivity {
             return;
         }
 
-        double amount;
+        long amount;
         try {
-            amount = Double.parseDouble(binding.expenseAmountEditText.getText().toString().trim());
+            amount = Money.parse(binding.expenseAmountEditText.getText().toString());
         } catch (NumberFormatException e) {
             binding.expenseAmountLayout.setError(getString(R.string.invalid_amount));
             return;
@@ -339,6 +391,7 @@ public class ExpenseDetailActivity extends BaseLocaleActivity {
                 .setMessage(R.string.confirm_delete_expense)
                 .setPositiveButton(R.string.delete, (dialog, which) -> {
                     viewModel.delete(currentExpense);
+                    ReceiptStore.getInstance(this).invalidate(currentExpense.getId());
                     Toast.makeText(this, R.string.expense_deleted, Toast.LENGTH_SHORT).show();
                     finish();
                 })
@@ -0,0 +1,79 @@
+package com.example.diplom.expenses;
+
+import com.example.diplom.database.entities.Expense;
+import com.example.diplom.utils.CurrencyFormatter;
+import com.example.diplom.utils.DateUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Модель строки списка расходов с уже отформатированными суммой и датой.
+ * Строится при загрузке страницы в фоновом потоке, привязка строки
+ * в адаптере не форматирует ничего сама.
+ */
+public final class ExpenseItem {
+
+    private final Expense expense;
+    private final String amountText;
+    private final String dateText;
+
+    private ExpenseItem(Expense expense, String amountText, String dateText) {
+        this.expense = expense;
+        this.amountText = amountText;
+        this.dateText = dateText;
+    }
+
+    // Геттеры
+    public Expense getExpense() {
+        return expense;
+    }
+
+    public String getAmountText() {
+        return amountText;
+    }
+
+    public String getDateText() {
+        return dateText;
+    }
+
+    public boolean hasDescription() {
+        return expense.getDescription() != null && !expense.getDescription().isEmpty();
+    }
+
+    /**
+     * Создает модели строк для одного поколения PagingData.
+     * Границы сегодняшнего дня вычисляются один раз при создании фабрики,
+     * подпись "Сегодня" передается уже локализованной (из контекста активности);
+     * фабрика используется только потоком, в котором отображаются страницы.
+     */
+    public static final class Factory {
+        private final CurrencyFormatter currencyFormatter;
+        private final String todayText;
+        private final long todayStart;
+        private final long tomorrowStart;
+
+        public Factory(String todayText) {
+            currencyFormatter = CurrencyFormatter.forLedger();
+            this.todayText = todayText;
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate today = LocalDate.now(zone);
+            todayStart = today.atStartOfDay(zone).toInstant().toEpochMilli();
+            tomorrowStart = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        public ExpenseItem create(Expense expense) {
+            Date date = expense.getExpenseDate();
+            String dateText;
+            if (date == null) {
+                dateText = "";
+            } else if (date.getTime() >= todayStart && date.getTime() < tomorrowStart) {
+                dateText = todayText;
+            } else {
+                dateText = DateUtils.formatDate(date);
+            }
+            return new ExpenseItem(expense, currencyFormatter.formatMinor(expense.getAmount()), dateText);
+        }
+    }
+}
@@ -1,54 +1,91 @@
 package com.example.diplom.expenses;
 
 import android.app.Application;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
+import androidx.core.util.Pair;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Transformations;
-
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
+import androidx.paging.PagingSource;
+
+import com.example.diplom.R;
 import com.example.diplom.database.AppDatabase;
+import com.example.diplom.database.DatabaseScheduler;
 import com.example.diplom.database.dao.CategoryDao;
 import com.example.diplom.database.dao.ExpenseDao;
 import com.example.diplom.database.entities.Category;
 import com.example.diplom.database.entities.Expense;
+import com.example.diplom.database.models.ExpenseTotals;
+import com.example.diplom.database.queries.ExpenseFilterQuery;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * ViewModel для управления расходами
  */
 public class ExpenseViewModel extends AndroidViewModel {
 
+    private static final int PAGE_SIZE = 50;
+    private static final long DEFAULT_SEARCH_DEBOUNCE_MS = 300;
+
     private final ExpenseDao expenseDao;
     private final CategoryDao categoryDao;
 
-    private final LiveData<List<Expense>> allExpenses;
     private final LiveData<List<Category>> allCategories;
 
     private final MutableLiveData<String> filterCategory = new MutableLiveData<>();
-    private final MutableLiveData<Date> filterStartDate = new MutableLiveData<>();
-    private final MutableLiveData<Date> filterEndDate = new MutableLiveData<>();
+    private final MutableLiveData<Pair<Date, Date>> filterDateRange = new MutableLiveData<>();
     private final MutableLiveData<String> filterSearch = new MutableLiveData<>();
     private final MutableLiveData<Integer> sortOrder = new MutableLiveData<>();
-    private final MutableLiveData<Boolean> dataRefresh = new MutableLiveData<>(false);
 
-    private final MediatorLiveData<List<Expense>> filteredExpenses = new MediatorLiveData<>();
-    private final MediatorLiveData<Double> totalFilteredExpenses = new MediatorLiveData<>();
+    private final MediatorLiveData<ExpenseFilterQuery> currentFilter = new MediatorLiveData<>();
+    private final LiveData<PagingData<ExpenseItem>> pagedExpenses;
+    private final MediatorLiveData<ExpenseTotals> filteredTotals = new MediatorLiveData<>();
+
+    // Один Pager на все фильтры: при смене фильтра текущий источник страниц инвалидируется,
+    // и Pager создает следующий уже по новому фильтру
+    private final Object pagingLock = new Object();
+    private ExpenseFilterQuery pagedFilter = new ExpenseFilterQuery(null, null, null, "", SORT_DATE_DESC);
+    private PagingSource<Integer, Expense> pagingSource;
+    // Подпись "Сегодня" на языке интерфейса активности (контекст приложения может остаться на старом языке)
+    private volatile String todayText;
+
+    // Сброс фильтров меняет несколько значений, но запрос пересобирается один раз
+    private boolean updatingFilters;
+
+    // Строки списка форматируются в одном фоновом потоке при загрузке страниц
+    private final ExecutorService displayExecutor = Executors.newSingleThreadExecutor();
+    private LiveData<ExpenseTotals> totalsSource;
+
+    // Поиск с задержкой: нажатия клавиш объединяются в один запрос
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable applySearchRunnable = this::applyPendingSearch;
+    private final SearchLatencyTracker searchLatencyTracker = new SearchLatencyTracker();
+    private long searchDebounceMillis = DEFAULT_SEARCH_DEBOUNCE_MS;
+    private String pendingSearch = "";
 
     // Константы для типов сортировки
-    public static final int SORT_DATE_DESC = 0; // По дате (по убыванию)
-    public static final int SORT_DATE_ASC = 1;  // По дате (по возрастанию)
-    public static final int SORT_AMOUNT_DESC = 2; // По сумме (по убыванию)
-    public static final int SORT_AMOUNT_ASC = 3;  // По сумме (по возрастанию)
-    public static final int SORT_TITLE_ASC = 4;  // По названию (A-Z)
-    public static final int SORT_TITLE_DESC = 5;  // По названию (Z-A)
+    public static final int SORT_DATE_DESC = ExpenseFilterQuery.SORT_DATE_DESC; // По дате (по убыванию)
+    public static final int SORT_DATE_ASC = ExpenseFilterQuery.SORT_DATE_ASC;  // По дате (по возрастанию)
+    public static final int SORT_AMOUNT_DESC = ExpenseFilterQuery.SORT_AMOUNT_DESC; // По сумме (по убыванию)
+    public static final int SORT_AMOUNT_ASC = ExpenseFilterQuery.SORT_AMOUNT_ASC;  // По сумме (по возрастанию)
+    public static final int SORT_TITLE_ASC = ExpenseFilterQuery.SORT_TITLE_ASC;  // По названию (A-Z)
+    public static final int SORT_TITLE_DESC = ExpenseFilterQuery.SORT_TITLE_DESC;  // По названию (Z-A)
 
     public ExpenseViewModel(@NonNull Application application) {
         super(application);
@@ -58,140 +95,137 @@ public class ExpenseViewModel extends AndroidViewModel {
         expenseDao = database.expenseDao();
         categoryDao = database.categoryDao();
 
-        // Получение всех расходов и категорий
-        allExpenses = expenseDao.getAllExpenses();
+        // Получение категорий
         allCategories = categoryDao.getCategoriesByType(true); // true = расходные категории
 
         // Установка значений по умолчанию
         sortOrder.setValue(SORT_DATE_DESC);
         filterSearch.setValue("");
 
-        // Настройка MediatorLiveData для обработки фильтров и сортировки
-        filteredExpenses.addSource(allExpenses, expenses -> applyFiltersAndSort());
-        filteredExpenses.addSource(filterCategory, category -> applyFiltersAndSort());
-        filteredExpenses.addSource(filterStartDate, date -> applyFiltersAndSort());
-        filteredExpenses.addSource(filterEndDate, date -> applyFiltersAndSort());
-        filteredExpenses.addSource(filterSearch, search -> applyFiltersAndSort());
-        filteredExpenses.addSource(sortOrder, order -> applyFiltersAndSort());
-        filteredExpenses.addSource(dataRefresh, refresh -> applyFiltersAndSort());
-
-        // Расчет общей суммы отфильтрованных расходов
-        totalFilteredExpenses.addSource(filteredExpenses, expenses -> {
-            if (expenses != null) {
-                double total = 0;
-                for (Expense expense : expenses) {
-                    total += expense.getAmount();
-                }
-                totalFilteredExpenses.setValue(total);
-            } else {
-                totalFilteredExpenses.setValue(0.0);
-            }
+        // Любое изменение фильтров пересобирает запрос к базе данных
+        currentFilter.addSource(allCategories, categories -> updateFilter());
+        currentFilter.addSource(filterCategory, category -> updateFilter());
+        currentFilter.addSource(filterDateRange, range -> updateFilter());
+        currentFilter.addSource(filterSearch, search -> updateFilter());
+        currentFilter.addSource(sortOrder, order -> updateFilter());
+
+        Pager<Integer, Expense> pager = new Pager<>(
+                new PagingConfig(PAGE_SIZE, PAGE_SIZE, false),
+                this::createPagingSource
+        );
+        // Каждое поколение страниц получает свою фабрику строк (с актуальной датой "сегодня")
+        MediatorLiveData<PagingData<ExpenseItem>> itemPages = new MediatorLiveData<>();
+        // Фильтр подключается первым, чтобы первый источник страниц уже учитывал его
+        itemPages.addSource(currentFilter, this::switchPagedSource);
+        itemPages.addSource(PagingLiveData.getLiveData(pager), pagingData -> {
+            ExpenseItem.Factory factory = new ExpenseItem.Factory(getTodayText());
+            itemPages.setValue(PagingDataTransforms.map(pagingData, displayExecutor, factory::create));
         });
-    }
+        pagedExpenses = PagingLiveData.cachedIn(itemPages, ViewModelKt.getViewModelScope(this));
 
-    /**
-     * Обновляет данные (используется при возвращении на экран расходов)
-     */
-    public void refreshData() {
-        dataRefresh.setValue(!dataRefresh.getValue());
+        // Для каждого нового фильтра создается свой источник итогов
+        filteredTotals.addSource(currentFilter, this::switchTotalsSource);
     }
 
     /**
-     * Применение фильтров и сортировки к списку расходов
+     * Собирает текущие значения фильтров в один запрос
      */
-    private void applyFiltersAndSort() {
-        List<Expense> expenses = allExpenses.getValue();
-        if (expenses == null) {
-            filteredExpenses.setValue(new ArrayList<>());
+    private void updateFilter() {
+        if (updatingFilters) {
             return;
         }
 
-        List<Expense> result = new ArrayList<>(expenses);
-
-        // Применение фильтра по категории
+        Integer categoryId = null;
         String category = filterCategory.getValue();
         if (category != null && !category.isEmpty()) {
             // Получаем ID категории по имени
-            Integer categoryId = getCategoryIdByName(category);
-            if (categoryId != -1) {
-                result.removeIf(expense -> expense.getCategoryId() == null || !expense.getCategoryId().equals(categoryId));
+            int id = getCategoryIdByName(category);
+            if (id != -1) {
+                categoryId = id;
             }
         }
 
-        // Применение фильтра по диапазону дат
-        Date startDate = filterStartDate.getValue();
-        Date endDate = filterEndDate.getValue();
-        if (startDate != null && endDate != null) {
-            result.removeIf(expense -> {
-                Date expenseDate = expense.getExpenseDate();
-                return expenseDate == null || expenseDate.before(startDate) || expenseDate.after(endDate);
-            });
+        Integer order = sortOrder.getValue();
+        Pair<Date, Date> dateRange = filterDateRange.getValue();
+        currentFilter.setValue(new ExpenseFilterQuery(
+                categoryId,
+                dateRange != null ? dateRange.first : null,
+                dateRange != null ? dateRange.second : null,
+                filterSearch.getValue(),
+                order != null ? order : SORT_DATE_DESC
+        ));
+    }
+
+    /**
+     * Создает источник страниц по текущему фильтру (вызывается Pager для каждого поколения)
+     */
+    private PagingSource<Integer, Expense> createPagingSource() {
+        synchronized (pagingLock) {
+            pagingSource = expenseDao.getFilteredExpensesPaged(pagedFilter);
+            return pagingSource;
         }
+    }
 
-        // Применение фильтра по поиску
-        String search = filterSearch.getValue();
-        if (search != null && !search.isEmpty()) {
-            String searchLower = search.toLowerCase();
-            result.removeIf(expense ->
-                    (expense.getTitle() == null || !expense.getTitle().toLowerCase().contains(searchLower)) &&
-                            (expense.getDescription() == null || !expense.getDescription().toLowerCase().contains(searchLower))
-            );
+    /**
+     * Передает локализованный контекст активности для форматирования строк списка.
+     * Сам контекст не сохраняется; при смене языка страницы пересоздаются с новой подписью.
+     * @param context контекст активности с примененной локалью
+     */
+    public void setDisplayContext(Context context) {
+        String text = context.getString(R.string.today);
+        if (text.equals(todayText)) {
+            return;
+        }
+        PagingSource<Integer, Expense> current;
+        synchronized (pagingLock) {
+            todayText = text;
+            current = pagingSource;
         }
+        if (current != null) {
+            current.invalidate();
+        }
+    }
 
-        // Применение сортировки
-        Integer currentSortOrder = sortOrder.getValue();
-        if (currentSortOrder != null) {
-            switch (currentSortOrder) {
-                case SORT_DATE_DESC:
-                    Collections.sort(result, (e1, e2) -> {
-                        if (e1.getExpenseDate() == null || e2.getExpenseDate() == null) {
-                            return 0;
-                        }
-                        return e2.getExpenseDate().compareTo(e1.getExpenseDate());
-                    });
-                    break;
-                case SORT_DATE_ASC:
-                    Collections.sort(result, (e1, e2) -> {
-                        if (e1.getExpenseDate() == null || e2.getExpenseDate() == null) {
-                            return 0;
-                        }
-                        return e1.getExpenseDate().compareTo(e2.getExpenseDate());
-                    });
-                    break;
-                case SORT_AMOUNT_DESC:
-                    Collections.sort(result, (e1, e2) -> Double.compare(e2.getAmount(), e1.getAmount()));
-                    break;
-                case SORT_AMOUNT_ASC:
-                    Collections.sort(result, (e1, e2) -> Double.compare(e1.getAmount(), e2.getAmount()));
-                    break;
-                case SORT_TITLE_ASC:
-                    Collections.sort(result, (e1, e2) -> {
-                        if (e1.getTitle() == null || e2.getTitle() == null) {
-                            return 0;
-                        }
-                        return e1.getTitle().compareToIgnoreCase(e2.getTitle());
-                    });
-                    break;
-                case SORT_TITLE_DESC:
-                    Collections.sort(result, (e1, e2) -> {
-                        if (e1.getTitle() == null || e2.getTitle() == null) {
-                            return 0;
-                        }
-                        return e2.getTitle().compareToIgnoreCase(e1.getTitle());
-                    });
-                    break;
-            }
+    private String getTodayText() {
+        String text = todayText;
+        return text != null ? text : getApplication().getString(R.string.today);
+    }
+
+    /**
+     * Переключает постраничный источник расходов на новый фильтр
+     * @param filter параметры фильтрации и сортировки
+     */
+    private void switchPagedSource(ExpenseFilterQuery filter) {
+        PagingSource<Integer, Expense> previous;
+        synchronized (pagingLock) {
+            pagedFilter = filter;
+            previous = pagingSource;
+        }
+        // Источник, созданный после смены фильтра, уже использует новый фильтр
+        if (previous != null) {
+            previous.invalidate();
         }
+    }
 
-        filteredExpenses.setValue(result);
+    /**
+     * Переключает источник итогов (количество и сумма) на новый фильтр
+     * @param filter параметры фильтрации
+     */
+    private void switchTotalsSource(ExpenseFilterQuery filter) {
+        if (totalsSource != null) {
+            filteredTotals.removeSource(totalsSource);
+        }
+        totalsSource = expenseDao.getFilteredExpenseTotals(filter);
+        // Источник предыдущего фильтра уже удален, поэтому устаревшие результаты не публикуются
+        filteredTotals.addSource(totalsSource, filteredTotals::setValue);
     }
 
     /**
      * Получение ID категории по имени
      * @param categoryName имя категории
-     * @return ID категории или null, если не найдена
+     * @return ID категории или -1, если не найдена
      */
-    private Integer getCategoryIdByName(String categoryName) {
+    private int getCategoryIdByName(String categoryName) {
         List<Category> categories = allCategories.getValue();
         if (categories != null) {
             for (Category category : categories) {
@@ -241,16 +275,66 @@ public class ExpenseViewModel extends AndroidViewModel {
      * @param endDate конечная дата
      */
     public void setFilterDateRange(Date startDate, Date endDate) {
-        filterStartDate.setValue(startDate);
-        filterEndDate.setValue(endDate);
+        // Обе границы публикуются одним значением, чтобы запрос пересобирался один раз
+        filterDateRange.setValue(startDate != null && endDate != null ? Pair.create(startDate, endDate) : null);
     }
 
     /**
-     * Устанавливает фильтр по поисковому запросу
+     * Устанавливает фильтр по поисковому запросу.
+     * Запрос применяется после паузы в наборе, промежуточные значения отбрасываются.
      * @param search поисковый запрос
      */
     public void setFilterSearch(String search) {
-        filterSearch.setValue(search);
+        searchLatencyTracker.onKeystroke();
+        pendingSearch = search;
+        searchHandler.removeCallbacks(applySearchRunnable);
+        if (search == null || search.isEmpty() || searchDebounceMillis <= 0) {
+            // Очистку поиска применяем сразу
+            applyPendingSearch();
+        } else {
+            searchHandler.postDelayed(applySearchRunnable, searchDebounceMillis);
+        }
+    }
+
+    /**
+     * Немедленно применяет поисковый запрос (например, при нажатии "Поиск")
+     * @param search поисковый запрос
+     */
+    public void submitSearch(String search) {
+        searchHandler.removeCallbacks(applySearchRunnable);
+        pendingSearch = search;
+        applyPendingSearch();
+    }
+
+    /**
+     * Устанавливает окно объединения нажатий клавиш при поиске
+     * @param millis задержка в миллисекундах (0 - без задержки)
+     */
+    public void setSearchDebounceMillis(long millis) {
+        searchDebounceMillis = Math.max(0, millis);
+    }
+
+    private void applyPendingSearch() {
+        if (!Objects.equals(filterSearch.getValue(), pendingSearch)) {
+            searchLatencyTracker.onQueryDispatched(pendingSearch);
+            filterSearch.setValue(pendingSearch);
+        }
+    }
+
+    /**
+     * Отмечает показ первой страницы нового поколения списка
+     * (вызывается, когда адаптер завершает обновление страниц)
+     */
+    public void onFirstPageLoaded() {
+        searchLatencyTracker.onResults();
+    }
+
+    /**
+     * Метрики задержки поиска
+     * @return трекер задержек от ввода до результатов
+     */
+    public SearchLatencyTracker getSearchLatencyTracker() {
+        return searchLatencyTracker;
     }
 
     /**
@@ -265,11 +349,15 @@ public class ExpenseViewModel extends AndroidViewModel {
      * Сбрасывает все фильтры
      */
     public void resetFilters() {
+        searchHandler.removeCallbacks(applySearchRunnable);
+        pendingSearch = "";
+        updatingFilters = true;
         filterCategory.setValue(null);
-        filterStartDate.setValue(null);
-        filterEndDate.setValue(null);
+        filterDateRange.setValue(null);
         filterSearch.setValue("");
         sortOrder.setValue(SORT_DATE_DESC);
+        updatingFilters = false;
+        updateFilter();
     }
 
     /**
@@ -277,10 +365,8 @@ public class ExpenseViewModel extends AndroidViewModel {
      * @param expense расход для добавления
      */
     public void insert(Expense expense) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        DatabaseScheduler.getInstance().write("expense_insert", DatabaseScheduler.PRIORITY_UI, () -> {
             expenseDao.insert(expense);
-            // Обновляем данные после вставки
-//            refreshData();
         });
     }
 
@@ -289,10 +375,8 @@ public class ExpenseViewModel extends AndroidViewModel {
      * @param expense расход для обновления
      */
     public void update(Expense expense) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        DatabaseScheduler.getInstance().write("expense_update", DatabaseScheduler.PRIORITY_UI, () -> {
             expenseDao.update(expense);
-            // Обновляем данные после обновления
-//            refreshData();
         });
     }
 
@@ -301,10 +385,8 @@ public class ExpenseViewModel extends AndroidViewModel {
      * @param expense расход для удаления
      */
     public void delete(Expense expense) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        DatabaseScheduler.getInstance().write("expense_delete", DatabaseScheduler.PRIORITY_UI, () -> {
             expenseDao.delete(expense);
-            // Обновляем данные после удаления
-//            refreshData();
         });
     }
 
@@ -318,27 +400,19 @@ public class ExpenseViewModel extends AndroidViewModel {
     }
 
     /**
-     * Получает все расходы
-     * @return LiveData со списком всех расходов
+     * Получает отфильтрованные расходы постранично
+     * @return LiveData со страницами строк отфильтрованных расходов
      */
-    public LiveData<List<Expense>> getAllExpenses() {
-        return allExpenses;
+    public LiveData<PagingData<ExpenseItem>> getPagedExpenses() {
+        return pagedExpenses;
     }
 
     /**
-     * Получает отфильтрованные расходы
-     * @return LiveData со списком отфильтрованных расходов
+     * Получает количество и общую сумму отфильтрованных расходов
+     * @return LiveData с итогами
      */
-    public LiveData<List<Expense>> getFilteredExpenses() {
-        return filteredExpenses;
-    }
-
-    /**
-     * Получает общую сумму отфильтрованных расходов
-     * @return LiveData с общей суммой
-     */
-    public LiveData<Double> getTotalFilteredExpenses() {
-        return totalFilteredExpenses;
+    public LiveData<ExpenseTotals> getFilteredTotals() {
+        return filteredTotals;
     }
 
     /**
@@ -348,4 +422,11 @@ public class ExpenseViewModel extends AndroidViewModel {
     public LiveData<List<Category>> getAllCategories() {
         return allCategories;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        searchHandler.removeCallbacks(applySearchRunnable);
+        displayExecutor.shutdown();
+    }
+}
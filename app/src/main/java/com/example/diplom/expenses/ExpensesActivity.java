@@ -2,6 +2,7 @@ package com.example.diplom.expenses;
 
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.Menu;
@@ -18,18 +19,17 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.diplom.BaseLocaleActivity;
 import com.example.diplom.R;
-import com.example.diplom.database.AppDatabase;
-import com.example.diplom.database.dao.ExpenseDao;
 import com.example.diplom.database.entities.Category;
 import com.example.diplom.database.entities.Expense;
 import com.example.diplom.databinding.ActivityExpensesBinding;
 import com.example.diplom.expenses.adapters.ExpenseAdapter;
+import com.example.diplom.receipts.ReceiptImporter;
 import com.example.diplom.utils.CurrencyFormatter;
-import com.example.diplom.utils.QRReceiptParser;
 import com.google.android.material.datepicker.MaterialDatePicker;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.snackbar.Snackbar;
@@ -39,24 +39,35 @@ import com.journeyapps.barcodescanner.ScanOptions;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import kotlin.Unit;
+
 /**
  * Активность для управления расходами
  */
 public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapter.OnExpenseClickListener {
 
     private static final String TAG = "ExpensesActivity";
+    private static final String STATE_SERIES_MODE = "state_series_mode";
+    private static final String STATE_SERIES_PAYLOADS = "state_series_payloads";
 
     private ActivityExpensesBinding binding;
     private ExpenseViewModel viewModel;
     private ExpenseAdapter adapter;
+    private boolean pagesRefreshing;
     private Map<Integer, Category> categoriesMap = new HashMap<>();
     private SearchView searchView;
     private ActivityResultLauncher<ScanOptions> barcodeLauncher;
     private ActivityResultLauncher<String> requestPermissionLauncher;
+    private ActivityResultLauncher<String[]> importFileLauncher;
+
+    // Серийное сканирование: QR-коды копятся и импортируются одним пакетом после отмены сканера
+    private boolean seriesMode;
+    private ArrayList<String> seriesPayloads = new ArrayList<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -74,6 +85,15 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
 
             // Инициализация ViewModel
             viewModel = new ViewModelProvider(this).get(ExpenseViewModel.class);
+            viewModel.setDisplayContext(this);
+
+            if (savedInstanceState != null) {
+                seriesMode = savedInstanceState.getBoolean(STATE_SERIES_MODE);
+                ArrayList<String> payloads = savedInstanceState.getStringArrayList(STATE_SERIES_PAYLOADS);
+                if (payloads != null) {
+                    seriesPayloads = payloads;
+                }
+            }
 
             // Настройка RecyclerView
             setupRecyclerView();
@@ -95,6 +115,7 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
 
             // Добавление слушателя для кнопки сканирования
             binding.scanReceiptFab.setOnClickListener(v -> {
+                seriesMode = false;
                 checkCameraPermissionAndScan();
             });
 
@@ -104,17 +125,10 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        try {
-            // Обновляем данные при возвращении на активность
-            // (например, после редактирования или добавления расхода)
-            if (viewModel != null) {
-                viewModel.refreshData();
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error in onResume: ", e);
-        }
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(STATE_SERIES_MODE, seriesMode);
+        outState.putStringArrayList(STATE_SERIES_PAYLOADS, seriesPayloads);
     }
 
     @Override
@@ -133,7 +147,7 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
                         @Override
                         public boolean onQueryTextSubmit(String query) {
                             if (viewModel != null) {
-                                viewModel.setFilterSearch(query);
+                                viewModel.submitSearch(query);
                             }
                             searchView.clearFocus();
                             return true;
@@ -184,6 +198,14 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
             } else if (id == R.id.action_sort) {
                 showSortDialog();
                 return true;
+            } else if (id == R.id.action_scan_series) {
+                seriesMode = true;
+                seriesPayloads.clear();
+                checkCameraPermissionAndScan();
+                return true;
+            } else if (id == R.id.action_import_receipts) {
+                importFileLauncher.launch(new String[]{"text/*"});
+                return true;
             }
         } catch (Exception e) {
             Log.e(TAG, "Error in onOptionsItemSelected: ", e);
@@ -199,6 +221,15 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
             adapter = new ExpenseAdapter();
             adapter.setOnExpenseClickListener(this);
             binding.expensesRecyclerView.setAdapter(adapter);
+            // Задержка поиска считается до показа первой страницы нового поколения списка
+            adapter.addLoadStateListener(loadStates -> {
+                boolean refreshing = loadStates.getRefresh() instanceof LoadState.Loading;
+                if (pagesRefreshing && !refreshing) {
+                    viewModel.onFirstPageLoaded();
+                }
+                pagesRefreshing = refreshing;
+                return Unit.INSTANCE;
+            });
             binding.expensesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         } catch (Exception e) {
             Log.e(TAG, "Error in setupRecyclerView: ", e);
@@ -359,34 +390,32 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
      */
     private void observeData() {
         try {
-            // Наблюдение за отфильтрованными расходами
-            viewModel.getFilteredExpenses().observe(this, expenses -> {
+            // Наблюдение за страницами отфильтрованных расходов
+            viewModel.getPagedExpenses().observe(this, pagingData -> {
                 try {
-                    if (expenses != null && !expenses.isEmpty()) {
-                        binding.noExpensesText.setVisibility(View.GONE);
-                        binding.expensesRecyclerView.setVisibility(View.VISIBLE);
-                        adapter.submitList(expenses);
-
-                        // Обновление счетчика количества расходов
-                        binding.expensesCountText.setText(getString(R.string.expenses_count, expenses.size()));
-                    } else {
-                        binding.noExpensesText.setVisibility(View.VISIBLE);
-                        binding.expensesRecyclerView.setVisibility(View.GONE);
-                        binding.expensesCountText.setText(getString(R.string.expenses_count, 0));
-                    }
+                    adapter.submitData(getLifecycle(), pagingData);
                 } catch (Exception e) {
                     Log.e(TAG, "Error updating expenses list: ", e);
                 }
             });
 
-            // Наблюдение за общей суммой расходов
-            viewModel.getTotalFilteredExpenses().observe(this, total -> {
+            // Наблюдение за количеством и общей суммой расходов
+            viewModel.getFilteredTotals().observe(this, totals -> {
                 try {
-                    if (total != null) {
-                        binding.totalAmountText.setText(CurrencyFormatter.format(total));
+                    int count = totals != null ? totals.getCount() : 0;
+                    long total = totals != null ? totals.getTotal() : 0;
+
+                    if (count > 0) {
+                        binding.noExpensesText.setVisibility(View.GONE);
+                        binding.expensesRecyclerView.setVisibility(View.VISIBLE);
                     } else {
-                        binding.totalAmountText.setText(CurrencyFormatter.format(0));
+                        binding.noExpensesText.setVisibility(View.VISIBLE);
+                        binding.expensesRecyclerView.setVisibility(View.GONE);
                     }
+
+                    // Обновление счетчика количества расходов
+                    binding.expensesCountText.setText(getString(R.string.expenses_count, count));
+                    binding.totalAmountText.setText(CurrencyFormatter.forLedger().formatMinor(total));
                 } catch (Exception e) {
                     Log.e(TAG, "Error updating total amount: ", e);
                 }
@@ -475,8 +504,10 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
         // Регистрация launcher для результата сканирования
         barcodeLauncher = registerForActivityResult(new ScanContract(),
                 result -> {
-                    if (result.getContents() == null) {
-                        Snackbar.make(binding.getRoot(), "Сканирование отменено", Snackbar.LENGTH_SHORT).show();
+                    if (seriesMode) {
+                        handleSeriesResult(result.getContents());
+                    } else if (result.getContents() == null) {
+                        Snackbar.make(binding.getRoot(), R.string.scanning_cancelled, Snackbar.LENGTH_SHORT).show();
                     } else {
                         // Обработка результата сканирования
                         handleQRResult(result.getContents());
@@ -490,11 +521,17 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
                     if (isGranted) {
                         startQRScanning();
                     } else {
+                        seriesMode = false;
                         Snackbar.make(binding.getRoot(),
-                                "Для сканирования QR-кода необходимо разрешение камеры",
+                                R.string.camera_permission_required,
                                 Snackbar.LENGTH_LONG).show();
                     }
                 });
+
+        // Регистрация launcher для выбора файла с QR-кодами чеков
+        importFileLauncher = registerForActivityResult(
+                new ActivityResultContracts.OpenDocument(),
+                this::importReceiptsFromFile);
     }
 
     /**
@@ -515,10 +552,14 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
     private void startQRScanning() {
         ScanOptions options = new ScanOptions();
         options.setDesiredBarcodeFormats(ScanOptions.QR_CODE);
-        options.setPrompt("Отсканируйте QR-код чека");
+        if (seriesMode) {
+            options.setPrompt(getString(R.string.scan_series_prompt, seriesPayloads.size()));
+        } else {
+            options.setPrompt(getString(R.string.scan_qr_prompt));
+        }
         options.setCameraId(0);
         options.setBeepEnabled(true);
-        options.setBarcodeImageEnabled(true);
+        options.setBarcodeImageEnabled(!seriesMode);
         barcodeLauncher.launch(options);
     }
 
@@ -527,38 +568,77 @@ public class ExpensesActivity extends BaseLocaleActivity implements ExpenseAdapt
      * @param qrContent содержимое QR-кода
      */
     private void handleQRResult(String qrContent) {
-        // Извлекаем сумму из QR-кода
-        Double amount = QRReceiptParser.extractAmount(qrContent);
-
-        if (amount != null) {
-            // Создаем новый расход
-            Expense expense = new Expense();
-            expense.setTitle("Из чека");
-            expense.setAmount(amount);
-            expense.setCreatedAt(new Date());
-            expense.setDescription("Отсканировано из QR-кода чека");
-            var date = QRReceiptParser.extractDateTime(qrContent);
-            if (date != null)
-                expense.setExpenseDate(date);
-            else
-                expense.setExpenseDate(new Date());
-
-            // Сохраняем расход в базу данных
-            AppDatabase.databaseWriteExecutor.execute(() -> {
-                ExpenseDao expenseDao = AppDatabase.getDatabase(this).expenseDao();
-                expenseDao.insert(expense);
-
-                runOnUiThread(() -> {
-                    Snackbar.make(binding.getRoot(),
-                            String.format("Добавлен расход: %.2f ₽", amount),
-                            Snackbar.LENGTH_LONG).show();
-                });
-            });
-        } else {
+        ReceiptImporter.getInstance(this).importPayloads(this, Collections.singletonList(qrContent),
+                result -> runOnUiThread(() -> {
+                    if (binding == null) return;
+
+                    if (result == null) {
+                        Snackbar.make(binding.getRoot(), R.string.receipts_import_failed, Snackbar.LENGTH_LONG).show();
+                    } else if (result.getInserted() > 0) {
+                        String amount = CurrencyFormatter.forLedger().formatMinor(result.getInsertedAmount());
+                        Snackbar.make(binding.getRoot(),
+                                getString(R.string.expense_added_format, amount),
+                                Snackbar.LENGTH_LONG).show();
+                    } else if (result.getDuplicates() > 0) {
+                        Snackbar.make(binding.getRoot(), R.string.receipt_already_added, Snackbar.LENGTH_LONG).show();
+                    } else if (result.getRefunds() > 0) {
+                        Snackbar.make(binding.getRoot(), R.string.receipt_refund_skipped, Snackbar.LENGTH_LONG).show();
+                    } else {
+                        Snackbar.make(binding.getRoot(), R.string.qr_parse_error, Snackbar.LENGTH_LONG).show();
+                    }
+                }));
+    }
+
+    /**
+     * Серийное сканирование: сохраняет QR-код и снова открывает сканер,
+     * а после отмены импортирует все накопленные коды одним пакетом
+     * @param qrContent содержимое QR-кода или null, если сканер закрыт
+     */
+    private void handleSeriesResult(String qrContent) {
+        if (qrContent != null) {
+            seriesPayloads.add(qrContent);
+            startQRScanning();
+            return;
+        }
+
+        seriesMode = false;
+        if (seriesPayloads.isEmpty()) {
+            Snackbar.make(binding.getRoot(), R.string.scanning_cancelled, Snackbar.LENGTH_SHORT).show();
+            return;
+        }
+        List<String> payloads = new ArrayList<>(seriesPayloads);
+        seriesPayloads.clear();
+        ReceiptImporter.getInstance(this).importPayloads(this, payloads, this::showImportResult);
+    }
+
+    /**
+     * Импортирует QR-коды чеков из выбранного текстового файла
+     * @param uri файл или null, если выбор отменен
+     */
+    private void importReceiptsFromFile(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        ReceiptImporter.getInstance(this).importFromUri(this, uri, this::showImportResult);
+    }
+
+    /**
+     * Показывает итоги пакетного импорта чеков
+     * @param result итоги или null, если файл не удалось прочитать или записать чеки
+     */
+    private void showImportResult(ReceiptImporter.ImportResult result) {
+        runOnUiThread(() -> {
+            if (binding == null) return;
+
+            if (result == null) {
+                Snackbar.make(binding.getRoot(), R.string.receipts_import_failed, Snackbar.LENGTH_LONG).show();
+                return;
+            }
             Snackbar.make(binding.getRoot(),
-                    "Не удалось извлечь сумму из QR-кода",
+                    getString(R.string.receipts_import_result, result.getInserted(), result.getDuplicates(),
+                            result.getInvalid(), result.getRefunds()),
                     Snackbar.LENGTH_LONG).show();
-        }
+        });
     }
 
 }
\ No newline at end of file
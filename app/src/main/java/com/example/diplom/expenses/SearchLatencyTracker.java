@@ -0,0 +1,88 @@
+package com.example.diplom.expenses;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.diplom.BuildConfig;
+
+/**
+ * Метрики задержки поиска: время от последнего нажатия клавиши до получения результатов
+ * и время выполнения самого запроса. Используется только из главного потока.
+ */
+public class SearchLatencyTracker {
+
+    private static final String TAG = "SearchLatency";
+
+    private long lastKeystrokeAt = -1;
+    private long dispatchedAt = -1;
+    private int dispatchedQueryLength;
+
+    private int sampleCount;
+    private long lastLatencyMs;
+    private long lastQueryMs;
+    private long maxLatencyMs;
+    private long totalLatencyMs;
+
+    /**
+     * Отмечает нажатие клавиши в поле поиска
+     */
+    public void onKeystroke() {
+        lastKeystrokeAt = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Отмечает отправку поискового запроса в базу данных
+     * @param query поисковый запрос (в журнал попадает только его длина)
+     */
+    public void onQueryDispatched(String query) {
+        dispatchedAt = SystemClock.elapsedRealtime();
+        dispatchedQueryLength = query != null ? query.length() : 0;
+        if (lastKeystrokeAt < 0) {
+            lastKeystrokeAt = dispatchedAt;
+        }
+    }
+
+    /**
+     * Отмечает показ первой страницы результатов для последнего отправленного запроса
+     */
+    public void onResults() {
+        if (dispatchedAt < 0) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        lastLatencyMs = now - lastKeystrokeAt;
+        lastQueryMs = now - dispatchedAt;
+        maxLatencyMs = Math.max(maxLatencyMs, lastLatencyMs);
+        totalLatencyMs += lastLatencyMs;
+        sampleCount++;
+
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "queryLength=" + dispatchedQueryLength + " typingToResults=" + lastLatencyMs +
+                    "ms query=" + lastQueryMs + "ms avg=" + getAverageLatencyMs() + "ms max=" + maxLatencyMs + "ms");
+        }
+
+        dispatchedAt = -1;
+        lastKeystrokeAt = -1;
+        dispatchedQueryLength = 0;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+
+    public long getLastQueryMs() {
+        return lastQueryMs;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    public long getAverageLatencyMs() {
+        return sampleCount == 0 ? 0 : totalLatencyMs / sampleCount;
+    }
+}
@@ -1,32 +1,34 @@
 package com.example.diplom.expenses.adapters;
 
+import android.content.res.ColorStateList;
 import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.diplom.R;
 import com.example.diplom.database.entities.Category;
 import com.example.diplom.database.entities.Expense;
 import com.example.diplom.databinding.ItemExpenseBinding;
-import com.example.diplom.utils.CurrencyFormatter;
-import com.example.diplom.utils.DateUtils;
+import com.example.diplom.expenses.ExpenseItem;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Адаптер для отображения списка расходов в RecyclerView
+ * Адаптер для постраничного отображения списка расходов в RecyclerView
  */
-public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ExpenseViewHolder> {
+public class ExpenseAdapter extends PagingDataAdapter<ExpenseItem, ExpenseAdapter.ExpenseViewHolder> {
 
     private OnExpenseClickListener listener;
     private Map<Integer, Category> categoriesMap = new HashMap<>();
+    // Цвета категорий, разобранные один раз при обновлении карты категорий
+    private final Map<Integer, ColorStateList> categoryColors = new HashMap<>();
 
     public ExpenseAdapter() {
         super(DIFF_CALLBACK);
@@ -45,8 +47,10 @@ public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ExpenseV
 
     @Override
     public void onBindViewHolder(@NonNull ExpenseViewHolder holder, int position) {
-        Expense expense = getItem(position);
-        holder.bind(expense);
+        ExpenseItem item = getItem(position);
+        if (item != null) {
+            holder.bind(item);
+        }
     }
 
     /**
@@ -63,6 +67,14 @@ public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ExpenseV
      */
     public void setCategoriesMap(Map<Integer, Category> categories) {
         this.categoriesMap = categories;
+        categoryColors.clear();
+        for (Category category : categories.values()) {
+            try {
+                categoryColors.put(category.getId(), ColorStateList.valueOf(Color.parseColor(category.getColor())));
+            } catch (Exception e) {
+                // Если не удалось разобрать цвет, используем стандартный
+            }
+        }
         notifyDataSetChanged();
     }
 
@@ -80,32 +92,26 @@ public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ExpenseV
             binding.getRoot().setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onExpenseClick(getItem(position));
+                    ExpenseItem item = getItem(position);
+                    if (item != null) {
+                        listener.onExpenseClick(item.getExpense());
+                    }
                 }
             });
         }
 
         /**
          * Привязка данных к View
-         * @param expense расход для отображения
+         * @param item строка расхода с готовыми суммой и датой
          */
-        public void bind(Expense expense) {
+        public void bind(ExpenseItem item) {
+            Expense expense = item.getExpense();
             binding.expenseTitleText.setText(expense.getTitle());
-            binding.expenseAmountText.setText(CurrencyFormatter.format(expense.getAmount()));
-
-            // Отображение даты расхода
-            if (expense.getExpenseDate() != null) {
-                if (DateUtils.isToday(expense.getExpenseDate())) {
-                    binding.expenseDateText.setText(R.string.today);
-                } else {
-                    binding.expenseDateText.setText(DateUtils.formatDate(expense.getExpenseDate()));
-                }
-            } else {
-                binding.expenseDateText.setText("");
-            }
+            binding.expenseAmountText.setText(item.getAmountText());
+            binding.expenseDateText.setText(item.getDateText());
 
             // Отображение описания, если оно есть
-            if (expense.getDescription() != null && !expense.getDescription().isEmpty()) {
+            if (item.hasDescription()) {
                 binding.expenseDescriptionText.setText(expense.getDescription());
                 binding.expenseDescriptionText.setVisibility(View.VISIBLE);
             } else {
@@ -122,13 +128,10 @@ public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ExpenseV
             Category category = categoriesMap.get(expense.getCategoryId());
             if (category != null) {
                 binding.categoryChip.setText(category.getName());
-                try {
-                    // Пытаемся установить цвет категории
-                    int categoryColor = Color.parseColor(category.getColor());
-                    binding.categoryChip.setChipBackgroundColor(android.content.res.ColorStateList.valueOf(categoryColor));
+                ColorStateList categoryColor = categoryColors.get(category.getId());
+                if (categoryColor != null) {
+                    binding.categoryChip.setChipBackgroundColor(categoryColor);
                     binding.categoryChip.setTextColor(Color.WHITE);
-                } catch (Exception e) {
-                    // Если не удалось установить цвет, используем стандартный
                 }
             } else {
                 binding.categoryChip.setText("Без категории");
@@ -146,21 +149,28 @@ public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ExpenseV
     /**
      * DiffUtil.Callback для оптимизации обновлений списка
      */
-    private static final DiffUtil.ItemCallback<Expense> DIFF_CALLBACK = new DiffUtil.ItemCallback<Expense>() {
+    private static final DiffUtil.ItemCallback<ExpenseItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<ExpenseItem>() {
         @Override
-        public boolean areItemsTheSame(@NonNull Expense oldItem, @NonNull Expense newItem) {
-            return oldItem.getId() == newItem.getId();
+        public boolean areItemsTheSame(@NonNull ExpenseItem oldRow, @NonNull ExpenseItem newRow) {
+            return oldRow.getExpense().getId() == newRow.getExpense().getId();
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull Expense oldItem, @NonNull Expense newItem) {
-            return oldItem.getTitle().equals(newItem.getTitle()) &&
+        public boolean areContentsTheSame(@NonNull ExpenseItem oldRow, @NonNull ExpenseItem newRow) {
+            Expense oldItem = oldRow.getExpense();
+            Expense newItem = newRow.getExpense();
+            return oldRow.getDateText().equals(newRow.getDateText()) &&
+                    oldRow.getAmountText().equals(newRow.getAmountText()) &&
+                    equals(oldItem.getTitle(), newItem.getTitle()) &&
                     oldItem.getAmount() == newItem.getAmount() &&
                     equals(oldItem.getExpenseDate(), newItem.getExpenseDate()) &&
                     equals(oldItem.getDescription(), newItem.getDescription()) &&
                     equals(oldItem.getCategoryId(), newItem.getCategoryId()) &&
                     oldItem.isMaterialCost() == newItem.isMaterialCost() &&
-                    oldItem.isLaborCost() == newItem.isLaborCost();
+                    oldItem.isLaborCost() == newItem.isLaborCost() &&
+                    oldItem.isCapitalCost() == newItem.isCapitalCost() &&
+                    oldItem.isEnergyCost() == newItem.isEnergyCost() &&
+                    oldItem.isOtherCost() == newItem.isOtherCost();
         }
 
         /**
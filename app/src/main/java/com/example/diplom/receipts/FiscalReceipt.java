@@ -0,0 +1,93 @@
+package com.example.diplom.receipts;
+
+/**
+ * Реквизиты фискального чека из QR-кода (t=...&s=...&fn=...&i=...&fp=...&n=...).
+ * Все поля хранятся числами: номер фискального накопителя (fn), номер фискального документа (i),
+ * фискальный признак (fp), время чека (t), сумма в копейках (s) и тип операции (n).
+ * Номер накопителя, номер документа и фискальный признак (fn, i, fp) однозначно определяют чек
+ * и используются для поиска дубликатов; время и сумма в ключ не входят.
+ */
+public final class FiscalReceipt {
+
+    // Типы операции (n): приход (по умолчанию), возврат прихода, расход, возврат расхода
+    public static final int OPERATION_INCOME = 1;
+    public static final int OPERATION_INCOME_RETURN = 2;
+    public static final int OPERATION_EXPENSE = 3;
+    public static final int OPERATION_EXPENSE_RETURN = 4;
+
+    private final long fiscalDriveNumber;
+    private final long documentNumber;
+    private final long fiscalSign;
+    private final long timestamp;
+    private final long amount;
+    private final int operationType;
+
+    public FiscalReceipt(long fiscalDriveNumber, long documentNumber, long fiscalSign,
+                         long timestamp, long amount, int operationType) {
+        this.fiscalDriveNumber = fiscalDriveNumber;
+        this.documentNumber = documentNumber;
+        this.fiscalSign = fiscalSign;
+        this.timestamp = timestamp;
+        this.amount = amount;
+        this.operationType = operationType;
+    }
+
+    // Геттеры
+    public long getFiscalDriveNumber() {
+        return fiscalDriveNumber;
+    }
+
+    public long getDocumentNumber() {
+        return documentNumber;
+    }
+
+    public long getFiscalSign() {
+        return fiscalSign;
+    }
+
+    /**
+     * Время чека (мс)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Сумма чека в копейках
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    public int getOperationType() {
+        return operationType;
+    }
+
+    /**
+     * Чек возврата (возврат прихода или возврат расхода)
+     */
+    public boolean isRefund() {
+        return operationType == OPERATION_INCOME_RETURN || operationType == OPERATION_EXPENSE_RETURN;
+    }
+
+    /**
+     * Чеки равны, если совпадают реквизиты (fn, i, fp)
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FiscalReceipt)) return false;
+        FiscalReceipt other = (FiscalReceipt) o;
+        return fiscalDriveNumber == other.fiscalDriveNumber
+                && documentNumber == other.documentNumber
+                && fiscalSign == other.fiscalSign;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(fiscalDriveNumber);
+        result = 31 * result + Long.hashCode(documentNumber);
+        result = 31 * result + Long.hashCode(fiscalSign);
+        return result;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.diplom.receipts;
+
+import com.example.diplom.database.entities.Receipt;
+import com.example.diplom.database.entities.ReceiptItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Неизменяемые сведения о чеке расхода: реквизиты и позиции
+ */
+public final class ReceiptDetails {
+
+    private final Receipt receipt;
+    private final List<ReceiptItem> items;
+
+    public ReceiptDetails(Receipt receipt, List<ReceiptItem> items) {
+        this.receipt = receipt;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    public boolean hasItems() {
+        return !items.isEmpty();
+    }
+
+    // Геттеры
+    public Receipt getReceipt() {
+        return receipt;
+    }
+
+    public List<ReceiptItem> getItems() {
+        return items;
+    }
+}
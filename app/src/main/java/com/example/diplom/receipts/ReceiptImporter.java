@@ -0,0 +1,331 @@
+package com.example.diplom.receipts;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.diplom.R;
+import com.example.diplom.database.AppDatabase;
+import com.example.diplom.database.DatabaseScheduler;
+import com.example.diplom.database.dao.ExpenseDao;
+import com.example.diplom.database.dao.ReceiptDao;
+import com.example.diplom.database.entities.Expense;
+import com.example.diplom.database.entities.Receipt;
+import com.example.diplom.utils.QRReceiptParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Пакетный импорт чеков из QR-кодов.
+ * Строки QR-кодов разбираются частями в пуле потоков, повторы внутри пакета отбрасываются,
+ * затем все чеки пакета записываются одной транзакцией в потоке записи.
+ * Чек, реквизиты (fn, i, fp, t, s) которого уже есть в базе, считается дубликатом и не добавляется.
+ * Чеки возврата (возврат прихода и возврат расхода) пропускаются: расходы хранятся положительными
+ * суммами, а возврат не является тратой. Они учитываются в итогах отдельно (ImportResult.getRefunds).
+ */
+public final class ReceiptImporter {
+
+    private static final String TAG = "ReceiptImporter";
+
+    // Сколько строк разбирает одна задача пула
+    private static final int CHUNK_SIZE = 256;
+    private static final int PARSE_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static volatile ReceiptImporter INSTANCE;
+
+    private final AppDatabase database;
+    private final Context appContext;
+    private final DatabaseScheduler scheduler = DatabaseScheduler.getInstance();
+    private final ExecutorService parseExecutor;
+
+    private ReceiptImporter(Context context) {
+        appContext = context;
+        database = AppDatabase.getDatabase(context);
+
+        AtomicInteger counter = new AtomicInteger();
+        parseExecutor = Executors.newFixedThreadPool(PARSE_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "receipt-parse-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static ReceiptImporter getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ReceiptImporter.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ReceiptImporter(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Импортирует пакет QR-кодов чеков
+     * @param context контекст для строк расходов (язык активности); после вызова не используется
+     * @param payloads содержимое QR-кодов
+     * @param callback получатель итогов импорта или null, если записать чеки не удалось
+     *                 (вызывается в фоновом потоке)
+     */
+    public void importPayloads(Context context, List<String> payloads, Consumer<ImportResult> callback) {
+        importPayloads(payloads, context.getString(R.string.expense_from_receipt),
+                context.getString(R.string.scanned_from_qr), callback);
+    }
+
+    /**
+     * Импортирует QR-коды чеков из текстового файла: по одному коду в строке, пустые строки пропускаются
+     * @param context контекст для строк расходов (язык активности); после вызова не используется
+     * @param uri файл, выбранный пользователем
+     * @param callback получатель итогов импорта или null, если файл не удалось прочитать
+     *                 или записать чеки (вызывается в фоновом потоке)
+     */
+    public void importFromUri(Context context, Uri uri, Consumer<ImportResult> callback) {
+        // Строки берутся сразу, чтобы фоновая задача не держала ссылку на активность
+        String title = context.getString(R.string.expense_from_receipt);
+        String descriptionFormat = context.getString(R.string.scanned_from_qr);
+        parseExecutor.execute(() -> {
+            List<String> payloads = new ArrayList<>();
+            try (InputStream stream = appContext.getContentResolver().openInputStream(uri)) {
+                if (stream == null) {
+                    callback.accept(null);
+                    return;
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        payloads.add(line);
+                    }
+                }
+            } catch (IOException | SecurityException e) {
+                Log.e(TAG, "Failed to read receipts from " + uri, e);
+                callback.accept(null);
+                return;
+            }
+            importPayloads(payloads, title, descriptionFormat, callback);
+        });
+    }
+
+    private void importPayloads(List<String> payloads, String title, String descriptionFormat,
+                                Consumer<ImportResult> callback) {
+        long startedAt = SystemClock.elapsedRealtime();
+
+        List<String> batch = new ArrayList<>(payloads);
+        List<CompletableFuture<ParsedChunk>> chunks = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += CHUNK_SIZE) {
+            List<String> chunk = batch.subList(from, Math.min(from + CHUNK_SIZE, batch.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> parseChunk(chunk), parseExecutor));
+        }
+
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Failed to parse receipts", error);
+                callback.accept(null);
+                return;
+            }
+
+            // Объединение частей в исходном порядке с отбрасыванием повторов внутри пакета
+            ImportResult result = new ImportResult(batch.size());
+            Set<FiscalReceipt> receipts = new LinkedHashSet<>();
+            for (CompletableFuture<ParsedChunk> chunk : chunks) {
+                ParsedChunk parsed = chunk.join();
+                result.invalid += parsed.invalid;
+                result.refunds += parsed.refunds;
+                for (FiscalReceipt receipt : parsed.receipts) {
+                    result.parsed++;
+                    if (!receipts.add(receipt)) {
+                        result.duplicates++;
+                    }
+                }
+            }
+            result.parseMs = SystemClock.elapsedRealtime() - startedAt;
+
+            if (receipts.isEmpty()) {
+                finish(result, startedAt, callback);
+                return;
+            }
+
+            scheduler.write("receipt_import", DatabaseScheduler.PRIORITY_SYNC, () -> {
+                long insertStartedAt = SystemClock.elapsedRealtime();
+                try {
+                    database.runInTransaction(() -> insertBatch(receipts, title, descriptionFormat, result));
+                } catch (RuntimeException e) {
+                    // Транзакция откатывается целиком: из пакета не добавлено ни одного чека
+                    Log.e(TAG, "Failed to import receipts", e);
+                    callback.accept(null);
+                    return;
+                }
+                result.insertMs = SystemClock.elapsedRealtime() - insertStartedAt;
+                finish(result, startedAt, callback);
+            });
+        });
+    }
+
+    private static ParsedChunk parseChunk(List<String> payloads) {
+        ParsedChunk chunk = new ParsedChunk(payloads.size());
+        for (String payload : payloads) {
+            FiscalReceipt receipt = QRReceiptParser.parseReceipt(payload);
+            if (receipt == null) {
+                chunk.invalid++;
+            } else if (receipt.isRefund()) {
+                chunk.refunds++;
+            } else {
+                chunk.receipts.add(receipt);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Записывает чеки пакета; вызывается внутри транзакции.
+     * Сначала добавляется чек: уникальный индекс отсекает уже импортированные чеки,
+     * и расход создается только для нового чека.
+     */
+    private void insertBatch(Set<FiscalReceipt> receipts, String title, String descriptionFormat,
+                             ImportResult result) {
+        ExpenseDao expenseDao = database.expenseDao();
+        ReceiptDao receiptDao = database.receiptDao();
+        Date now = new Date();
+
+        for (FiscalReceipt receipt : receipts) {
+            long receiptId = receiptDao.insertIfAbsent(Receipt.from(receipt, null));
+            if (receiptId == -1) {
+                result.duplicates++;
+                continue;
+            }
+
+            Expense expense = new Expense();
+            expense.setTitle(title);
+            expense.setAmount(receipt.getAmount());
+            expense.setDescription(String.format(descriptionFormat, receipt.getDocumentNumber()));
+            expense.setExpenseDate(new Date(receipt.getTimestamp()));
+            expense.setCreatedAt(now);
+            long expenseId = expenseDao.insert(expense);
+
+            receiptDao.setExpenseId(receiptId, expenseId);
+            result.inserted++;
+            result.insertedAmount += receipt.getAmount();
+        }
+    }
+
+    private static void finish(ImportResult result, long startedAt, Consumer<ImportResult> callback) {
+        result.totalMs = SystemClock.elapsedRealtime() - startedAt;
+        Log.i(TAG, result.toString());
+        callback.accept(result);
+    }
+
+    /**
+     * Чеки, разобранные одной задачей пула
+     */
+    private static final class ParsedChunk {
+        final List<FiscalReceipt> receipts;
+        int invalid;
+        int refunds;
+
+        ParsedChunk(int capacity) {
+            receipts = new ArrayList<>(capacity);
+        }
+    }
+
+    /**
+     * Итоги импорта одного пакета
+     */
+    public static final class ImportResult {
+        private final int total;
+        private int parsed;
+        private int invalid;
+        private int duplicates;
+        private int refunds;
+        private int inserted;
+        private long insertedAmount;
+        private long parseMs;
+        private long insertMs;
+        private long totalMs;
+
+        ImportResult(int total) {
+            this.total = total;
+        }
+
+        // Геттеры
+        public int getTotal() {
+            return total;
+        }
+
+        public int getParsed() {
+            return parsed;
+        }
+
+        public int getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * Повторы внутри пакета и чеки, уже имеющиеся в базе
+         */
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * Чеки возврата (n=2, n=4): в расходы не добавляются
+         */
+        public int getRefunds() {
+            return refunds;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        /**
+         * Сумма добавленных чеков в копейках
+         */
+        public long getInsertedAmount() {
+            return insertedAmount;
+        }
+
+        public long getParseMs() {
+            return parseMs;
+        }
+
+        public long getInsertMs() {
+            return insertMs;
+        }
+
+        public long getTotalMs() {
+            return totalMs;
+        }
+
+        /**
+         * Пропускная способность пакета: обработанных строк в секунду
+         */
+        public long getReceiptsPerSecond() {
+            return total * 1000L / Math.max(1, totalMs);
+        }
+
+        @Override
+        public String toString() {
+            return "total=" + total + " parsed=" + parsed + " invalid=" + invalid +
+                    " duplicates=" + duplicates + " refunds=" + refunds + " inserted=" + inserted +
+                    " parse=" + parseMs + "ms insert=" + insertMs + "ms total=" + totalMs +
+                    "ms (" + getReceiptsPerSecond() + " receipts/s)";
+        }
+    }
+}
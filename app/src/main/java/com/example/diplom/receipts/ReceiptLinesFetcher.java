@@ -0,0 +1,27 @@
+package com.example.diplom.receipts;
+
+import com.example.diplom.database.entities.ReceiptItem;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Источник позиций чека по его фискальным реквизитам (сервис проверки чеков или локальная заглушка).
+ * Вызывается в фоновом потоке; receiptId у возвращаемых позиций заполняет хранилище.
+ */
+public interface ReceiptLinesFetcher {
+
+    /**
+     * Источник по умолчанию: позиции не запрашиваются, приложение работает офлайн
+     */
+    ReceiptLinesFetcher NONE = receipt -> Collections.emptyList();
+
+    /**
+     * Запрашивает позиции чека
+     * @param receipt реквизиты чека
+     * @return позиции чека или пустой список, если они неизвестны
+     * @throws IOException если источник недоступен
+     */
+    List<ReceiptItem> fetchLines(FiscalReceipt receipt) throws IOException;
+}
@@ -0,0 +1,148 @@
+package com.example.diplom.receipts;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.diplom.database.AppDatabase;
+import com.example.diplom.database.DatabaseScheduler;
+import com.example.diplom.database.dao.ReceiptDao;
+import com.example.diplom.database.entities.Receipt;
+import com.example.diplom.database.entities.ReceiptItem;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Локальное хранилище сведений о чеках.
+ * Реквизиты и позиции чека читаются из базы по ID расхода и кэшируются,
+ * поэтому повторный просмотр чека не обращается к базе.
+ * Если позиций в базе нет, они запрашиваются у ReceiptLinesFetcher и сохраняются.
+ */
+public final class ReceiptStore {
+
+    private static final String TAG = "ReceiptStore";
+
+    // Сколько чеков держать в кэше
+    private static final int MAX_CACHED_RECEIPTS = 64;
+
+    private static volatile ReceiptStore INSTANCE;
+
+    private final ReceiptDao receiptDao;
+    private final ReceiptLinesFetcher fetcher;
+    private final DatabaseScheduler scheduler = DatabaseScheduler.getInstance();
+    // Запросы позиций идут по сети и не должны занимать потоки базы
+    private final ExecutorService fetchExecutor = Executors.newSingleThreadExecutor();
+
+    // Кэш сведений о чеках по ID расхода, вытесняются давно не использованные
+    private final Map<Integer, ReceiptDetails> cache =
+            new LinkedHashMap<Integer, ReceiptDetails>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ReceiptDetails> eldest) {
+                    return size() > MAX_CACHED_RECEIPTS;
+                }
+            };
+
+    ReceiptStore(ReceiptDao receiptDao, ReceiptLinesFetcher fetcher) {
+        this.receiptDao = receiptDao;
+        this.fetcher = fetcher;
+    }
+
+    public static ReceiptStore getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ReceiptStore.class) {
+                if (INSTANCE == null) {
+                    // Источника позиций в приложении пока нет: показываются позиции, сохраненные в базе
+                    INSTANCE = new ReceiptStore(AppDatabase.getDatabase(context.getApplicationContext()).receiptDao(),
+                            ReceiptLinesFetcher.NONE);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Загружает сведения о чеке расхода: из кэша или из базы.
+     * Если позиции еще не известны, после загрузки они запрашиваются у источника,
+     * и callback вызывается повторно с дополненными сведениями.
+     * @param expenseId ID расхода
+     * @param callback получатель сведений или null, если расход создан не из чека
+     *                 (вызывается в фоновом потоке или сразу, если чек в кэше)
+     */
+    public void loadDetails(int expenseId, Consumer<ReceiptDetails> callback) {
+        ReceiptDetails cached;
+        synchronized (cache) {
+            cached = cache.get(expenseId);
+        }
+        if (cached != null) {
+            callback.accept(cached);
+            return;
+        }
+
+        scheduler.read("receipt_details", DatabaseScheduler.PRIORITY_UI, () -> {
+            Receipt receipt = receiptDao.getByExpenseIdSync(expenseId);
+            if (receipt == null) {
+                callback.accept(null);
+                return;
+            }
+            ReceiptDetails details = new ReceiptDetails(receipt, receiptDao.getItemsSync(receipt.getId()));
+            synchronized (cache) {
+                cache.put(expenseId, details);
+            }
+            callback.accept(details);
+
+            if (!details.hasItems() && fetcher != ReceiptLinesFetcher.NONE) {
+                fetchLines(expenseId, receipt, callback);
+            }
+        });
+    }
+
+    /**
+     * Запрашивает позиции чека у источника и сохраняет их
+     */
+    private void fetchLines(int expenseId, Receipt receipt, Consumer<ReceiptDetails> callback) {
+        fetchExecutor.execute(() -> {
+            List<ReceiptItem> items;
+            try {
+                items = fetcher.fetchLines(receipt.toFiscalReceipt());
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to fetch lines for receipt " + receipt.getId(), e);
+                return;
+            }
+            if (items == null || items.isEmpty()) {
+                return;
+            }
+
+            for (ReceiptItem item : items) {
+                item.setReceiptId(receipt.getId());
+            }
+            scheduler.write("receipt_items_insert", DatabaseScheduler.PRIORITY_SYNC, () -> {
+                // Позиции могли сохраниться параллельным запросом того же чека
+                if (!receiptDao.getItemsSync(receipt.getId()).isEmpty()) {
+                    return;
+                }
+                receiptDao.insertItems(items);
+
+                ReceiptDetails details = new ReceiptDetails(receipt, receiptDao.getItemsSync(receipt.getId()));
+                synchronized (cache) {
+                    cache.put(expenseId, details);
+                }
+                callback.accept(details);
+            });
+        });
+    }
+
+    /**
+     * Удаляет чек расхода из кэша, например после удаления расхода
+     * @param expenseId ID расхода
+     */
+    public void invalidate(int expenseId) {
+        synchronized (cache) {
+            cache.remove(expenseId);
+        }
+    }
+}
@@ -11,13 +11,20 @@ import com.example.diplom.R;
 import com.example.diplom.api.ApiClient;
 import com.example.diplom.api.CurrencyApiService;
 import com.example.diplom.api.models.CurrencyRate;
+import com.example.diplom.currency.CrossRateMatrix;
+import com.example.diplom.currency.CurrencyConverter;
+import com.example.diplom.currency.CurrencyItem;
 import com.example.diplom.database.AppDatabase;
+import com.example.diplom.database.DatabaseScheduler;
 import com.example.diplom.database.dao.CurrencyDao;
+import com.example.diplom.database.dao.CurrencyRateHistoryDao;
 import com.example.diplom.database.entities.Currency;
+import com.example.diplom.database.entities.CurrencyRateHistory;
 import com.example.diplom.utils.PreferenceUtils;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,101 +34,186 @@ import retrofit2.Response;
 
 /**
  * Репозиторий для работы с курсами валют.
+ * Курсы загружаются и хранятся относительно одной опорной валюты,
+ * курсы для выбранной пользователем базы считаются через матрицу кросс-курсов.
+ * Один экземпляр на процесс: последний снимок курсов хранится в памяти
+ * и переживает пересоздание экранов и ViewModel.
  */
 public class CurrencyRepository {
     private static final String TAG = CurrencyRepository.class.getSimpleName();
     private static final String PREF_CURRENCY_CACHE = "currency_cache";
-    private static final String PREF_CURRENCY_LAST_UPDATE = "currency_last_update";
-    private static final long CURRENCY_CACHE_EXPIRATION = 60000; // 1 min
+    static final String PREF_CURRENCY_LAST_UPDATE = "currency_last_update";
+    private static final String PREF_CURRENCY_FAILURE_COUNT = "currency_failure_count";
+    private static final String PREF_CURRENCY_NEXT_RETRY = "currency_next_retry";
+    static final long CURRENCY_CACHE_EXPIRATION = 60000; // 1 min
+    private static final long RETRY_BASE_DELAY = 30000; // 30 s
+    private static final long RETRY_MAX_DELAY = 30 * 60000; // 30 min
+    // Опорная валюта, относительно которой хранится снимок курсов
+    public static final String PIVOT_CURRENCY = "USD";
 
     private final Context context;
 
     private final CurrencyApiService apiService;
+    private final AppDatabase database;
+    private final DatabaseScheduler scheduler = DatabaseScheduler.getInstance();
     private final CurrencyDao currencyDao;
+    private final CurrencyRateHistoryDao historyDao;
     private final SharedPreferences preferences;
-    private final MutableLiveData<List<Currency>> allCurrencies = new MutableLiveData<>();
-    private final MutableLiveData<List<Currency>> popularCurrencies = new MutableLiveData<>();
-    private final MutableLiveData<Currency> baseCurrency = new MutableLiveData<>();
+    private final MutableLiveData<CurrencySnapshot> snapshot = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
-    // String baseCode;
 
-    public CurrencyRepository(Context context) {
-        AppDatabase database = AppDatabase.getDatabase(context);
+    private static volatile CurrencyRepository INSTANCE;
+
+    // Курсы относительно опорной валюты из последнего опубликованного снимка
+    private volatile List<Currency> pivotCurrencies;
+    // Запрос к API уже выполняется: новые вызовы присоединяются к нему (только главный поток)
+    private boolean refreshInFlight;
+
+    private CurrencyRepository(Context context) {
+        this(context, AppDatabase.getDatabase(context), ApiClient.getCurrencyApiService(context),
+                context.getSharedPreferences("currency_prefs", Context.MODE_PRIVATE));
+    }
+
+    CurrencyRepository(Context context, AppDatabase database, CurrencyApiService apiService,
+                       SharedPreferences preferences) {
+        this.database = database;
         currencyDao = database.currencyDao();
-        apiService = ApiClient.getCurrencyApiService();
-        preferences = context.getSharedPreferences("currency_prefs", Context.MODE_PRIVATE);
+        historyDao = database.currencyRateHistoryDao();
+        this.apiService = apiService;
+        this.preferences = preferences;
+
+        this.context = context;
 
         // Загрузка данных из локальной базы данных
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<Currency> currencies = currencyDao.getAllCurrenciesByBaseSync(PreferenceUtils.getCurrency(context));
+        loadSnapshot();
+    }
 
-            allCurrencies.postValue(currencies);
-            loadPopularCurrencies();
-            loadBaseCurrency();
-        });
-        this.context = context;
+    /**
+     * Получение общего для приложения репозитория
+     * @param context любой контекст, используется контекст приложения
+     * @return экземпляр репозитория
+     */
+    public static CurrencyRepository getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (CurrencyRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new CurrencyRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
     }
 
     /**
-     * Загружает курсы валют из API и обновляет локальную базу данных
+     * Загружает курсы валют из API и обновляет локальную базу данных.
+     * Сохраненные курсы публикуются сразу при создании репозитория, а запрос к API
+     * выполняется в фоне, только если они устарели (stale-while-revalidate).
+     * После ошибок повторные запросы откладываются с экспоненциально растущей паузой.
      */
     public void refreshCurrencyRates() {
-        long lastUpdate = preferences.getLong(PREF_CURRENCY_LAST_UPDATE, 0);
+        republishIfBaseChanged();
+
         long currentTime = System.currentTimeMillis();
+        long lastUpdate = preferences.getLong(PREF_CURRENCY_LAST_UPDATE, 0);
+
+        // Данные свежие, уже опубликованы из базы данных
+        if (currentTime - lastUpdate <= CURRENCY_CACHE_EXPIRATION) {
+            return;
+        }
+
+        long nextRetry = preferences.getLong(PREF_CURRENCY_NEXT_RETRY, 0);
+        if (currentTime < nextRetry) {
+            Log.d(TAG, "Currency sync postponed for " + (nextRetry - currentTime) + " ms after failures");
+            return;
+        }
+
+        fetchCurrencyRates();
+    }
+
+    /**
+     * Обновляет курсы по запросу пользователя, без учета свежести данных и паузы после ошибок.
+     * Если ответ еще свежий в HTTP-кэше, он будет взят с диска без обращения к сети.
+     */
+    public void forceRefreshCurrencyRates() {
+        republishIfBaseChanged();
+        fetchCurrencyRates();
+    }
 
-        // Проверяем, нужно ли обновлять данные из API
-        if (currentTime - lastUpdate > CURRENCY_CACHE_EXPIRATION) {
-            isLoading.setValue(true);
-
-            apiService.getCurrentRates(
-                    ApiClient.API_KEY,
-                    ApiClient.SUPPORTED_CURRENCIES,
-                    PreferenceUtils.getCurrency(context)
-            ).enqueue(new Callback<>() {
-                @Override
-                public void onResponse(Call<CurrencyRate> call, Response<CurrencyRate> response) {
-                    isLoading.setValue(false);
-                    if (response.isSuccessful() && response.body() != null) {
+    private void fetchCurrencyRates() {
+        // Повторный вызов во время запроса получит его результат через snapshot
+        if (refreshInFlight) {
+            return;
+        }
+        refreshInFlight = true;
+        isLoading.setValue(true);
+
+        apiService.getCurrentRates(
+                ApiClient.API_KEY,
+                ApiClient.SUPPORTED_CURRENCIES,
+                PIVOT_CURRENCY
+        ).enqueue(new Callback<>() {
+            @Override
+            public void onResponse(Call<CurrencyRate> call, Response<CurrencyRate> response) {
+                refreshInFlight = false;
+                isLoading.setValue(false);
+                if (response.isSuccessful() && response.body() != null) {
+                    // Ответ из HTTP-кэша или 304 Not Modified: курсы не изменились
+                    boolean notModified = ApiClient.isNotModified(response);
+
+                    if (!notModified || !CurrencyConverter.getInstance().isReady()) {
                         // Устанавливаем базовую валюту в полученном объекте
                         CurrencyRate currencyRate = response.body();
-                        currencyRate.setBaseCurrency(PreferenceUtils.getCurrency(context));
+                        currencyRate.setBaseCurrency(PIVOT_CURRENCY);
 
                         // Сохраняем полученные данные в базу данных
                         saveToDatabase(currencyRate);
-
-                        // Обновляем время последнего обновления
-                        SharedPreferences.Editor editor = preferences.edit();
-                        editor.putLong(PREF_CURRENCY_LAST_UPDATE, System.currentTimeMillis());
-                        editor.apply();
-                    } else {
-                        // Если ответ неуспешный, выводим ошибку
-                        errorMessage.setValue("Ошибка получения данных: " +
-                                (response.errorBody() != null ? response.errorBody().toString() : "Неизвестная ошибка"));
-                        Log.e(TAG, "API error: " + (response.errorBody() != null ? response.errorBody().toString() : "Unknown error"));
                     }
-                }
 
-                @Override
-                public void onFailure(Call<CurrencyRate> call, Throwable t) {
-                    handleError(t); // Используем метод handleError для обработки ошибок
-                    Log.e(TAG, "API call failed", t);
-                    // Загружаем данные из базы данных в случае ошибки
-                    AppDatabase.databaseWriteExecutor.execute(() -> {
-                        List<Currency> currencies = currencyDao.getAllCurrenciesByBaseSync(PreferenceUtils.getCurrency(context));
-                        allCurrencies.postValue(currencies);
-                        loadPopularCurrencies();
-                    });
+                    onSyncSucceeded();
+                } else {
+                    // Если ответ неуспешный, выводим ошибку
+                    errorMessage.setValue("Ошибка получения данных: " +
+                            (response.errorBody() != null ? response.errorBody().toString() : "Неизвестная ошибка"));
+                    Log.e(TAG, "API error: " + (response.errorBody() != null ? response.errorBody().toString() : "Unknown error"));
+                    onSyncFailed();
                 }
-            });
-        } else {
-            // Данные свежие, загружаем из базы данных
-            AppDatabase.databaseWriteExecutor.execute(() -> {
-                List<Currency> currencies = currencyDao.getAllCurrenciesByBaseSync(PreferenceUtils.getCurrency(context));
-                allCurrencies.postValue(currencies);
-                loadPopularCurrencies();
-            });
-        }
+            }
+
+            @Override
+            public void onFailure(Call<CurrencyRate> call, Throwable t) {
+                refreshInFlight = false;
+                handleError(t); // Используем метод handleError для обработки ошибок
+                Log.e(TAG, "API call failed", t);
+                // Сохраненные данные уже опубликованы, откладываем следующую попытку
+                onSyncFailed();
+            }
+        });
+    }
+
+    /**
+     * Запоминает время успешной синхронизации, сбрасывает паузу после ошибок и последнюю ошибку
+     */
+    private void onSyncSucceeded() {
+        // Репозиторий общий для экранов: старая ошибка не должна показываться повторно
+        errorMessage.setValue(null);
+        preferences.edit()
+                .putLong(PREF_CURRENCY_LAST_UPDATE, System.currentTimeMillis())
+                .putInt(PREF_CURRENCY_FAILURE_COUNT, 0)
+                .remove(PREF_CURRENCY_NEXT_RETRY)
+                .apply();
+    }
+
+    /**
+     * Увеличивает паузу до следующей попытки: 30 с, 1 мин, 2 мин ... но не больше 30 мин
+     */
+    private void onSyncFailed() {
+        int failures = preferences.getInt(PREF_CURRENCY_FAILURE_COUNT, 0) + 1;
+        long delay = Math.min(RETRY_BASE_DELAY << Math.min(failures - 1, 16), RETRY_MAX_DELAY);
+        preferences.edit()
+                .putInt(PREF_CURRENCY_FAILURE_COUNT, failures)
+                .putLong(PREF_CURRENCY_NEXT_RETRY, System.currentTimeMillis() + delay)
+                .apply();
     }
 
     private void handleError(Throwable throwable) {
@@ -142,56 +234,58 @@ public class CurrencyRepository {
     }
 
     /**
-     * Сохраняет курсы валют в локальную базу данных
+     * Сохраняет курсы валют в локальную базу данных.
+     * Все курсы записываются одной транзакцией, существующие записи читаются одним запросом.
+     * В той же транзакции курсы добавляются в историю, после чего старая история сжимается.
+     * Снимки для других базовых валют больше не нужны и удаляются.
      * @param currencyRate список курсов валют
      */
     private void saveToDatabase(CurrencyRate currencyRate) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        scheduler.write("currency_save", DatabaseScheduler.PRIORITY_SYNC, () -> {
             try {
-                Map<String, Double> rates = currencyRate.getRates();
                 String baseCurrencyCode = currencyRate.getBaseCurrency();
                 Date currentDate = new Date();
 
-                // Обновляем данные для базовой валюты (курс = 1.0)
-                updateCurrencyInDatabase(baseCurrencyCode, 1.0, "0", 0.0, 0.0, baseCurrencyCode, currentDate);
-
-                // Обновляем данные для остальных валют
-                for (Map.Entry<String, Double> entry : rates.entrySet()) {
-                    String code = entry.getKey();
-                    double rate = entry.getValue();
-
-                    // Если базовая валюта, пропускаем (уже обновили выше)
-                    if (code.equals(baseCurrencyCode)) continue;
-
-                    // Получаем существующую валюту для определения изменения курса
-                    Currency existingCurrency = currencyDao.getCurrencyByCodeSync(code, baseCurrencyCode);
-                    String trend = "stable";
-                    double change = 0.0;
-                    double changePercentage = 0.0;
-
-                    if (existingCurrency != null) {
-                        double oldRate = existingCurrency.getRate();
-                        change = rate - oldRate;
-                        if (oldRate != 0) {
-                            changePercentage = (change / oldRate) * 100;
-                        }
-
-                        if (change > 0) {
-                            trend = "up";
-                        } else if (change < 0) {
-                            trend = "down";
-                        }
+                List<Currency> updatedCurrencies = database.runInTransaction(() -> {
+                    // Текущие записи для базовой валюты, по коду
+                    Map<String, Currency> existing = new HashMap<>();
+                    for (Currency currency : currencyDao.getAllCurrenciesByBaseSync(baseCurrencyCode)) {
+                        existing.put(currency.getCode(), currency);
                     }
 
-                    // Обновляем валюту в базе данных
-                    updateCurrencyInDatabase(code, rate, trend, change, changePercentage, baseCurrencyCode, currentDate);
-                }
+                    List<Currency> batch = new ArrayList<>(currencyRate.size() + 1);
+
+                    // Базовая валюта (курс = 1.0)
+                    batch.add(buildCurrency(existing.get(baseCurrencyCode), baseCurrencyCode,
+                            1.0, baseCurrencyCode, currentDate));
+
+                    // Остальные валюты
+                    for (int i = 0; i < currencyRate.size(); i++) {
+                        String code = currencyRate.getCode(i);
+
+                        // Если базовая валюта, пропускаем (уже добавили выше)
+                        if (code.equals(baseCurrencyCode)) continue;
+
+                        batch.add(buildCurrency(existing.get(code), code,
+                                currencyRate.getRate(i), baseCurrencyCode, currentDate));
+                    }
 
-                // Загружаем обновленные данные
-                List<Currency> updatedCurrencies = currencyDao.getAllCurrenciesByBaseSync(baseCurrencyCode);
-                allCurrencies.postValue(updatedCurrencies);
-                loadPopularCurrencies();
-                loadBaseCurrency();
+                    currencyDao.upsertAll(batch);
+                    currencyDao.deleteAllExceptBase(baseCurrencyCode);
+
+                    // История хранится относительно опорной валюты, ряд для базы пользователя
+                    // считается при чтении, поэтому смена базы не разрывает историю
+                    CrossRateMatrix matrix = CrossRateMatrix.fromCurrencies(batch);
+                    historyDao.insertAll(buildHistory(matrix, baseCurrencyCode, currentDate.getTime()));
+                    return currencyDao.getAllCurrenciesByBaseSync(baseCurrencyCode);
+                });
+
+                // Публикуем обновленные данные
+                publishSnapshot(updatedCurrencies);
+
+                // Сжатие истории не срочное и не должно задерживать другие записи
+                scheduler.write("currency_history_compact", DatabaseScheduler.PRIORITY_MAINTENANCE,
+                        () -> historyDao.compact(currentDate.getTime()));
             } catch (Exception e) {
                 Log.e(TAG, "Error saving currency data to database", e);
                 errorMessage.postValue("Ошибка сохранения данных: " + e.getMessage());
@@ -201,79 +295,192 @@ public class CurrencyRepository {
     }
 
     /**
-     * Загружает список популярных валют (RUB, USD, EUR)
+     * Загружает снимок курсов из базы данных и публикует его
      */
-    private void loadPopularCurrencies() {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<Currency> popularCurrenciesList = new ArrayList<>();
+    private void loadSnapshot() {
+        scheduler.read("currency_snapshot", DatabaseScheduler.PRIORITY_UI, () -> {
+            List<Currency> pivotCurrencies = currencyDao.getAllCurrenciesByBaseSync(PIVOT_CURRENCY);
+            if (pivotCurrencies.isEmpty()) {
+                // Данные, сохраненные до перехода на опорную валюту
+                pivotCurrencies = currencyDao.getAllCurrenciesByBaseSync(PreferenceUtils.getCurrency(context));
+            }
+            publishSnapshot(pivotCurrencies);
+        });
+    }
 
-            // Добавляем базовую валюту и популярные валюты в список
-            Currency rubCurrency = currencyDao.getCurrencyByCodeSync("RUB", PreferenceUtils.getCurrency(context));
-            Currency usdCurrency = currencyDao.getCurrencyByCodeSync("USD", PreferenceUtils.getCurrency(context));
-            Currency eurCurrency = currencyDao.getCurrencyByCodeSync("EUR", PreferenceUtils.getCurrency(context));
+    /**
+     * Строит матрицу кросс-курсов из снимка и публикует курсы относительно базы пользователя
+     * одним обновлением CurrencySnapshot.
+     * Смена базовой валюты не требует запроса к API: курсы пересчитываются из того же снимка.
+     * @param pivotCurrencies курсы относительно одной базовой валюты
+     */
+    private void publishSnapshot(List<Currency> pivotCurrencies) {
+        snapshot.postValue(buildSnapshot(pivotCurrencies));
+    }
 
-            if (rubCurrency != null) popularCurrenciesList.add(rubCurrency);
-            if (usdCurrency != null) popularCurrenciesList.add(usdCurrency);
-            if (eurCurrency != null) popularCurrenciesList.add(eurCurrency);
+    private CurrencySnapshot buildSnapshot(List<Currency> pivotCurrencies) {
+        this.pivotCurrencies = pivotCurrencies;
+        CrossRateMatrix matrix = CrossRateMatrix.fromCurrencies(pivotCurrencies);
+        CurrencyConverter.getInstance().update(matrix);
 
-            popularCurrencies.postValue(popularCurrenciesList);
-        });
+        String baseCode = PreferenceUtils.getCurrency(context);
+        List<Currency> currencies = deriveForBase(pivotCurrencies, matrix, baseCode);
+
+        // Строки списка форматируются здесь же, в фоновом потоке; фабрика не покидает этот поток
+        CurrencyItem.Factory itemFactory = new CurrencyItem.Factory(context);
+        List<CurrencyItem> items = new ArrayList<>(currencies.size());
+        for (Currency currency : currencies) {
+            items.add(itemFactory.create(currency));
+        }
+        return new CurrencySnapshot(baseCode, currencies, items, matrix);
     }
 
     /**
-     * Загружает базовую валюту (обычно RUB)
+     * Пересчитывает снимок из памяти, если пользователь сменил базовую валюту
+     * с момента последней публикации. Проверка выполняется в главном потоке,
+     * сам пересчет - в пуле чтения.
      */
-    private void loadBaseCurrency() {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            Currency currency = currencyDao.getCurrencyByCodeSync("RUB", PreferenceUtils.getCurrency(context));
-            baseCurrency.postValue(currency);
-        });
+    private void republishIfBaseChanged() {
+        CurrencySnapshot current = snapshot.getValue();
+        List<Currency> pivot = pivotCurrencies;
+        if (current != null && pivot != null
+                && !current.getBaseCode().equals(PreferenceUtils.getCurrency(context))) {
+            scheduler.read("currency_rebase", DatabaseScheduler.PRIORITY_UI, () -> publishSnapshot(pivot));
+        }
     }
 
     /**
-     * Получает валюту по коду
-     * @param code код валюты
-     * @return LiveData с валютой
+     * Пересчитывает снимок курсов относительно указанной базовой валюты
+     * @param snapshot курсы относительно опорной валюты
+     * @param matrix матрица кросс-курсов снимка
+     * @param baseCode базовая валюта пользователя
+     * @return курсы относительно baseCode
      */
-    public LiveData<Currency> getCurrencyByCode(String code) {
-        MutableLiveData<Currency> result = new MutableLiveData<>();
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            Currency currency = currencyDao.getCurrencyByCodeSync(code, PreferenceUtils.getCurrency(context));
-            result.postValue(currency);
-        });
+    private List<Currency> deriveForBase(List<Currency> snapshot, CrossRateMatrix matrix, String baseCode) {
+        List<Currency> result = new ArrayList<>(snapshot.size());
+        int base = matrix != null ? matrix.ordinalOf(baseCode) : -1;
+        if (base < 0) {
+            return result;
+        }
+
+        for (Currency source : snapshot) {
+            int ordinal = matrix.ordinalOf(source.getCode());
+            if (ordinal < 0) continue;
+
+            Currency currency = new Currency();
+            currency.setId(source.getId());
+            currency.setCode(source.getCode());
+            currency.setName(getNameForCurrencyCode(source.getCode(), baseCode));
+            currency.setBaseCurrency(baseCode);
+            currency.setIconUrl(source.getIconUrl());
+            currency.setUpdatedAt(source.getUpdatedAt());
+
+            double rate = matrix.rate(base, ordinal);
+            double previousRate = matrix.previousRate(base, ordinal);
+            double change = ordinal == base ? 0.0 : rate - previousRate;
+            currency.setRate(rate);
+            currency.setChange(change);
+            currency.setChangePercentage(previousRate != 0 ? (change / previousRate) * 100 : 0.0);
+            if (ordinal == base) {
+                currency.setTrend("0");
+            } else if (change > 0) {
+                currency.setTrend("up");
+            } else if (change < 0) {
+                currency.setTrend("down");
+            } else {
+                currency.setTrend("stable");
+            }
+            result.add(currency);
+        }
         return result;
     }
 
-    private void updateCurrencyInDatabase(String code, double rate, String trend, double change,
-                                          double changePercentage, String baseCurrencyCode, Date updateDate) {
-        Currency currency = currencyDao.getCurrencyByCodeSync(code, PreferenceUtils.getCurrency(context));
-        if (currency != null) {
-            // Обновляем существующую валюту
-            var oldRate = currency.getRate();
+    private List<CurrencyRateHistory> buildHistory(CrossRateMatrix matrix, String baseCode, long timestamp) {
+        List<CurrencyRateHistory> history = new ArrayList<>();
+        int base = matrix != null ? matrix.ordinalOf(baseCode) : -1;
+        if (base < 0) {
+            return history;
+        }
+        for (int i = 0; i < matrix.size(); i++) {
+            if (i == base) continue;
+            history.add(CurrencyRateHistory.rawPoint(matrix.codeAt(i), baseCode, timestamp, matrix.rate(base, i)));
+        }
+        return history;
+    }
+
+    /**
+     * Получает историю курса валюты относительно базы пользователя за период.
+     * История хранится относительно опорной валюты, для другой базы курс
+     * считается при чтении: rate(code) / rate(base) в каждой точке.
+     * @param code код валюты
+     * @param from начало периода (мс)
+     * @param to конец периода (мс)
+     * @return LiveData с точками истории по возрастанию времени
+     */
+    public LiveData<List<CurrencyRateHistory>> getRateHistory(String code, long from, long to) {
+        String baseCode = PreferenceUtils.getCurrency(context);
+        if (PIVOT_CURRENCY.equals(baseCode)) {
+            return historyDao.getHistory(code, PIVOT_CURRENCY, from, to);
+        }
+        return historyDao.getCrossHistory(code, baseCode, PIVOT_CURRENCY, from, to);
+    }
+
+    /**
+     * Подготавливает запись валюты для пакетного сохранения.
+     * Изменение курса и тренд считаются относительно уже сохраненной записи.
+     * @param existing сохраненная запись или null, если валюты еще нет
+     * @return новая или обновленная запись
+     */
+    private Currency buildCurrency(Currency existing, String code, double rate,
+                                   String baseCurrencyCode, Date updateDate) {
+        if (code.equals(baseCurrencyCode)) {
+            Currency currency = existing != null ? existing : newCurrency(code, baseCurrencyCode);
             currency.setRate(rate);
-            currency.setTrend(trend);
-            if (oldRate != currency.getRate())
-            {
-                currency.setChange(change); // Меняем только если были изменения в цене
-                currency.setChangePercentage(changePercentage);
-            }
-            currency.setBaseCurrency(baseCurrencyCode);
+            currency.setTrend("0");
+            currency.setChange(0.0);
+            currency.setChangePercentage(0.0);
             currency.setUpdatedAt(updateDate);
-            currencyDao.update(currency);
-        } else {
+            return currency;
+        }
+
+        if (existing == null) {
             // Создаем новую валюту
-            currency = new Currency();
-            currency.setCode(code);
-            currency.setName(getNameForCurrencyCode(code, baseCurrencyCode));
+            Currency currency = newCurrency(code, baseCurrencyCode);
             currency.setRate(rate);
-            currency.setTrend(trend);
-            currency.setChange(change);
-            currency.setChangePercentage(changePercentage);
-            currency.setBaseCurrency(baseCurrencyCode);
+            currency.setTrend("stable");
+            currency.setChange(0.0);
+            currency.setChangePercentage(0.0);
             currency.setUpdatedAt(updateDate);
-            currency.setIconUrl("ic_currency_" + code.toLowerCase());
-            currencyDao.insert(currency);
+            return currency;
+        }
+
+        // Обновляем существующую валюту
+        double oldRate = existing.getRate();
+        double change = rate - oldRate;
+        String trend = "stable";
+        if (change > 0) {
+            trend = "up";
+        } else if (change < 0) {
+            trend = "down";
+        }
+
+        existing.setRate(rate);
+        existing.setTrend(trend);
+        if (change != 0) {
+            existing.setChange(change); // Меняем только если были изменения в цене
+            existing.setChangePercentage(oldRate != 0 ? (change / oldRate) * 100 : 0.0);
         }
+        existing.setUpdatedAt(updateDate);
+        return existing;
+    }
+
+    private Currency newCurrency(String code, String baseCurrencyCode) {
+        Currency currency = new Currency();
+        currency.setCode(code);
+        currency.setName(getNameForCurrencyCode(code, baseCurrencyCode));
+        currency.setBaseCurrency(baseCurrencyCode);
+        currency.setIconUrl("ic_currency_" + code.toLowerCase());
+        return currency;
     }
 
     private String getNameForCurrencyCode(String currencyCode, String baseCode) {
@@ -362,16 +569,8 @@ public class CurrencyRepository {
 
 
     // Геттеры LiveData объектов
-    public LiveData<List<Currency>> getAllCurrencies() {
-        return allCurrencies;
-    }
-
-    public LiveData<List<Currency>> getPopularCurrencies() {
-        return popularCurrencies;
-    }
-
-    public LiveData<Currency> getBaseCurrency() {
-        return baseCurrency;
+    public LiveData<CurrencySnapshot> getSnapshot() {
+        return snapshot;
     }
 
     public LiveData<Boolean> getIsLoading() {
@@ -0,0 +1,95 @@
+package com.example.diplom.repository;
+
+import com.example.diplom.currency.CrossRateMatrix;
+import com.example.diplom.currency.CurrencyItem;
+import com.example.diplom.database.entities.Currency;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок курсов валют, публикуемый репозиторием одним обновлением.
+ * Содержит полный список курсов относительно базы пользователя, популярные валюты,
+ * базовую валюту, матрицу кросс-курсов и готовые к отображению строки списка -
+ * все производное от одного запроса к базе.
+ */
+public final class CurrencySnapshot {
+
+    // Популярные валюты в порядке отображения
+    private static final String[] POPULAR_CODES = {"RUB", "USD", "EUR"};
+    // Валюта, показываемая как базовая (обычно RUB)
+    private static final String DISPLAY_BASE_CODE = "RUB";
+
+    private final String baseCode;
+    private final List<Currency> currencies;
+    private final List<CurrencyItem> items;
+    private final List<Currency> popularCurrencies;
+    private final Currency baseCurrency;
+    private final CrossRateMatrix crossRates;
+    private final Map<String, Currency> byCode;
+
+    public CurrencySnapshot(String baseCode, List<Currency> currencies, List<CurrencyItem> items,
+                            CrossRateMatrix crossRates) {
+        this.baseCode = baseCode;
+        this.currencies = Collections.unmodifiableList(new ArrayList<>(currencies));
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.crossRates = crossRates;
+
+        byCode = new HashMap<>(currencies.size() * 2);
+        for (Currency currency : currencies) {
+            byCode.put(currency.getCode(), currency);
+        }
+
+        List<Currency> popular = new ArrayList<>(POPULAR_CODES.length);
+        for (String code : POPULAR_CODES) {
+            Currency currency = byCode.get(code);
+            if (currency != null) popular.add(currency);
+        }
+        this.popularCurrencies = Collections.unmodifiableList(popular);
+        this.baseCurrency = byCode.get(DISPLAY_BASE_CODE);
+    }
+
+    /**
+     * Находит валюту в снимке по коду
+     * @param code код валюты
+     * @return валюта или null, если ее нет в снимке
+     */
+    public Currency findByCode(String code) {
+        return byCode.get(code);
+    }
+
+    public boolean isEmpty() {
+        return currencies.isEmpty();
+    }
+
+    // Геттеры
+    public String getBaseCode() {
+        return baseCode;
+    }
+
+    public List<Currency> getCurrencies() {
+        return currencies;
+    }
+
+    /**
+     * Строки списка валют в том же порядке, что и getCurrencies()
+     */
+    public List<CurrencyItem> getItems() {
+        return items;
+    }
+
+    public List<Currency> getPopularCurrencies() {
+        return popularCurrencies;
+    }
+
+    public Currency getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public CrossRateMatrix getCrossRates() {
+        return crossRates;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.diplom.utils;
+
+import android.content.Context;
+
+import com.example.diplom.R;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Идентификаторы drawable флагов валют.
+ * getIdentifier() ищет ресурс по имени и работает медленно, поэтому
+ * идентификатор для каждого кода определяется один раз и кэшируется.
+ */
+public final class CurrencyFlags {
+
+    private static final Map<String, Integer> FLAG_IDS = new ConcurrentHashMap<>();
+
+    private CurrencyFlags() {
+    }
+
+    /**
+     * Возвращает drawable флага валюты
+     * @param context контекст для доступа к ресурсам
+     * @param currencyCode код валюты
+     * @return идентификатор ресурса флага или ic_currency_default, если флага нет
+     */
+    public static int getFlagResId(Context context, String currencyCode) {
+        if (currencyCode == null || currencyCode.isEmpty()) {
+            return R.drawable.ic_currency_default;
+        }
+        String key = currencyCode.toLowerCase(Locale.ROOT);
+        Integer cached = FLAG_IDS.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int resId = context.getResources().getIdentifier("ic_currency_" + key, "drawable", context.getPackageName());
+        if (resId == 0) {
+            resId = R.drawable.ic_currency_default;
+        }
+        FLAG_IDS.put(key, resId);
+        return resId;
+    }
+}
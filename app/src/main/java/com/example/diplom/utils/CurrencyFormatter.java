@@ -1,21 +1,166 @@
 package com.example.diplom.utils;
 
+import android.content.Context;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
+import java.util.Currency;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Утилитный класс для форматирования валютных значений.
+ * Потокобезопасное форматирование денежных сумм.
+ * Форматтеры хранятся в реестре по паре (локаль, код валюты) и создаются один раз.
+ * Суммы в копейках с двумя знаками после запятой форматируются собственным кодом
+ * по символам и префиксам, взятым из NumberFormat локали, без общего изменяемого состояния.
+ * Для остальных случаев у каждого потока свой экземпляр NumberFormat.
  */
-public class CurrencyFormatter {
+public final class CurrencyFormatter {
+
+    private static final Map<String, CurrencyFormatter> REGISTRY = new ConcurrentHashMap<>();
+    // Проверочная сумма: быстрый путь должен совпасть с NumberFormat (группировка, цифры, знак)
+    private static final long FAST_PATH_PROBE = 123_456_789_012L;
+
+    private final ThreadLocal<NumberFormat> numberFormat;
+
+    // Данные для быстрого форматирования копеек; fastPath = false, если формат локали не поддерживается
+    private final boolean fastPath;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+    private final int groupingSize;
+
+    private CurrencyFormatter(Locale locale, String currencyCode) {
+        numberFormat = ThreadLocal.withInitial(() -> createFormat(locale, currencyCode));
+
+        NumberFormat template = createFormat(locale, currencyCode);
+        if (template instanceof DecimalFormat
+                && template.getMaximumFractionDigits() == Money.MINOR_DIGITS
+                && template.getMinimumFractionDigits() == Money.MINOR_DIGITS) {
+            DecimalFormat decimalFormat = (DecimalFormat) template;
+            DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+            positivePrefix = decimalFormat.getPositivePrefix();
+            positiveSuffix = decimalFormat.getPositiveSuffix();
+            negativePrefix = decimalFormat.getNegativePrefix();
+            negativeSuffix = decimalFormat.getNegativeSuffix();
+            groupingSeparator = symbols.getGroupingSeparator();
+            decimalSeparator = symbols.getMonetaryDecimalSeparator();
+            groupingSize = decimalFormat.isGroupingUsed() ? decimalFormat.getGroupingSize() : 0;
+            // Локали со вторичной группировкой (hi-IN: 1,23,45,678.90) или нелатинскими цифрами
+            // быстрый путь не воспроизводит, для них остается NumberFormat
+            fastPath = formatFast(FAST_PATH_PROBE).equals(template.format(Money.toMajor(FAST_PATH_PROBE)))
+                    && formatFast(-FAST_PATH_PROBE).equals(template.format(Money.toMajor(-FAST_PATH_PROBE)));
+        } else {
+            fastPath = false;
+            positivePrefix = positiveSuffix = negativePrefix = negativeSuffix = "";
+            groupingSeparator = decimalSeparator = 0;
+            groupingSize = 0;
+        }
+    }
+
+    /**
+     * Возвращает форматтер для локали и валюты
+     * @param locale локаль отображения
+     * @param currencyCode код валюты ISO 4217
+     * @return общий потокобезопасный форматтер
+     */
+    public static CurrencyFormatter get(Locale locale, String currencyCode) {
+        String key = locale.toLanguageTag() + "|" + currencyCode;
+        CurrencyFormatter formatter = REGISTRY.get(key);
+        if (formatter == null) {
+            formatter = REGISTRY.computeIfAbsent(key, k -> new CurrencyFormatter(locale, currencyCode));
+        }
+        return formatter;
+    }
+
+    /**
+     * Форматтер для сумм в валюте учета (Money.LEDGER_CURRENCY): расходы, итоги, чеки
+     */
+    public static CurrencyFormatter forLedger() {
+        return get(Locale.getDefault(), Money.LEDGER_CURRENCY);
+    }
 
-    private static final NumberFormat numberFormat = NumberFormat.getCurrencyInstance(new Locale("ru", "RU"));
+    /**
+     * Форматтер для текущего языка приложения и валюты из настроек пользователя.
+     * Только для сумм, уже пересчитанных в эту валюту; суммы учета - см. forLedger().
+     * @param context контекст для чтения настроек
+     */
+    public static CurrencyFormatter forUser(Context context) {
+        return get(Locale.getDefault(), PreferenceUtils.getCurrency(context));
+    }
+
+    private static NumberFormat createFormat(Locale locale, String currencyCode) {
+        NumberFormat format = NumberFormat.getCurrencyInstance(locale);
+        try {
+            Currency currency = Currency.getInstance(currencyCode);
+            format.setCurrency(currency);
+            int digits = currency.getDefaultFractionDigits();
+            if (digits >= 0) {
+                format.setMinimumFractionDigits(digits);
+                format.setMaximumFractionDigits(digits);
+            }
+        } catch (IllegalArgumentException | NullPointerException e) {
+            // Неизвестный код: остается валюта локали
+        }
+        return format;
+    }
 
     /**
-     * Форматирует сумму в валютный формат (руб.)
+     * Форматирует сумму в основных единицах
      * @param amount сумма для форматирования
      * @return отформатированная сумма с символом валюты
      */
-    public static String format(double amount) {
-        return numberFormat.format(amount);
+    public String format(double amount) {
+        return numberFormat.get().format(amount);
+    }
+
+    /**
+     * Форматирует сумму в копейках
+     * @param amountMinor сумма в копейках (см. Money)
+     * @return отформатированная сумма с символом валюты
+     */
+    public String formatMinor(long amountMinor) {
+        if (!fastPath || amountMinor == Long.MIN_VALUE) {
+            // BigDecimal, а не double: суммы больше 2^53 копеек форматируются без потери точности
+            return numberFormat.get().format(BigDecimal.valueOf(amountMinor, Money.MINOR_DIGITS));
+        }
+        return formatFast(amountMinor);
+    }
+
+    private String formatFast(long amountMinor) {
+        boolean negative = amountMinor < 0;
+        long value = negative ? -amountMinor : amountMinor;
+        long integerPart = value / Money.MINOR_PER_MAJOR;
+        int fraction = (int) (value % Money.MINOR_PER_MAJOR);
+
+        StringBuilder builder = new StringBuilder(32);
+        builder.append(negative ? negativePrefix : positivePrefix);
+        appendGrouped(builder, integerPart);
+        builder.append(decimalSeparator)
+                .append((char) ('0' + fraction / 10))
+                .append((char) ('0' + fraction % 10));
+        builder.append(negative ? negativeSuffix : positiveSuffix);
+        return builder.toString();
+    }
+
+    private void appendGrouped(StringBuilder builder, long value) {
+        String digits = Long.toString(value);
+        int length = digits.length();
+        if (groupingSize <= 0) {
+            builder.append(digits);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && (length - i) % groupingSize == 0) {
+                builder.append(groupingSeparator);
+            }
+            builder.append(digits.charAt(i));
+        }
     }
 }
@@ -3,9 +3,10 @@ package com.example.diplom.utils;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Locale;
@@ -15,6 +16,12 @@ import java.util.Locale;
  */
 public class DateUtils {
 
+    // Форматтеры DateTimeFormatter неизменяемы и потокобезопасны, поэтому создаются один раз
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final DateTimeFormatter MONTH_YEAR_FORMATTER =
+            DateTimeFormatter.ofPattern("MMMM yyyy", new Locale("ru"));
+
     /**
      * Возвращает строковое представление даты в формате "dd.MM.yyyy"
      * @param date дата для форматирования
@@ -25,8 +32,7 @@ public class DateUtils {
             return "";
         }
         LocalDate localDate = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        return localDate.format(formatter);
+        return localDate.format(DATE_FORMATTER);
     }
 
     /**
@@ -39,8 +45,7 @@ public class DateUtils {
             return "";
         }
         LocalDateTime localDateTime = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-        return localDateTime.format(formatter);
+        return localDateTime.format(DATE_TIME_FORMATTER);
     }
 
     /**
@@ -53,8 +58,7 @@ public class DateUtils {
             return "";
         }
         LocalDate localDate = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM yyyy", new Locale("ru"));
-        return localDate.format(formatter);
+        return localDate.format(MONTH_YEAR_FORMATTER);
     }
 
     /**
@@ -104,43 +108,105 @@ public class DateUtils {
     }
 
     /**
-     * Преобразует строку с датой в объект Date
+     * Преобразует строку с датой в объект Date.
+     * Формат определяется по длине строки и положению разделителей, без перебора
+     * форматтеров и без исключений:
+     * yyyy-MM-dd, yyyy-MM-dd'T'HH:mm:ss, yyyy-MM-dd HH:mm:ss, dd.MM.yyyy, dd/MM/yyyy,
+     * yyyyMMdd'T'HHmm и yyyyMMdd'T'HHmmss (формат QR-кодов чеков).
      * @param dateStr строка с датой в различных форматах
-     * @return объект Date или null, если преобразование не удалось
+     * @return объект Date или текущая дата, если строку не удалось разобрать
      */
     public static Date parseDate(String dateStr) {
         if (dateStr == null || dateStr.isEmpty()) {
             return null;
         }
 
-        // Определяем различные форматы даты
-        DateTimeFormatter[] dateFormatters = {
-                DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-                DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"),
-                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
-                DateTimeFormatter.ofPattern("dd.MM.yyyy"),
-                DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-                DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm")
-        };
-
-        for (DateTimeFormatter formatter : dateFormatters) {
-            try {
-                // Пробуем парсить как дату с временем
-                if (formatter.toString().contains("HH:mm:ss")) {
-                    LocalDateTime localDateTime = LocalDateTime.parse(dateStr, formatter);
-                    return Date.from(localDateTime.atZone(ZoneId.systemDefault()).toInstant());
-                } else {
-                    // Парсим как просто дату
-                    LocalDate localDate = LocalDate.parse(dateStr, formatter);
-                    return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
-                }
-            } catch (DateTimeParseException e) {
-                // Пропускаем и пробуем следующий формат
+        LocalDateTime dateTime = parseLocalDateTime(dateStr);
+        if (dateTime == null) {
+            // Если ни один формат не подошел, возвращаем текущую дату
+            return new Date();
+        }
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Разбирает строку одного из поддерживаемых форматов
+     * @param s строка с датой
+     * @return дата и время (для форматов без времени - начало дня) или null, если формат не распознан
+     */
+    public static LocalDateTime parseLocalDateTime(String s) {
+        return parseLocalDateTime(s, 0, s.length());
+    }
+
+    /**
+     * Разбирает часть строки [from, to) одного из поддерживаемых форматов без создания подстроки
+     * @param s строка, содержащая дату
+     * @param from начало даты
+     * @param to конец даты (не включая)
+     * @return дата и время (для форматов без времени - начало дня) или null, если формат не распознан
+     */
+    public static LocalDateTime parseLocalDateTime(CharSequence s, int from, int to) {
+        int length = to - from;
+        if (length == 10) {
+            char separator = s.charAt(from + 2);
+            if (s.charAt(from + 4) == '-' && s.charAt(from + 7) == '-') {
+                // yyyy-MM-dd
+                return of(number(s, from, 4), number(s, from + 5, 2), number(s, from + 8, 2), 0, 0, 0);
             }
+            if ((separator == '.' || separator == '/') && s.charAt(from + 5) == separator) {
+                // dd.MM.yyyy и dd/MM/yyyy
+                return of(number(s, from + 6, 4), number(s, from + 3, 2), number(s, from, 2), 0, 0, 0);
+            }
+            return null;
+        }
+        if (length == 19) {
+            char separator = s.charAt(from + 10);
+            if (s.charAt(from + 4) == '-' && s.charAt(from + 7) == '-' && (separator == 'T' || separator == ' ')
+                    && s.charAt(from + 13) == ':' && s.charAt(from + 16) == ':') {
+                // yyyy-MM-dd'T'HH:mm:ss и yyyy-MM-dd HH:mm:ss
+                return of(number(s, from, 4), number(s, from + 5, 2), number(s, from + 8, 2),
+                        number(s, from + 11, 2), number(s, from + 14, 2), number(s, from + 17, 2));
+            }
+            return null;
         }
+        if ((length == 13 || length == 15) && s.charAt(from + 8) == 'T') {
+            // yyyyMMdd'T'HHmm и yyyyMMdd'T'HHmmss
+            int second = length == 15 ? number(s, from + 13, 2) : 0;
+            return of(number(s, from, 4), number(s, from + 4, 2), number(s, from + 6, 2),
+                    number(s, from + 9, 2), number(s, from + 11, 2), second);
+        }
+        return null;
+    }
+
+    /**
+     * Число из цифр строки
+     * @return значение или -1, если среди символов есть не цифры
+     */
+    private static int number(CharSequence s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
 
-        // Если ни один формат не подошел, возвращаем текущую дату
-        return new Date();
+    /**
+     * Собирает дату с проверкой диапазонов, чтобы LocalDateTime.of не бросал исключение
+     * @return дата или null, если поле вне допустимого диапазона
+     */
+    private static LocalDateTime of(int year, int month, int day, int hour, int minute, int second) {
+        if (year < 1 || month < 1 || month > 12 || day < 1
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        if (day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second);
     }
 
     // Вспомогательные методы для конвертации между Date и LocalDate/LocalDateTime
@@ -0,0 +1,89 @@
+package com.example.diplom.utils;
+
+/**
+ * Стабильная сортировка индексов по ключам-примитивам без упаковки в объекты.
+ * Ключи и индексы хранятся в параллельных массивах и переставляются вместе.
+ */
+public final class IndexSort {
+
+    // Короткие отрезки досортировываются вставками
+    private static final int INSERTION_THRESHOLD = 16;
+
+    private IndexSort() {
+    }
+
+    /**
+     * Сортирует первые count элементов по возрастанию ключа; при равных ключах порядок сохраняется
+     * @param keys ключи сортировки
+     * @param indices индексы, переставляемые вместе с ключами
+     * @param count количество используемых элементов
+     */
+    public static void sortByKey(long[] keys, int[] indices, int count) {
+        if (count < 2) {
+            return;
+        }
+
+        // Сортировка вставками коротких отрезков
+        for (int from = 0; from < count; from += INSERTION_THRESHOLD) {
+            int to = Math.min(from + INSERTION_THRESHOLD, count);
+            for (int i = from + 1; i < to; i++) {
+                long key = keys[i];
+                int index = indices[i];
+                int j = i - 1;
+                while (j >= from && keys[j] > key) {
+                    keys[j + 1] = keys[j];
+                    indices[j + 1] = indices[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                indices[j + 1] = index;
+            }
+        }
+        if (count <= INSERTION_THRESHOLD) {
+            return;
+        }
+
+        // Слияние отрезков снизу вверх через буферы
+        long[] sourceKeys = keys;
+        int[] sourceIndices = indices;
+        long[] targetKeys = new long[count];
+        int[] targetIndices = new int[count];
+        for (int width = INSERTION_THRESHOLD; width < count; width <<= 1) {
+            for (int left = 0; left < count; left += width << 1) {
+                int middle = Math.min(left + width, count);
+                int right = Math.min(left + (width << 1), count);
+                int i = left;
+                int j = middle;
+                int k = left;
+                while (i < middle && j < right) {
+                    if (sourceKeys[j] < sourceKeys[i]) {
+                        targetKeys[k] = sourceKeys[j];
+                        targetIndices[k++] = sourceIndices[j++];
+                    } else {
+                        targetKeys[k] = sourceKeys[i];
+                        targetIndices[k++] = sourceIndices[i++];
+                    }
+                }
+                while (i < middle) {
+                    targetKeys[k] = sourceKeys[i];
+                    targetIndices[k++] = sourceIndices[i++];
+                }
+                while (j < right) {
+                    targetKeys[k] = sourceKeys[j];
+                    targetIndices[k++] = sourceIndices[j++];
+                }
+            }
+            long[] swapKeys = sourceKeys;
+            sourceKeys = targetKeys;
+            targetKeys = swapKeys;
+            int[] swapIndices = sourceIndices;
+            sourceIndices = targetIndices;
+            targetIndices = swapIndices;
+        }
+
+        if (sourceKeys != keys) {
+            System.arraycopy(sourceKeys, 0, keys, 0, count);
+            System.arraycopy(sourceIndices, 0, indices, 0, count);
+        }
+    }
+}
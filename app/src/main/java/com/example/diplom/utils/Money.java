@@ -0,0 +1,217 @@
+package com.example.diplom.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежная арифметика над целыми числами.
+ * Суммы хранятся в копейках (минорных единицах) в long, курсы валют - в long
+ * с фиксированной точкой (RATE_SCALE). Арифметика над суммами (сложение, вычитание,
+ * умножение, конвертация по курсу) и разбор ввода (parseInput) точны, не создают
+ * объектов и при переполнении бросают ArithmeticException.
+ * Перевод из дробного числа и строки (ofMajor, parse, rateOf) идет через BigDecimal
+ * и выполняется только на границе: при вводе пользователя и при загрузке снимка курсов.
+ */
+public final class Money {
+
+    // Валюта учета: суммы расходов и чеков хранятся в копейках этой валюты
+    public static final String LEDGER_CURRENCY = "RUB";
+    // Количество знаков после запятой у суммы
+    public static final int MINOR_DIGITS = 2;
+    // Минорных единиц в одной основной (копеек в рубле)
+    public static final long MINOR_PER_MAJOR = 100L;
+    // Масштаб курса: курс 1.0 хранится как RATE_SCALE (10 знаков после запятой)
+    public static final long RATE_SCALE = 10_000_000_000L;
+    private static final int RATE_DIGITS = 10;
+
+    private Money() {
+    }
+
+    /**
+     * Переводит сумму в основных единицах в копейки с округлением до копейки (HALF_UP)
+     * @param major сумма в рублях
+     * @return сумма в копейках
+     */
+    public static long ofMajor(double major) {
+        return BigDecimal.valueOf(major)
+                .setScale(MINOR_DIGITS, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    /**
+     * Разбирает сумму из строки ("123.45" или "123,45")
+     * @param text строка с суммой
+     * @return сумма в копейках
+     * @throws NumberFormatException если строка не является числом или не помещается в long
+     */
+    public static long parse(String text) {
+        if (text == null) {
+            throw new NumberFormatException("null");
+        }
+        try {
+            return new BigDecimal(text.trim().replace(',', '.'))
+                    .setScale(MINOR_DIGITS, RoundingMode.HALF_UP)
+                    .unscaledValue()
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException(text);
+        }
+    }
+
+    /**
+     * Разбирает неотрицательную сумму из поля ввода без создания объектов.
+     * Допускаются цифры и один разделитель дробной части, лишние знаки дробной
+     * части округляются до копейки (HALF_UP), как в parse.
+     * @param text введенный текст
+     * @param separator разделитель дробной части локали (точка допускается всегда)
+     * @return сумма в копейках или -1, если текст не является суммой
+     * @throws ArithmeticException если сумма не помещается в long
+     */
+    public static long parseInput(CharSequence text, char separator) {
+        long minor = 0;
+        int fractionDigits = -1;
+        boolean hasDigits = false;
+        boolean roundUp = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (fractionDigits < MINOR_DIGITS) {
+                    minor = Math.addExact(Math.multiplyExact(minor, 10L), c - '0');
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (fractionDigits == MINOR_DIGITS) {
+                    // Округление решает только первый отброшенный знак
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else if ((c == separator || c == '.') && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (!hasDigits) {
+            return -1;
+        }
+        for (int i = Math.max(fractionDigits, 0); i < MINOR_DIGITS; i++) {
+            minor = Math.multiplyExact(minor, 10L);
+        }
+        return roundUp ? Math.addExact(minor, 1L) : minor;
+    }
+
+    /**
+     * Строка суммы для поля ввода ("123.45")
+     * @param minor сумма в копейках
+     */
+    public static String toPlainString(long minor) {
+        return BigDecimal.valueOf(minor, MINOR_DIGITS).toPlainString();
+    }
+
+    /**
+     * Переводит копейки в рубли для отображения и графиков
+     */
+    public static double toMajor(long minor) {
+        return minor / (double) MINOR_PER_MAJOR;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long minor, long quantity) {
+        return Math.multiplyExact(minor, quantity);
+    }
+
+    /**
+     * Доля части от целого в процентах, округленная до целого
+     */
+    public static int percentOf(long part, long total) {
+        return total == 0 ? 0 : (int) Math.round(part * 100.0 / total);
+    }
+
+    /**
+     * Переводит курс в формат с фиксированной точкой с округлением до 10 знаков (HALF_UP).
+     * Берется десятичная запись числа, поэтому курс 0.285 хранится ровно как 0.285.
+     * @param rate курс
+     * @return курс, умноженный на RATE_SCALE
+     * @throws ArithmeticException если курс не конечен или не помещается в long
+     */
+    public static long rateOf(double rate) {
+        if (!Double.isFinite(rate)) {
+            throw new ArithmeticException("rate " + rate);
+        }
+        return BigDecimal.valueOf(rate)
+                .setScale(RATE_DIGITS, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    /**
+     * Переводит курс с фиксированной точкой в дробное число
+     */
+    public static double rateToDouble(long scaledRate) {
+        return scaledRate / (double) RATE_SCALE;
+    }
+
+    /**
+     * Конвертирует сумму по курсу с фиксированной точкой точно, с округлением до копейки (HALF_UP).
+     * Произведение считается в 128 битах, поэтому результат точен во всем диапазоне long
+     * и вычисляется без создания объектов.
+     * @param minor сумма в копейках исходной валюты
+     * @param scaledRate курс, умноженный на RATE_SCALE (см. rateOf)
+     * @return сумма в копейках целевой валюты
+     * @throws ArithmeticException если результат не помещается в long
+     */
+    public static long convert(long minor, long scaledRate) {
+        long high = Math.multiplyHigh(minor, scaledRate);
+        long low = minor * scaledRate;
+        if (high == (low >> 63)) {
+            // Произведение помещается в long
+            long quotient = low / RATE_SCALE;
+            long remainder = low % RATE_SCALE;
+            // Остаток меньше RATE_SCALE по модулю, удвоение не переполняется
+            if (Math.abs(remainder) * 2 >= RATE_SCALE) {
+                quotient += Long.signum(low);
+            }
+            return quotient;
+        }
+
+        // Модуль 128-битного произведения (high:low)
+        boolean negative = high < 0;
+        if (negative) {
+            low = -low;
+            high = low == 0 ? -high : ~high;
+        }
+        // Старшее слово само не меньше RATE_SCALE - частное больше 64 бит
+        if (Long.compareUnsigned(high, RATE_SCALE) >= 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        // Деление (high:low) на RATE_SCALE по 16 бит: остаток < 2^34, сдвинутый - < 2^50
+        long remainder = high;
+        long quotient = 0;
+        for (int shift = 48; shift >= 0; shift -= 16) {
+            long current = (remainder << 16) | ((low >>> shift) & 0xFFFF);
+            quotient = (quotient << 16) | (current / RATE_SCALE);
+            remainder = current % RATE_SCALE;
+        }
+        if (remainder * 2 >= RATE_SCALE) {
+            if (quotient == -1) {
+                throw new ArithmeticException("long overflow");
+            }
+            quotient++;
+        }
+        // Частное без знака: положительный результат не больше Long.MAX_VALUE,
+        // отрицательный - не меньше Long.MIN_VALUE
+        if (quotient < 0 && !(negative && quotient == Long.MIN_VALUE)) {
+            throw new ArithmeticException("long overflow");
+        }
+        return negative ? -quotient : quotient;
+    }
+}
@@ -22,6 +22,7 @@ public class PreferenceUtils {
     private static final String PREF_USE_DYNAMIC_COLORS = "use_dynamic_colors";
     private static final String PREF_FIRST_RUN = "first_run";
     private static final String PREF_CURRENCY = "currency";
+    private static final String PREF_DAILY_TOTALS_ZONE = "daily_totals_zone";
 
     // Значения для темы
     public static final String THEME_LIGHT = "light";
@@ -180,4 +181,24 @@ public class PreferenceUtils {
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
         prefs.edit().putString(PREF_CURRENCY, currencyCode).apply();
     }
-}
\ No newline at end of file
+
+    /**
+     * Получает часовой пояс, в котором посчитаны дневные агрегаты расходов
+     * @param context контекст приложения
+     * @return идентификатор пояса с версией базы поясов или null, если агрегаты еще не проверялись
+     */
+    public static String getDailyTotalsZone(Context context) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        return prefs.getString(PREF_DAILY_TOTALS_ZONE, null);
+    }
+
+    /**
+     * Сохраняет часовой пояс, в котором посчитаны дневные агрегаты расходов
+     * @param context контекст приложения
+     * @param zone идентификатор пояса с версией базы поясов
+     */
+    public static void setDailyTotalsZone(Context context, String zone) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        prefs.edit().putString(PREF_DAILY_TOTALS_ZONE, zone).apply();
+    }
+}
@@ -1,58 +1,275 @@
 package com.example.diplom.utils;
 
+import com.example.diplom.receipts.FiscalReceipt;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * Утилитный класс для парсинга QR-кодов фискальных чеков
+ * Утилитный класс для парсинга QR-кодов фискальных чеков.
+ * Строка вида t=20240115T1230&s=1234.56&fn=...&i=...&fp=...&n=1 разбирается за один проход
+ * по символам, без регулярных выражений и промежуточных строк.
+ * Значения проверяются строго: только цифры нужной длины, корректные дата и время,
+ * не больше двух знаков копеек, без повторов параметров.
  */
 public class QRReceiptParser {
 
+    // Ограничения длины значений (в цифрах)
+    private static final int MAX_FN_DIGITS = 16;
+    private static final int MAX_DOCUMENT_DIGITS = 10;
+    private static final int MAX_SIGN_DIGITS = 10;
+    // Рубли суммы: с запасом до переполнения long в копейках
+    private static final int MAX_AMOUNT_DIGITS = 15;
+
+    // Допустимые типы операции (n): приход, возврат прихода, расход, возврат расхода
+    private static final int MIN_OPERATION_TYPE = 1;
+    private static final int MAX_OPERATION_TYPE = 4;
+
+    // Ошибка разбора числа
+    private static final long INVALID = -1;
+
+    // Биты уже встреченных параметров
+    private static final int KEY_T = 1;
+    private static final int KEY_S = 1 << 1;
+    private static final int KEY_FN = 1 << 2;
+    private static final int KEY_I = 1 << 3;
+    private static final int KEY_FP = 1 << 4;
+    private static final int KEY_N = 1 << 5;
+    private static final int REQUIRED_KEYS = KEY_T | KEY_S | KEY_FN | KEY_I | KEY_FP;
+
     /**
-     * Извлекает сумму из QR-кода чека
-     * @param qrContent содержимое QR-кода
-     * @return сумма чека или null, если не удалось извлечь
+     * Разбирает все реквизиты чека из QR-кода
+     * @param qrContent содержимое QR-кода (t=...&s=...&fn=...&i=...&fp=...&n=...)
+     * @return реквизиты чека или null, если нет обязательного параметра, параметр повторяется
+     * или значение некорректно
      */
-    public static Double extractAmount(String qrContent) {
+    public static FiscalReceipt parseReceipt(String qrContent) {
         if (qrContent == null) {
             return null;
         }
 
-        // Паттерн для поиска параметра s=xxx
-        Pattern pattern = Pattern.compile("s=([0-9]+(\\.[0-9]+)?)");
-        Matcher matcher = pattern.matcher(qrContent);
+        int start = 0;
+        int end = qrContent.length();
+        while (start < end && qrContent.charAt(start) <= ' ') start++;
+        while (end > start && qrContent.charAt(end - 1) <= ' ') end--;
 
-        if (matcher.find()) {
-            try {
-                String amountStr = matcher.group(1);
-                return Double.parseDouble(amountStr);
-            } catch (NumberFormatException e) {
+        int seen = 0;
+        long timestamp = 0;
+        long amount = 0;
+        long fn = 0;
+        long documentNumber = 0;
+        long fiscalSign = 0;
+        int operationType = FiscalReceipt.OPERATION_INCOME;
+
+        int position = start;
+        while (position < end) {
+            int equals = indexOf(qrContent, '=', position, end);
+            int separator = indexOf(qrContent, '&', position, end);
+            if (equals >= separator || equals == position) {
+                // Параметр без имени или без '='
                 return null;
             }
+            int key = keyOf(qrContent, position, equals);
+            int valueStart = equals + 1;
+
+            if (key != 0) {
+                if ((seen & key) != 0) {
+                    return null;
+                }
+                seen |= key;
+            }
+
+            switch (key) {
+                case KEY_T:
+                    timestamp = parseTime(qrContent, valueStart, separator);
+                    if (timestamp == Long.MIN_VALUE) return null;
+                    break;
+                case KEY_S:
+                    amount = parseAmount(qrContent, valueStart, separator);
+                    if (amount == INVALID) return null;
+                    break;
+                case KEY_FN:
+                    fn = parseDigits(qrContent, valueStart, separator, MAX_FN_DIGITS);
+                    if (fn == INVALID) return null;
+                    break;
+                case KEY_I:
+                    documentNumber = parseDigits(qrContent, valueStart, separator, MAX_DOCUMENT_DIGITS);
+                    if (documentNumber == INVALID) return null;
+                    break;
+                case KEY_FP:
+                    fiscalSign = parseDigits(qrContent, valueStart, separator, MAX_SIGN_DIGITS);
+                    if (fiscalSign == INVALID) return null;
+                    break;
+                case KEY_N:
+                    long operation = parseDigits(qrContent, valueStart, separator, 1);
+                    if (operation < MIN_OPERATION_TYPE || operation > MAX_OPERATION_TYPE) return null;
+                    operationType = (int) operation;
+                    break;
+                default:
+                    // Неизвестные параметры пропускаются
+                    break;
+            }
+
+            position = separator + 1;
+            if (position == end) {
+                // Строка не должна заканчиваться разделителем
+                return null;
+            }
+        }
+
+        if ((seen & REQUIRED_KEYS) != REQUIRED_KEYS) {
+            return null;
+        }
+        return new FiscalReceipt(fn, documentNumber, fiscalSign, timestamp, amount, operationType);
+    }
+
+    /**
+     * Извлекает сумму из QR-кода чека
+     * @param qrContent содержимое QR-кода
+     * @return сумма чека или null, если не удалось извлечь
+     */
+    public static Double extractAmount(String qrContent) {
+        if (qrContent == null) {
+            return null;
         }
 
-        return null;
+        int valueStart = findValue(qrContent, 's');
+        if (valueStart < 0) {
+            return null;
+        }
+        long amount = parseAmount(qrContent, valueStart, indexOf(qrContent, '&', valueStart, qrContent.length()));
+        return amount == INVALID ? null : Money.toMajor(amount);
     }
 
     /**
      * Извлекает дату и время из QR-кода чека
      * @param qrContent содержимое QR-кода
-     * @return дата и время в виде строки или null
+     * @return дата и время чека или null
      */
     public static Date extractDateTime(String qrContent) {
         if (qrContent == null) {
             return null;
         }
 
-        // Паттерн для поиска параметра t=yyyyMMddTHHmm
-        Pattern pattern = Pattern.compile("t=([0-9]{8}T[0-9]{4})");
-        Matcher matcher = pattern.matcher(qrContent);
+        int valueStart = findValue(qrContent, 't');
+        if (valueStart < 0) {
+            return null;
+        }
+        long timestamp = parseTime(qrContent, valueStart, indexOf(qrContent, '&', valueStart, qrContent.length()));
+        return timestamp == Long.MIN_VALUE ? null : new Date(timestamp);
+    }
+
+    /**
+     * Определяет параметр по имени без создания подстроки
+     * @return бит параметра (KEY_*) или 0, если параметр не поддерживается
+     */
+    private static int keyOf(String s, int from, int to) {
+        int length = to - from;
+        if (length == 1) {
+            switch (s.charAt(from)) {
+                case 't': return KEY_T;
+                case 's': return KEY_S;
+                case 'i': return KEY_I;
+                case 'n': return KEY_N;
+                default: return 0;
+            }
+        }
+        if (length == 2 && s.charAt(from) == 'f') {
+            char second = s.charAt(from + 1);
+            if (second == 'n') return KEY_FN;
+            if (second == 'p') return KEY_FP;
+        }
+        return 0;
+    }
+
+    /**
+     * Начало значения однобуквенного параметра
+     * @return индекс после '=' или -1, если параметра нет
+     */
+    private static int findValue(String s, char key) {
+        int end = s.length();
+        int position = 0;
+        while (position < end) {
+            int separator = indexOf(s, '&', position, end);
+            if (position + 1 < separator && s.charAt(position) == key && s.charAt(position + 1) == '=') {
+                return position + 2;
+            }
+            position = separator + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Индекс символа в диапазоне
+     * @return индекс или to, если символ не найден
+     */
+    private static int indexOf(String s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) return i;
+        }
+        return to;
+    }
+
+    /**
+     * Разбирает непустое число из одних цифр не длиннее maxDigits
+     * @return число или INVALID
+     */
+    private static long parseDigits(String s, int from, int to, int maxDigits) {
+        int length = to - from;
+        if (length <= 0 || length > maxDigits) {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return INVALID;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Разбирает сумму "123", "123.4" или "123.45" (разделитель - точка или запятая) в копейки
+     * @return сумма в копейках или INVALID
+     */
+    private static long parseAmount(String s, int from, int to) {
+        int point = from;
+        while (point < to && s.charAt(point) != '.' && s.charAt(point) != ',') point++;
+
+        long major = parseDigits(s, from, point, MAX_AMOUNT_DIGITS);
+        if (major == INVALID) {
+            return INVALID;
+        }
+        if (point == to) {
+            return major * Money.MINOR_PER_MAJOR;
+        }
 
-        if (matcher.find()) {
-            return DateUtils.parseDate(matcher.group(1));
+        int fractionDigits = to - point - 1;
+        long fraction = parseDigits(s, point + 1, to, Money.MINOR_DIGITS);
+        if (fraction == INVALID) {
+            return INVALID;
         }
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        return major * Money.MINOR_PER_MAJOR + fraction;
+    }
 
-        return null;
+    /**
+     * Разбирает время чека yyyyMMdd'T'HHmm или yyyyMMdd'T'HHmmss в локальном часовом поясе
+     * @return время в мс или Long.MIN_VALUE, если значение некорректно
+     */
+    private static long parseTime(String s, int from, int to) {
+        int length = to - from;
+        // Другие форматы DateUtils в QR-коде чека не допускаются
+        if (length != 13 && length != 15) {
+            return Long.MIN_VALUE;
+        }
+        LocalDateTime dateTime = DateUtils.parseLocalDateTime(s, from, to);
+        if (dateTime == null) {
+            return Long.MIN_VALUE;
+        }
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
@@ -0,0 +1,112 @@
+package com.example.diplom.analytics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+public class TrendSeriesTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private static long at(LocalDateTime time, ZoneId zone) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static long midnight(LocalDate date, ZoneId zone) {
+        return date.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static TrendSeries.Builder builder(int bucket, LocalDate first, LocalDate last, ZoneId zone) {
+        return new TrendSeries.Builder(bucket, new Date(midnight(first, zone)),
+                new Date(midnight(last.plusDays(1), zone) - 1), zone);
+    }
+
+    @Test
+    public void daysFollowDaylightSavingTransitions() {
+        // 31.03.2024 в Берлине длится 23 часа, 27.10.2024 - 25 часов
+        LocalDate first = LocalDate.of(2024, 3, 30);
+        TrendSeries.Builder builder = builder(TrendSeries.BUCKET_DAY, first, LocalDate.of(2024, 4, 1), BERLIN);
+        builder.add(at(LocalDateTime.of(2024, 3, 30, 23, 30), BERLIN), 100);
+        builder.add(at(LocalDateTime.of(2024, 3, 31, 23, 30), BERLIN), 200);
+        builder.add(at(LocalDateTime.of(2024, 4, 1, 0, 30), BERLIN), 300);
+        TrendSeries series = builder.build();
+
+        assertArrayEquals(new long[]{midnight(first, BERLIN), midnight(first.plusDays(1), BERLIN),
+                midnight(first.plusDays(2), BERLIN)}, series.getBucketStarts());
+        assertEquals(23 * 60 * 60 * 1000L, series.getBucketStart(2) - series.getBucketStart(1));
+        assertArrayEquals(new long[]{100, 200, 300}, series.getSums());
+        assertArrayEquals(new int[]{1, 1, 1}, series.getCounts());
+
+        LocalDate autumn = LocalDate.of(2024, 10, 27);
+        builder = builder(TrendSeries.BUCKET_DAY, autumn, autumn.plusDays(1), BERLIN);
+        builder.add(at(LocalDateTime.of(2024, 10, 27, 23, 59), BERLIN), 50);
+        series = builder.build();
+        assertEquals(25 * 60 * 60 * 1000L, series.getBucketStart(1) - series.getBucketStart(0));
+        assertArrayEquals(new long[]{50, 0}, series.getSums());
+    }
+
+    @Test
+    public void weeksStartOnMondayBefore1970() {
+        // 29.12.1969 - понедельник, 01.01.1970 - четверг
+        LocalDate first = LocalDate.of(1969, 12, 22);
+        TrendSeries.Builder builder = builder(TrendSeries.BUCKET_WEEK, first, LocalDate.of(1970, 1, 5), NEW_YORK);
+        builder.add(at(LocalDateTime.of(1969, 12, 28, 12, 0), NEW_YORK), 1);
+        builder.add(at(LocalDateTime.of(1969, 12, 29, 0, 0), NEW_YORK), 10);
+        builder.add(at(LocalDateTime.of(1970, 1, 1, 0, 0), NEW_YORK), 100);
+        builder.add(at(LocalDateTime.of(1970, 1, 5, 9, 0), NEW_YORK), 1000);
+        TrendSeries series = builder.build();
+
+        assertArrayEquals(new long[]{midnight(first, NEW_YORK), midnight(LocalDate.of(1969, 12, 29), NEW_YORK),
+                midnight(LocalDate.of(1970, 1, 5), NEW_YORK)}, series.getBucketStarts());
+        assertArrayEquals(new long[]{1, 110, 1000}, series.getSums());
+        assertArrayEquals(new int[]{1, 2, 1}, series.getCounts());
+    }
+
+    @Test
+    public void monthsAndPeriodNotStartingOnBucketBoundary() {
+        // Период с середины месяца: первый интервал начинается с 1-го числа
+        TrendSeries.Builder builder = new TrendSeries.Builder(TrendSeries.BUCKET_MONTH,
+                new Date(at(LocalDateTime.of(2024, 2, 15, 10, 0), NEW_YORK)),
+                new Date(at(LocalDateTime.of(2024, 4, 10, 10, 0), NEW_YORK)), NEW_YORK);
+        builder.add(at(LocalDateTime.of(2024, 2, 29, 23, 59), NEW_YORK), 5);
+        builder.add(at(LocalDateTime.of(2024, 3, 31, 23, 59), NEW_YORK), 7);
+        builder.add(at(LocalDateTime.of(2024, 4, 1, 0, 0), NEW_YORK), 11);
+        TrendSeries series = builder.build();
+
+        assertArrayEquals(new long[]{midnight(LocalDate.of(2024, 2, 1), NEW_YORK),
+                midnight(LocalDate.of(2024, 3, 1), NEW_YORK), midnight(LocalDate.of(2024, 4, 1), NEW_YORK)},
+                series.getBucketStarts());
+        assertArrayEquals(new long[]{5, 7, 11}, series.getSums());
+    }
+
+    @Test
+    public void keepsEmptyBucketsAndIgnoresOutOfRangeRows() {
+        LocalDate first = LocalDate.of(2024, 1, 1);
+        TrendSeries.Builder builder = builder(TrendSeries.BUCKET_DAY, first, LocalDate.of(2024, 1, 3), BERLIN);
+        builder.add(midnight(first, BERLIN) - 1, 1);
+        builder.add(midnight(LocalDate.of(2024, 1, 3), BERLIN), 2);
+        builder.add(midnight(LocalDate.of(2024, 1, 4), BERLIN), 4);
+        TrendSeries series = builder.build();
+
+        assertEquals(3, series.size());
+        assertArrayEquals(new long[]{0, 0, 2}, series.getSums());
+        assertArrayEquals(new int[]{0, 0, 1}, series.getCounts());
+    }
+
+    @Test
+    public void emptySeries() {
+        TrendSeries series = builder(TrendSeries.BUCKET_WEEK, LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 1, 31), BERLIN).build();
+
+        assertEquals(5, series.size());
+        assertTrue(series.isEmpty());
+    }
+}
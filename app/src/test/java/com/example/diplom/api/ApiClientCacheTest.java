@@ -0,0 +1,96 @@
+package com.example.diplom.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.diplom.api.models.CurrencyRate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.HttpURLConnection;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+
+public class ApiClientCacheTest {
+
+    private static final String BODY = "{\"data\": {\"USD\": 0.0105, \"EUR\": 0.0097}}";
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private CurrencyApiService service;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        service = ApiClient.createCurrencyClient(server.url("/").toString(), cacheDir.getRoot())
+                .create(CurrencyApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private Response<CurrencyRate> refresh() throws Exception {
+        return service.getCurrentRates(ApiClient.API_KEY, ApiClient.SUPPORTED_CURRENCIES, "RUB").execute();
+    }
+
+    @Test
+    public void secondRefreshWithinMaxAgeIsServedFromCache() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        Response<CurrencyRate> first = refresh();
+        assertTrue(first.isSuccessful());
+        assertFalse(ApiClient.isNotModified(first));
+        assertEquals("public, max-age=60", first.headers().get("Cache-Control"));
+
+        Response<CurrencyRate> second = refresh();
+        assertTrue(second.isSuccessful());
+        assertNull(second.raw().networkResponse());
+        assertTrue(ApiClient.isNotModified(second));
+        assertEquals(2, second.body().size());
+
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void refreshAfterMaxAgeSendsConditionalRequest() throws Exception {
+        // Ответ получен 61 секунду назад: к следующему запросу он уже устарел
+        Instant served = Instant.now().minusSeconds(61);
+        server.enqueue(new MockResponse()
+                .setBody(BODY)
+                .setHeader("Date", DateTimeFormatter.RFC_1123_DATE_TIME.format(served.atOffset(ZoneOffset.UTC)))
+                .setHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_MODIFIED));
+
+        Response<CurrencyRate> first = refresh();
+        assertTrue(first.isSuccessful());
+        assertFalse(ApiClient.isNotModified(first));
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+
+        Response<CurrencyRate> second = refresh();
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, second.raw().networkResponse().code());
+        assertTrue(second.isSuccessful());
+        assertTrue(ApiClient.isNotModified(second));
+        assertEquals(2, second.body().size());
+
+        assertEquals(2, server.getRequestCount());
+    }
+}
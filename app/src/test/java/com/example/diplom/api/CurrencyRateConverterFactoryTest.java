@@ -0,0 +1,96 @@
+package com.example.diplom.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.example.diplom.api.models.CurrencyRate;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.Random;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+public class CurrencyRateConverterFactoryTest {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private static CurrencyRate parse(String json) throws Exception {
+        Converter<ResponseBody, ?> converter = CurrencyRateConverterFactory.create()
+                .responseBodyConverter(CurrencyRate.class, new Annotation[0], null);
+        return (CurrencyRate) converter.convert(ResponseBody.create(json, JSON));
+    }
+
+    @Test
+    public void readsRatesFromDataObject() throws Exception {
+        CurrencyRate rate = parse("{"
+                + "\"meta\": {\"last_updated_at\": \"2024-01-15T23:59:59Z\", \"data\": [1, 2]},"
+                + "\"data\": {"
+                + "  \"USD\": 0.0105,"
+                + "  \"EUR\": \"0.0097\","
+                + "  \"BAD\": null,"
+                + "  \"OBJ\": {\"value\": 1},"
+                + "  \"JPY\": 1.62e0"
+                + "},"
+                + "\"tail\": [\"ignored\"]"
+                + "}");
+
+        assertEquals(3, rate.size());
+        assertEquals("USD", rate.getCode(0));
+        assertEquals(0.0105, rate.getRate(0), 0.0);
+        assertEquals("EUR", rate.getCode(1));
+        assertEquals(0.0097, rate.getRate(1), 0.0);
+        assertEquals("JPY", rate.getCode(2));
+        assertEquals(1.62, rate.getRate(2), 0.0);
+    }
+
+    /**
+     * Ответ с заданным числом валют в формате API
+     */
+    private static String payload(int currencies, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder("{\"meta\": {\"last_updated_at\": \"2024-01-15T23:59:59Z\"}, \"data\": {");
+        for (int i = 0; i < currencies; i++) {
+            if (i > 0) json.append(", ");
+            String code = "" + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26) + (char) ('A' + random.nextInt(26));
+            json.append('"').append(code).append("\": ").append(random.nextDouble() * Math.pow(10, random.nextInt(8) - 3));
+        }
+        return json.append("}}").toString();
+    }
+
+    @Test
+    public void largePayloadsMatchGson() throws Exception {
+        for (int currencies : new int[]{33, 170}) {
+            String json = payload(currencies, currencies);
+            CurrencyRate rate = parse(json);
+            JsonObject data = new Gson().fromJson(json, JsonObject.class).getAsJsonObject("data");
+
+            assertEquals(data.size(), rate.size());
+            int index = 0;
+            for (Map.Entry<String, ?> entry : data.entrySet()) {
+                assertEquals(entry.getKey(), rate.getCode(index));
+                assertEquals(data.get(entry.getKey()).getAsDouble(), rate.getRate(index), 0.0);
+                index++;
+            }
+        }
+    }
+
+    @Test
+    public void missingDataGivesEmptyRates() throws Exception {
+        assertEquals(0, parse("{\"meta\": {}}").size());
+        assertEquals(0, parse("{\"data\": []}").size());
+    }
+
+    @Test
+    public void otherTypesAreLeftToNextConverter() {
+        assertNull(CurrencyRateConverterFactory.create()
+                .responseBodyConverter(String.class, new Annotation[0], null));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.diplom.currency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.diplom.database.entities.Currency;
+import com.example.diplom.utils.Money;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class CrossRateMatrixTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static Currency currency(String code, double rate, double change) {
+        Currency currency = new Currency();
+        currency.setCode(code);
+        currency.setBaseCurrency("RUB");
+        currency.setRate(rate);
+        currency.setChange(change);
+        return currency;
+    }
+
+    private static CrossRateMatrix sampleMatrix() {
+        return CrossRateMatrix.fromCurrencies(Arrays.asList(
+                currency("RUB", 1.0, 0.0),
+                currency("USD", 0.0105, 0.0001),
+                currency("EUR", 0.0097, -0.0002),
+                currency("JPY", 1.62, 0.01),
+                currency("KZT", 5.31, 0.0)));
+    }
+
+    @Test
+    public void rateAndInverseMultiplyToOne() {
+        CrossRateMatrix matrix = sampleMatrix();
+        for (int a = 0; a < matrix.size(); a++) {
+            assertEquals(1.0, matrix.rate(a, a), EPSILON);
+            for (int b = 0; b < matrix.size(); b++) {
+                assertEquals(matrix.codeAt(a) + "/" + matrix.codeAt(b),
+                        1.0, matrix.rate(a, b) * matrix.rate(b, a), EPSILON);
+                assertEquals(1.0, matrix.previousRate(a, b) * matrix.previousRate(b, a), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void crossRateGoesThroughPivot() {
+        CrossRateMatrix matrix = sampleMatrix();
+        int usd = matrix.ordinalOf("USD");
+        int eur = matrix.ordinalOf("EUR");
+        int rub = matrix.ordinalOf("RUB");
+
+        assertEquals(0.0097 / 0.0105, matrix.rate(usd, eur), EPSILON);
+        assertEquals(1 / 0.0105, matrix.rate(usd, rub), EPSILON);
+        assertEquals(100 * 0.0097 / 0.0105, matrix.convert(100, "USD", "EUR"), EPSILON);
+        assertEquals("RUB", matrix.getPivotCode());
+    }
+
+    @Test
+    public void scaledRateMatchesRate() {
+        CrossRateMatrix matrix = sampleMatrix();
+        for (int a = 0; a < matrix.size(); a++) {
+            for (int b = 0; b < matrix.size(); b++) {
+                assertEquals(Money.rateOf(matrix.rate(a, b)), matrix.scaledRate(a, b));
+            }
+        }
+        assertEquals(Money.RATE_SCALE, matrix.scaledRate(0, 0));
+    }
+
+    @Test
+    public void previousRateUsesChange() {
+        CrossRateMatrix matrix = sampleMatrix();
+        int rub = matrix.ordinalOf("RUB");
+        int usd = matrix.ordinalOf("USD");
+
+        assertEquals(0.0104, matrix.previousRate(rub, usd), EPSILON);
+    }
+
+    @Test
+    public void unknownCodeConvertsToNaN() {
+        CrossRateMatrix matrix = sampleMatrix();
+
+        assertEquals(-1, matrix.ordinalOf("GBP"));
+        assertFalse(matrix.contains("GBP"));
+        assertTrue(Double.isNaN(matrix.convert(100, "GBP", "USD")));
+        assertTrue(Double.isNaN(matrix.convert(100, "USD", null)));
+    }
+
+    @Test
+    public void zeroRatesAreSkipped() {
+        CrossRateMatrix matrix = CrossRateMatrix.fromCurrencies(Arrays.asList(
+                currency("RUB", 1.0, 0.0),
+                currency("XXX", 0.0, 0.0),
+                currency("USD", 0.0105, 0.0)));
+
+        assertEquals(2, matrix.size());
+        assertFalse(matrix.contains("XXX"));
+        assertEquals(1.0, matrix.rate(matrix.ordinalOf("USD"), matrix.ordinalOf("RUB"))
+                * matrix.rate(matrix.ordinalOf("RUB"), matrix.ordinalOf("USD")), EPSILON);
+    }
+
+    @Test
+    public void emptyInputHasNoMatrix() {
+        assertNull(CrossRateMatrix.fromCurrencies(null));
+        assertNull(CrossRateMatrix.fromCurrencies(Collections.emptyList()));
+        assertNull(CrossRateMatrix.fromCurrencies(Collections.singletonList(currency("XXX", 0.0, 0.0))));
+    }
+}
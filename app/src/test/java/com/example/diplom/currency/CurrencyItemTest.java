@@ -0,0 +1,67 @@
+package com.example.diplom.currency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.diplom.database.entities.Currency;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+public class CurrencyItemTest {
+
+    private static final CurrencyItem.Factory FACTORY =
+            new CurrencyItem.Factory(Locale.US, "Last updated", code -> "USD".equals(code) ? 42 : 0);
+
+    private static Currency currency(String code, String name, double rate, double change, double percent) {
+        Currency currency = new Currency();
+        currency.setCode(code);
+        currency.setName(name);
+        currency.setBaseCurrency("RUB");
+        currency.setRate(rate);
+        currency.setChange(change);
+        currency.setChangePercentage(percent);
+        return currency;
+    }
+
+    @Test
+    public void formatsRiseWithSign() {
+        CurrencyItem item = FACTORY.create(currency("USD", "US Dollar", 0.0105, 0.0002, 1.5));
+
+        assertEquals("0.0105", item.getRateText());
+        assertEquals("+0.0002", item.getChangeText());
+        assertEquals("1.5%", item.getPercentText());
+        assertEquals(CurrencyItem.TREND_UP, item.getTrend());
+        assertEquals(42, item.getFlagResId());
+        assertEquals("", item.getUpdatedText());
+    }
+
+    @Test
+    public void formatsFallAndFlatTrend() {
+        CurrencyItem fall = FACTORY.create(currency("EUR", "Euro", 0.0097, -0.0001, -1.02));
+        CurrencyItem flat = FACTORY.create(currency("RUB", "Russian Ruble", 1.0, 0.0, 0.0));
+
+        assertEquals("-0.0001", fall.getChangeText());
+        assertEquals("-1.02%", fall.getPercentText());
+        assertEquals(CurrencyItem.TREND_DOWN, fall.getTrend());
+        assertEquals(0, fall.getFlagResId());
+
+        assertEquals("1", flat.getRateText());
+        assertEquals("0", flat.getChangeText());
+        assertEquals(CurrencyItem.TREND_NEUTRAL, flat.getTrend());
+    }
+
+    @Test
+    public void buildsSearchAndSortKeys() {
+        CurrencyItem usd = FACTORY.create(currency("USD", "US Dollar", 0.0105, 0.0, 0.0));
+        CurrencyItem aud = FACTORY.create(currency("AUD", "Australian Dollar", 0.016, 0.0, 0.0));
+        CurrencyItem unnamed = FACTORY.create(currency(null, null, 1.0, 0.0, 0.0));
+
+        assertEquals("usd", usd.getCodeKey());
+        assertEquals("us dollar", usd.getNameKey());
+        assertTrue(aud.getCodeSortKey() < usd.getCodeSortKey());
+        assertEquals("", unnamed.getCodeKey());
+        assertTrue(unnamed.getCodeSortKey() < aud.getCodeSortKey());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.diplom.currency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.diplom.database.entities.Currency;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public class CurrencyViewModelTest {
+
+    private static final CurrencyItem.Factory FACTORY =
+            new CurrencyItem.Factory(Locale.US, "Last updated", code -> 0);
+
+    private static CurrencyItem item(String code, String name, double rate) {
+        Currency currency = new Currency();
+        currency.setCode(code);
+        currency.setName(name);
+        currency.setBaseCurrency("RUB");
+        currency.setRate(rate);
+        return FACTORY.create(currency);
+    }
+
+    // Порядок снимка; JPY и KZT с одинаковым курсом, чтобы проверить стабильность
+    private static final List<CurrencyItem> ITEMS = Arrays.asList(
+            item("USD", "US Dollar", 0.0105),
+            item("JPY", "Japanese Yen", 1.62),
+            item("EUR", "Euro", 0.0097),
+            item("KZT", "Kazakhstani Tenge", 1.62),
+            item("AUD", "Australian Dollar", 0.016),
+            item("RUB", "Russian Ruble", 1.0));
+
+    private static List<String> codes(List<CurrencyItem> items) {
+        List<String> codes = new ArrayList<>(items.size());
+        for (CurrencyItem item : items) {
+            codes.add(item.getCode());
+        }
+        return codes;
+    }
+
+    private static List<String> filterAndSort(String code, Double min, Double max, String query, int order) {
+        return codes(CurrencyViewModel.filterAndSort(ITEMS, code, min, max, query, order));
+    }
+
+    @Test
+    public void sortsByCode() {
+        assertEquals(Arrays.asList("AUD", "EUR", "JPY", "KZT", "RUB", "USD"),
+                filterAndSort("", null, null, "", CurrencyViewModel.SORT_CODE_ASC));
+        assertEquals(Arrays.asList("USD", "RUB", "KZT", "JPY", "EUR", "AUD"),
+                filterAndSort("", null, null, "", CurrencyViewModel.SORT_CODE_DESC));
+    }
+
+    @Test
+    public void sortsByRateKeepingSnapshotOrderForEqualRates() {
+        assertEquals(Arrays.asList("EUR", "USD", "AUD", "RUB", "JPY", "KZT"),
+                filterAndSort("", null, null, "", CurrencyViewModel.SORT_RATE_ASC));
+        assertEquals(Arrays.asList("JPY", "KZT", "RUB", "AUD", "USD", "EUR"),
+                filterAndSort("", null, null, "", CurrencyViewModel.SORT_RATE_DESC));
+    }
+
+    @Test
+    public void keepsSnapshotOrderWithoutSorting() {
+        assertEquals(codes(ITEMS), filterAndSort(null, null, null, null, -1));
+    }
+
+    @Test
+    public void searchesByCodeAndNameIgnoringCase() {
+        assertEquals(Arrays.asList("AUD", "USD"),
+                filterAndSort("", null, null, "DOLLAR", CurrencyViewModel.SORT_CODE_ASC));
+        assertEquals(Arrays.asList("EUR"),
+                filterAndSort("", null, null, "eu", CurrencyViewModel.SORT_CODE_ASC));
+        assertEquals(Arrays.asList("RUB", "EUR"),
+                filterAndSort("r", null, null, "", CurrencyViewModel.SORT_CODE_DESC));
+        assertTrue(filterAndSort("", null, null, "peso", CurrencyViewModel.SORT_CODE_ASC).isEmpty());
+    }
+
+    @Test
+    public void filtersByRateRangeInclusive() {
+        assertEquals(Arrays.asList("AUD", "RUB"),
+                filterAndSort("", 0.016, 1.0, "", CurrencyViewModel.SORT_CODE_ASC));
+        assertEquals(Arrays.asList("JPY", "KZT"),
+                filterAndSort("", 1.5, null, "", CurrencyViewModel.SORT_RATE_ASC));
+    }
+
+    @Test
+    public void returnsNewListForEmptyInput() {
+        assertTrue(CurrencyViewModel.filterAndSort(new ArrayList<>(), "", null, null, "",
+                CurrencyViewModel.SORT_CODE_ASC).isEmpty());
+    }
+}
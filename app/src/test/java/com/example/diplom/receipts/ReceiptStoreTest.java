@@ -0,0 +1,180 @@
+package com.example.diplom.receipts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.diplom.database.dao.ReceiptDao;
+import com.example.diplom.database.entities.Receipt;
+import com.example.diplom.database.entities.ReceiptItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReceiptStoreTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    // ID чека = ID расхода + RECEIPT_ID_OFFSET; расходы с отрицательным ID созданы не из чеков
+    private static final int RECEIPT_ID_OFFSET = 1000;
+
+    @Test
+    public void fetchesLinesOnceAndCachesResult() throws Exception {
+        FakeReceiptDao dao = new FakeReceiptDao();
+        AtomicInteger fetches = new AtomicInteger();
+        ReceiptStore store = new ReceiptStore(dao, receipt -> {
+            fetches.incrementAndGet();
+            ReceiptItem item = new ReceiptItem();
+            item.setName("Молоко");
+            item.setPrice(8990);
+            item.setQuantity(2 * ReceiptItem.QUANTITY_SCALE);
+            item.setSum(17980);
+            return Collections.singletonList(item);
+        });
+
+        BlockingQueue<Optional<ReceiptDetails>> results = new LinkedBlockingQueue<>();
+        store.loadDetails(1, details -> results.add(Optional.ofNullable(details)));
+
+        ReceiptDetails first = take(results);
+        assertFalse(first.hasItems());
+        ReceiptDetails fetched = take(results);
+        assertTrue(fetched.hasItems());
+        assertEquals(RECEIPT_ID_OFFSET + 1, fetched.getItems().get(0).getReceiptId());
+
+        // Повторный просмотр берется из кэша, без базы и источника позиций
+        ReceiptDetails cached = loadNow(store, 1);
+        assertSame(fetched, cached);
+        assertEquals(1, fetches.get());
+        assertEquals(1, dao.receiptReads.get());
+        assertEquals(1, dao.itemInserts.get());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedReceipt() throws Exception {
+        FakeReceiptDao dao = new FakeReceiptDao();
+        ReceiptStore store = new ReceiptStore(dao, ReceiptLinesFetcher.NONE);
+
+        for (int expenseId = 0; expenseId < 64; expenseId++) {
+            assertNotNull(loadNow(store, expenseId));
+        }
+        // Обращение к первому чеку делает его самым свежим
+        loadNow(store, 0);
+        assertEquals(64, dao.receiptReads.get());
+
+        // 65-й чек вытесняет давно не использованный второй, а не первый
+        loadNow(store, 64);
+        loadNow(store, 0);
+        assertEquals(65, dao.receiptReads.get());
+        loadNow(store, 1);
+        assertEquals(66, dao.receiptReads.get());
+    }
+
+    @Test
+    public void invalidateDropsCachedReceipt() throws Exception {
+        FakeReceiptDao dao = new FakeReceiptDao();
+        ReceiptStore store = new ReceiptStore(dao, ReceiptLinesFetcher.NONE);
+
+        loadNow(store, 5);
+        store.invalidate(5);
+        loadNow(store, 5);
+        assertEquals(2, dao.receiptReads.get());
+    }
+
+    @Test
+    public void expenseWithoutReceiptGivesNull() throws Exception {
+        FakeReceiptDao dao = new FakeReceiptDao();
+        ReceiptStore store = new ReceiptStore(dao, ReceiptLinesFetcher.NONE);
+
+        assertNull(loadNow(store, -1));
+    }
+
+    private static ReceiptDetails loadNow(ReceiptStore store, int expenseId) throws InterruptedException {
+        BlockingQueue<Optional<ReceiptDetails>> results = new LinkedBlockingQueue<>();
+        store.loadDetails(expenseId, details -> results.add(Optional.ofNullable(details)));
+        return take(results);
+    }
+
+    private static ReceiptDetails take(BlockingQueue<Optional<ReceiptDetails>> results)
+            throws InterruptedException {
+        Optional<ReceiptDetails> result = results.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("callback was not called", result);
+        return result.orElse(null);
+    }
+
+    /**
+     * DAO в памяти: у каждого расхода с неотрицательным ID есть чек без позиций
+     */
+    private static final class FakeReceiptDao implements ReceiptDao {
+        final AtomicInteger receiptReads = new AtomicInteger();
+        final AtomicInteger itemInserts = new AtomicInteger();
+        private final Map<Integer, List<ReceiptItem>> items = new ConcurrentHashMap<>();
+
+        @Override
+        public Receipt getByExpenseIdSync(int expenseId) {
+            receiptReads.incrementAndGet();
+            if (expenseId < 0) {
+                return null;
+            }
+            Receipt receipt = new Receipt();
+            receipt.setId(expenseId + RECEIPT_ID_OFFSET);
+            receipt.setExpenseId(expenseId);
+            receipt.setFiscalDriveNumber(9999078900004792L);
+            receipt.setDocumentNumber(expenseId);
+            receipt.setFiscalSign(1234567890L);
+            receipt.setAmount(17980);
+            receipt.setOperationType(1);
+            return receipt;
+        }
+
+        @Override
+        public List<ReceiptItem> getItemsSync(int receiptId) {
+            return new ArrayList<>(items.getOrDefault(receiptId, Collections.emptyList()));
+        }
+
+        @Override
+        public void insertItems(List<ReceiptItem> receiptItems) {
+            itemInserts.incrementAndGet();
+            for (ReceiptItem item : receiptItems) {
+                items.computeIfAbsent(item.getReceiptId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+
+        @Override
+        public long insertIfAbsent(Receipt receipt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setExpenseId(long receiptId, long expenseId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long insert(Receipt item) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void update(Receipt item) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(Receipt item) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
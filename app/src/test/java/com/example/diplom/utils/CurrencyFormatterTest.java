@@ -0,0 +1,125 @@
+package com.example.diplom.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CurrencyFormatterTest {
+
+    private static final Locale RU = new Locale("ru", "RU");
+    private static final Locale[] LOCALES = {
+            RU, Locale.US, Locale.UK, Locale.GERMANY, Locale.FRANCE, Locale.JAPAN,
+            new Locale("de", "CH"), new Locale("hi", "IN"), new Locale("ar", "EG"), new Locale("kk", "KZ")
+    };
+    private static final String[] CODES = {"RUB", "USD", "EUR", "KZT"};
+
+    /**
+     * Эталон: отдельный NumberFormat на каждый вызов, сумма без потери точности
+     */
+    private static String reference(Locale locale, String code, long minor) {
+        NumberFormat format = NumberFormat.getCurrencyInstance(locale);
+        format.setCurrency(Currency.getInstance(code));
+        format.setMinimumFractionDigits(Money.MINOR_DIGITS);
+        format.setMaximumFractionDigits(Money.MINOR_DIGITS);
+        return format.format(BigDecimal.valueOf(minor, Money.MINOR_DIGITS));
+    }
+
+    private static long randomAmount(Random random) {
+        // Суммы разной длины, чтобы попасть во все варианты группировки разрядов
+        long bound = (long) Math.pow(10, 1 + random.nextInt(13));
+        long value = (long) (random.nextDouble() * bound);
+        return random.nextBoolean() ? value : -value;
+    }
+
+    @Test
+    public void registryReturnsSharedInstancePerLocaleAndCurrency() {
+        assertSame(CurrencyFormatter.get(RU, "RUB"), CurrencyFormatter.get(new Locale("ru", "RU"), "RUB"));
+        assertNotSame(CurrencyFormatter.get(RU, "RUB"), CurrencyFormatter.get(RU, "USD"));
+        assertNotSame(CurrencyFormatter.get(RU, "USD"), CurrencyFormatter.get(Locale.US, "USD"));
+    }
+
+    @Test
+    public void formatsMinorUnitsLikeNumberFormat() {
+        Random random = new Random(2024);
+        for (Locale locale : LOCALES) {
+            for (String code : CODES) {
+                CurrencyFormatter formatter = CurrencyFormatter.get(locale, code);
+                long[] fixed = {0, 1, -1, 5, 99, 100, 101, 99_999, 100_000, 123_456_789_012L,
+                        Long.MAX_VALUE, Long.MIN_VALUE + 1, Long.MIN_VALUE};
+                for (long minor : fixed) {
+                    assertEquals(locale + " " + code + " " + minor,
+                            reference(locale, code, minor), formatter.formatMinor(minor));
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    long minor = randomAmount(random);
+                    assertEquals(locale + " " + code + " " + minor,
+                            reference(locale, code, minor), formatter.formatMinor(minor));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void usesRequestedCurrencyNotLocaleCurrency() {
+        String dollars = CurrencyFormatter.get(RU, "USD").formatMinor(150);
+        String rubles = CurrencyFormatter.get(RU, "RUB").formatMinor(150);
+
+        assertEquals(reference(RU, "USD", 150), dollars);
+        assertEquals(reference(RU, "RUB", 150), rubles);
+        assertFalse(dollars.equals(rubles));
+    }
+
+    @Test
+    public void unknownCodeFallsBackToLocaleCurrency() {
+        NumberFormat format = NumberFormat.getCurrencyInstance(Locale.US);
+        assertEquals(format.format(12.5), CurrencyFormatter.get(Locale.US, "???").format(12.5));
+    }
+
+    @Test
+    public void formatsConcurrently() throws Exception {
+        CurrencyFormatter formatter = CurrencyFormatter.get(RU, "RUB");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                Callable<Integer> task = () -> {
+                    Random random = new Random(seed);
+                    int mismatches = 0;
+                    for (int i = 0; i < 20_000; i++) {
+                        long minor = randomAmount(random);
+                        String expected = reference(RU, "RUB", minor);
+                        // Быстрый путь и NumberFormat потока (суммы до 10^13 копеек точны в double)
+                        if (!expected.equals(formatter.formatMinor(minor))
+                                || !expected.equals(formatter.format(Money.toMajor(minor)))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                };
+                results.add(executor.submit(task));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(0, (int) result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.diplom.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+public class DateUtilsTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 1, 15, 12, 30, 45);
+    private static final LocalDateTime DAY_START = LocalDateTime.of(2024, 1, 15, 0, 0, 0);
+
+    @Test
+    public void parsesAllSupportedShapes() {
+        assertEquals(DAY_START, DateUtils.parseLocalDateTime("2024-01-15"));
+        assertEquals(DAY_START, DateUtils.parseLocalDateTime("15.01.2024"));
+        assertEquals(DAY_START, DateUtils.parseLocalDateTime("15/01/2024"));
+        assertEquals(NOON, DateUtils.parseLocalDateTime("2024-01-15T12:30:45"));
+        assertEquals(NOON, DateUtils.parseLocalDateTime("2024-01-15 12:30:45"));
+        assertEquals(NOON.withSecond(0), DateUtils.parseLocalDateTime("20240115T1230"));
+        assertEquals(NOON, DateUtils.parseLocalDateTime("20240115T123045"));
+    }
+
+    @Test
+    public void parsesRangeWithoutSubstring() {
+        String qr = "t=20240115T123045&s=1";
+
+        assertEquals(NOON, DateUtils.parseLocalDateTime(qr, 2, 17));
+        assertEquals(NOON.withSecond(0), DateUtils.parseLocalDateTime(qr, 2, 15));
+        assertNull(DateUtils.parseLocalDateTime(qr, 2, 16));
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        String[] inputs = {
+                "", "2024", "2024-1-15", "2024/01/15", "15-01-2024", "15.01/2024", "2024-01-1x",
+                "2024-01-15X12:30:45", "2024-01-15T12-30-45", "2024-01-15T12:30", "20240115 1230",
+                "20240115T12:3", "2024011T51230", "20240115T12304", "２０２４-01-15", "-024-01-15"
+        };
+        for (String input : inputs) {
+            assertNull(input, DateUtils.parseLocalDateTime(input));
+        }
+    }
+
+    @Test
+    public void checksFieldBounds() {
+        assertNotNull(DateUtils.parseLocalDateTime("0001-01-01"));
+        assertNotNull(DateUtils.parseLocalDateTime("9999-12-31T23:59:59"));
+        assertNotNull(DateUtils.parseLocalDateTime("29.02.2024"));
+        assertNotNull(DateUtils.parseLocalDateTime("29.02.2000"));
+
+        assertNull(DateUtils.parseLocalDateTime("0000-01-01"));
+        assertNull(DateUtils.parseLocalDateTime("2024-00-15"));
+        assertNull(DateUtils.parseLocalDateTime("2024-13-15"));
+        assertNull(DateUtils.parseLocalDateTime("2024-01-00"));
+        assertNull(DateUtils.parseLocalDateTime("2024-01-32"));
+        assertNull(DateUtils.parseLocalDateTime("31.04.2024"));
+        assertNull(DateUtils.parseLocalDateTime("29.02.2023"));
+        assertNull(DateUtils.parseLocalDateTime("29.02.1900"));
+        assertNull(DateUtils.parseLocalDateTime("2024-01-15T24:00:00"));
+        assertNull(DateUtils.parseLocalDateTime("2024-01-15T12:60:00"));
+        assertNull(DateUtils.parseLocalDateTime("2024-01-15T12:30:60"));
+        assertNull(DateUtils.parseLocalDateTime("20240115T2400"));
+    }
+
+    @Test
+    public void parseDateFallsBackToNowOnlyForUnknownFormat() {
+        assertNull(DateUtils.parseDate(null));
+        assertNull(DateUtils.parseDate(""));
+
+        Date parsed = DateUtils.parseDate("2024-01-15T12:30:45");
+        assertEquals(NOON.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), parsed.getTime());
+
+        long before = System.currentTimeMillis();
+        Date fallback = DateUtils.parseDate("yesterday");
+        long after = System.currentTimeMillis();
+        assertNotNull(fallback);
+        assertTrue(fallback.getTime() >= before && fallback.getTime() <= after);
+    }
+
+    @Test
+    public void formatsInLocalZone() {
+        Date date = DateUtils.toDate(NOON);
+
+        assertEquals("15.01.2024", DateUtils.formatDate(date));
+        assertEquals("15.01.2024 12:30", DateUtils.formatDateTime(date));
+        assertEquals(NOON, DateUtils.toLocalDateTime(date));
+        assertEquals("", DateUtils.formatDate(null));
+        assertEquals(31L, DateUtils.getDaysBetween(date, DateUtils.toDate(NOON.plusDays(31))));
+    }
+}
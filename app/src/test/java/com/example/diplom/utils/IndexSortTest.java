@@ -0,0 +1,109 @@
+package com.example.diplom.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class IndexSortTest {
+
+    /**
+     * Эталон: стабильная сортировка индексов библиотечной сортировкой объектов
+     */
+    private static int[] expectedOrder(long[] keys, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> keys[i]));
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    private static void assertSortsLikeReference(long[] keys) {
+        int count = keys.length;
+        long[] sortedKeys = keys.clone();
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+
+        IndexSort.sortByKey(sortedKeys, indices, count);
+
+        int[] expected = expectedOrder(keys, count);
+        assertArrayEquals("size " + count, expected, indices);
+        for (int i = 0; i < count; i++) {
+            assertEquals(keys[expected[i]], sortedKeys[i]);
+        }
+    }
+
+    @Test
+    public void sortsAroundInsertionThreshold() {
+        Random random = new Random(7);
+        for (int size : new int[]{0, 1, 2, 15, 16, 17, 31, 32, 33, 64, 100, 1000}) {
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = random.nextLong();
+            }
+            assertSortsLikeReference(keys);
+        }
+    }
+
+    @Test
+    public void keepsOrderOfEqualKeys() {
+        Random random = new Random(11);
+        for (int size : new int[]{15, 16, 17, 33, 257}) {
+            // Мало различных ключей: много равных в каждом отрезке и при слиянии
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = random.nextInt(3);
+            }
+            assertSortsLikeReference(keys);
+        }
+    }
+
+    @Test
+    public void allEqualKeysKeepOriginalOrder() {
+        long[] keys = new long[33];
+        Arrays.fill(keys, 5);
+        int[] indices = new int[33];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+
+        IndexSort.sortByKey(keys, indices, indices.length);
+
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals(i, indices[i]);
+        }
+    }
+
+    @Test
+    public void sortsReversedInputAndExtremeKeys() {
+        long[] keys = new long[40];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keys.length - i;
+        }
+        keys[3] = Long.MIN_VALUE;
+        keys[20] = Long.MAX_VALUE;
+        assertSortsLikeReference(keys);
+    }
+
+    @Test
+    public void sortsOnlyFirstCountElements() {
+        long[] keys = {3, 1, 2, -1, -2};
+        int[] indices = {0, 1, 2, 3, 4};
+
+        IndexSort.sortByKey(keys, indices, 3);
+
+        assertArrayEquals(new long[]{1, 2, 3, -1, -2}, keys);
+        assertArrayEquals(new int[]{1, 2, 0, 3, 4}, indices);
+    }
+}
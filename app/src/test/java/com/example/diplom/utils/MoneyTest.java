@@ -0,0 +1,129 @@
+package com.example.diplom.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+public class MoneyTest {
+
+    private static long convert(long minor, double rate) {
+        return Money.convert(minor, Money.rateOf(rate));
+    }
+
+    /**
+     * Эталон: точное произведение в BigDecimal с округлением HALF_UP
+     */
+    private static BigDecimal reference(long minor, long scaledRate) {
+        return BigDecimal.valueOf(minor)
+                .multiply(BigDecimal.valueOf(scaledRate))
+                .divide(BigDecimal.valueOf(Money.RATE_SCALE), 0, RoundingMode.HALF_UP);
+    }
+
+    private static void assertMatchesReference(long minor, long scaledRate) {
+        BigDecimal expected = reference(minor, scaledRate);
+        if (expected.toBigInteger().bitLength() < 64) {
+            assertEquals(minor + " * " + scaledRate, expected.longValueExact(), Money.convert(minor, scaledRate));
+        } else {
+            assertThrows(minor + " * " + scaledRate, ArithmeticException.class,
+                    () -> Money.convert(minor, scaledRate));
+        }
+    }
+
+    @Test
+    public void roundsHalfUpFromDecimalNotation() {
+        // 0.285 в double чуть меньше 0.285, но округляется по десятичной записи
+        assertEquals(29L, Money.ofMajor(0.285));
+        assertEquals(150010L, Money.ofMajor(1500.1));
+        assertEquals(29L, Money.parse("0,285"));
+        assertEquals(2_850_000_000L, Money.rateOf(0.285));
+    }
+
+    @Test
+    public void parseInputMatchesParse() {
+        String[] inputs = {"0", "7", "123", "123,4", "123,45", "0,285", "0,284", "0,2849", "1,995",
+                ",5", "5,", "99999999999999", "92233720368547758,07"};
+        for (String input : inputs) {
+            assertEquals(input, Money.parse(input), Money.parseInput(input, ','));
+        }
+        assertEquals(12345L, Money.parseInput("123.45", ','));
+        assertEquals(12345L, Money.parseInput("123.45", '.'));
+    }
+
+    @Test
+    public void parseInputRejectsMalformedText() {
+        String[] inputs = {"", ",", "1,2,3", "1,,2", "-5", "+5", "1 000", "12a", "1e5", " 1"};
+        for (String input : inputs) {
+            assertEquals(input, -1L, Money.parseInput(input, ','));
+        }
+    }
+
+    @Test
+    public void parseInputOverflowFailsLoudly() {
+        assertThrows(ArithmeticException.class, () -> Money.parseInput("92233720368547758,08", ','));
+        assertThrows(ArithmeticException.class, () -> Money.parseInput("92233720368547758,075", ','));
+        assertThrows(ArithmeticException.class, () -> Money.parseInput("100000000000000000", ','));
+    }
+
+    @Test
+    public void convertRoundsExactlyHalfUp() {
+        // 100 * 0.285 в double = 28.499999999999996
+        assertEquals(29L, convert(100, 0.285));
+        assertEquals(-29L, convert(-100, 0.285));
+        assertEquals(28L, convert(100, 0.2849999999));
+        assertEquals(105L, convert(10_000, 0.0105));
+        assertEquals(0L, convert(0, 95.5));
+    }
+
+    @Test
+    public void convertBeyondLongProductIsExact() {
+        // Произведение суммы на курс с фиксированной точкой не помещается в long:
+        // при курсе около 1 это любые суммы больше ~9.2 млн в основных единицах
+        assertEquals(1_000_000_000_00L, convert(1_000_000_000_00L, 1.0));
+        assertEquals(95_500_000_000_050L, convert(1_000_000_000_00L, 955.0000000005));
+        assertEquals(Long.MAX_VALUE, convert(Long.MAX_VALUE, 1.0));
+        assertEquals(Long.MAX_VALUE / 2, convert(Long.MAX_VALUE - 1, 0.5));
+        assertEquals(Long.MIN_VALUE, convert(Long.MIN_VALUE, 1.0));
+        assertEquals(-Long.MAX_VALUE, convert(-Long.MAX_VALUE, 1.0));
+    }
+
+    @Test
+    public void convertMatchesBigDecimalOnRandomInputs() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Разные порядки суммы и курса, включая переполнение
+            long minor = random.nextLong() >> random.nextInt(64);
+            long scaledRate = random.nextLong() >> random.nextInt(64);
+            assertMatchesReference(minor, scaledRate);
+        }
+        long[] edges = {0, 1, -1, Money.RATE_SCALE, -Money.RATE_SCALE, Money.RATE_SCALE / 2,
+                Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1};
+        for (long minor : edges) {
+            for (long scaledRate : edges) {
+                assertMatchesReference(minor, scaledRate);
+            }
+        }
+    }
+
+    @Test
+    public void convertOverflowFailsLoudly() {
+        assertThrows(ArithmeticException.class, () -> convert(Long.MAX_VALUE, 1.0000000001));
+        assertThrows(ArithmeticException.class, () -> convert(Long.MAX_VALUE / 2 + 1, 2.0));
+        assertThrows(ArithmeticException.class, () -> convert(Long.MIN_VALUE, -1.0));
+        assertThrows(ArithmeticException.class, () -> Money.rateOf(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.rateOf(Double.POSITIVE_INFINITY));
+        assertThrows(ArithmeticException.class, () -> Money.rateOf(1e9));
+    }
+
+    @Test
+    public void arithmeticOverflowFailsLoudly() {
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.multiply(Long.MAX_VALUE, 2));
+        assertThrows(ArithmeticException.class, () -> Money.ofMajor(1e17));
+    }
+}
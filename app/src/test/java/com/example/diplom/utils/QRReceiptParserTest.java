@@ -0,0 +1,221 @@
+package com.example.diplom.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.diplom.receipts.FiscalReceipt;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class QRReceiptParserTest {
+
+    private static final String VALID = "t=20240115T1230&s=1234.56&fn=9999078900004792&i=12345&fp=1234567890&n=1";
+
+    private static long millis(int year, int month, int day, int hour, int minute, int second) {
+        return LocalDateTime.of(year, month, day, hour, minute, second)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void parsesAllFields() {
+        FiscalReceipt receipt = QRReceiptParser.parseReceipt(VALID);
+
+        assertNotNull(receipt);
+        assertEquals(millis(2024, 1, 15, 12, 30, 0), receipt.getTimestamp());
+        assertEquals(123456L, receipt.getAmount());
+        assertEquals(9999078900004792L, receipt.getFiscalDriveNumber());
+        assertEquals(12345L, receipt.getDocumentNumber());
+        assertEquals(1234567890L, receipt.getFiscalSign());
+        assertEquals(FiscalReceipt.OPERATION_INCOME, receipt.getOperationType());
+    }
+
+    @Test
+    public void acceptsShortAndLongTimeForms() {
+        FiscalReceipt shortForm = QRReceiptParser.parseReceipt("t=20240229T2359&s=1&fn=1&i=2&fp=3");
+        FiscalReceipt longForm = QRReceiptParser.parseReceipt("t=20240229T235958&s=1&fn=1&i=2&fp=3");
+
+        assertNotNull(shortForm);
+        assertNotNull(longForm);
+        assertEquals(millis(2024, 2, 29, 23, 59, 0), shortForm.getTimestamp());
+        assertEquals(millis(2024, 2, 29, 23, 59, 58), longForm.getTimestamp());
+    }
+
+    @Test
+    public void rejectsInvalidTime() {
+        // 30 февраля, 29 февраля невисокосного года, 24 часа, 14 и 12 символов, формат ISO
+        assertNull(QRReceiptParser.parseReceipt("t=20240230T1230&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20230229T1230&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T2400&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T12301&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T123&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=2024-01-15&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.extractDateTime("t=20240230T1230"));
+    }
+
+    @Test
+    public void sameReceiptIsEqualAcrossTimeZones() {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/Moscow"));
+            FiscalReceipt moscow = QRReceiptParser.parseReceipt(VALID);
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Yekaterinburg"));
+            FiscalReceipt yekaterinburg = QRReceiptParser.parseReceipt(VALID);
+
+            // Время в мс зависит от пояса, ключ дубликатов (fn, i, fp) - нет
+            assertNotEquals(moscow.getTimestamp(), yekaterinburg.getTimestamp());
+            assertEquals(moscow, yekaterinburg);
+            assertEquals(moscow.hashCode(), yekaterinburg.hashCode());
+            assertNotEquals(moscow, QRReceiptParser.parseReceipt(VALID.replace("i=12345", "i=12346")));
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    public void rejectsDuplicateKeys() {
+        assertNull(QRReceiptParser.parseReceipt(VALID + "&s=1.00"));
+        assertNull(QRReceiptParser.parseReceipt(VALID + "&n=1"));
+        assertNull(QRReceiptParser.parseReceipt(VALID + "&fp=1"));
+    }
+
+    @Test
+    public void rejectsTrailingSeparator() {
+        assertNull(QRReceiptParser.parseReceipt(VALID + "&"));
+        assertNotNull(QRReceiptParser.parseReceipt(VALID + "  "));
+    }
+
+    @Test
+    public void parsesAmountWithAtMostTwoFractionDigits() {
+        assertEquals(120L, QRReceiptParser.parseReceipt("t=20240115T1230&s=1.2&fn=1&i=2&fp=3").getAmount());
+        assertEquals(120L, QRReceiptParser.parseReceipt("t=20240115T1230&s=1,20&fn=1&i=2&fp=3").getAmount());
+        assertEquals(100L, QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=1&i=2&fp=3").getAmount());
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1.234&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1.&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=-1&fn=1&i=2&fp=3"));
+    }
+
+    @Test
+    public void validatesOperationType() {
+        assertNull(QRReceiptParser.parseReceipt(VALID.replace("n=1", "n=5")));
+        assertNull(QRReceiptParser.parseReceipt(VALID.replace("n=1", "n=0")));
+        assertNull(QRReceiptParser.parseReceipt(VALID.replace("n=1", "n=12")));
+
+        FiscalReceipt refund = QRReceiptParser.parseReceipt(VALID.replace("n=1", "n=2"));
+        assertNotNull(refund);
+        assertTrue(refund.isRefund());
+    }
+
+    @Test
+    public void rejectsMalformedValues() {
+        // Нечисловые и пустые суммы
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=abc&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1.2a&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=.50&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1e3&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.extractAmount("t=20240115T1230&s=12,3,4"));
+
+        // Слишком длинные значения: fn до 16 цифр, i и fp до 10, рубли суммы до 15
+        assertNotNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=999999999999999.99&fn=9999999999999999"
+                + "&i=9999999999&fp=9999999999"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=99999999999999999&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=1&i=99999999999&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=1&i=2&fp=99999999999"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=9999999999999999&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=" + "9".repeat(1000) + "&i=2&fp=3"));
+
+        // Время без минут или с неполными секундами
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T12&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230x0&s=1&fn=1&i=2&fp=3"));
+        assertNull(QRReceiptParser.parseReceipt("t=&s=1&fn=1&i=2&fp=3"));
+
+        // Повтор времени и повтор неизвестного параметра
+        assertNull(QRReceiptParser.parseReceipt(VALID + "&t=20240115T1231"));
+        assertNotNull(QRReceiptParser.parseReceipt(VALID + "&x=1&x=2"));
+
+        // Лишние разделители и параметры без значения
+        assertNull(QRReceiptParser.parseReceipt("&" + VALID));
+        assertNull(QRReceiptParser.parseReceipt(VALID.replace("&s=", "&&s=")));
+        assertNull(QRReceiptParser.parseReceipt(VALID.replace("&n=1", "&n")));
+        assertNull(QRReceiptParser.parseReceipt(VALID.replace("s=1234.56", "s==1234.56")));
+    }
+
+    @Test
+    public void truncatedInputNeverThrows() {
+        // Пока не дочитано значение fp, чек неполный
+        int fpValueStart = VALID.indexOf("fp=") + 3;
+        for (int i = 0; i <= VALID.length(); i++) {
+            String prefix = VALID.substring(0, i);
+            FiscalReceipt receipt = QRReceiptParser.parseReceipt(prefix);
+            if (i <= fpValueStart) {
+                assertNull(prefix, receipt);
+            }
+            QRReceiptParser.extractAmount(prefix);
+            QRReceiptParser.extractDateTime(prefix);
+
+            String suffix = VALID.substring(i);
+            QRReceiptParser.parseReceipt(suffix);
+            QRReceiptParser.extractAmount(suffix);
+            QRReceiptParser.extractDateTime(suffix);
+        }
+    }
+
+    @Test
+    public void randomInputNeverThrows() {
+        Random random = new Random(2024);
+        String alphabet = "0123456789tsfinpT=&.,- x\u0000\u00e9";
+        for (int iteration = 0; iteration < 100_000; iteration++) {
+            String input;
+            if (iteration % 2 == 0) {
+                // Случайная строка из символов, значимых для разбора
+                char[] chars = new char[random.nextInt(64)];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+                }
+                input = new String(chars);
+            } else {
+                // Корректный код с несколькими случайными заменами, вставками и удалениями
+                StringBuilder builder = new StringBuilder(VALID);
+                for (int edits = 1 + random.nextInt(3); edits > 0 && builder.length() > 0; edits--) {
+                    int position = random.nextInt(builder.length());
+                    char c = alphabet.charAt(random.nextInt(alphabet.length()));
+                    switch (random.nextInt(3)) {
+                        case 0: builder.setCharAt(position, c); break;
+                        case 1: builder.insert(position, c); break;
+                        default: builder.deleteCharAt(position); break;
+                    }
+                }
+                input = builder.toString();
+            }
+
+            FiscalReceipt receipt = QRReceiptParser.parseReceipt(input);
+            if (receipt != null) {
+                // Разобранный чек всегда в допустимых пределах
+                assertTrue(input, receipt.getAmount() >= 0);
+                assertTrue(input, receipt.getFiscalDriveNumber() >= 0);
+                assertTrue(input, receipt.getOperationType() >= FiscalReceipt.OPERATION_INCOME
+                        && receipt.getOperationType() <= FiscalReceipt.OPERATION_EXPENSE_RETURN);
+            }
+            QRReceiptParser.extractAmount(input);
+            QRReceiptParser.extractDateTime(input);
+        }
+    }
+
+    @Test
+    public void requiresAllFiscalKeysAndSkipsUnknownOnes() {
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=1&i=2"));
+        assertNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=1&i=2&=3"));
+        assertNotNull(QRReceiptParser.parseReceipt("t=20240115T1230&s=1&fn=1&i=2&fp=3&x=abc"));
+        assertNull(QRReceiptParser.parseReceipt(null));
+    }
+}